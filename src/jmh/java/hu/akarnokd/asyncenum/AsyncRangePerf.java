@@ -14,9 +14,8 @@
  * limitations under the License.
  */
 
-package hu.akarnokd.assyncenum;
+package hu.akarnokd.asyncenum;
 
-import hu.akarnokd.asyncenum.*;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -56,7 +55,7 @@ public class AsyncRangePerf extends AtomicInteger implements BiConsumer<Boolean,
     void consume() {
         if (getAndIncrement() == 0) {
             do {
-                en.moveNext().whenComplete(this);
+                AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
             } while (decrementAndGet() != 0);
         }
     }
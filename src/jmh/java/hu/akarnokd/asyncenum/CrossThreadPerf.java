@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the cost of hopping threads via subscribeOn and observeOn, with and without prefetch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class CrossThreadPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    ExecutorService executor1;
+
+    ExecutorService executor2;
+
+    AsyncEnumerable<Integer> subscribeOn;
+
+    AsyncEnumerable<Integer> observeOn;
+
+    AsyncEnumerable<Integer> observeOnPrefetch;
+
+    AsyncEnumerable<Integer> pipeline;
+
+    @Setup
+    public void setup() {
+        executor1 = Executors.newSingleThreadExecutor();
+        executor2 = Executors.newSingleThreadExecutor();
+
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, count);
+
+        subscribeOn = source.subscribeOn(executor1);
+        observeOn = source.observeOn(executor1);
+        observeOnPrefetch = source.observeOn(executor1, 128);
+        pipeline = source.subscribeOn(executor1).map(v -> v + 1).observeOn(executor2);
+    }
+
+    @TearDown
+    public void teardown() {
+        executor1.shutdownNow();
+        executor2.shutdownNow();
+    }
+
+    @Benchmark
+    public void subscribeOn(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(subscribeOn).await(count);
+    }
+
+    @Benchmark
+    public void observeOn(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(observeOn).await(count);
+    }
+
+    @Benchmark
+    public void observeOnPrefetch(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(observeOnPrefetch).await(count);
+    }
+
+    @Benchmark
+    public void pipeline(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(pipeline).await(count);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.concurrent.*;
+
+/**
+ * Measures flatMap, concatMap and concatMapEager with {@code count} inner sources of
+ * {@code 1000000 / count} items each, so every run produces 1M items, and merging
+ * two such inner sources with mergeArray and mergeSorted.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class FlatMapPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    @Param({"sync", "async"})
+    String mode;
+
+    ExecutorService executor;
+
+    AsyncEnumerable<Integer> flatMap;
+
+    AsyncEnumerable<Integer> flatMapBounded;
+
+    AsyncEnumerable<Integer> concatMap;
+
+    AsyncEnumerable<Integer> concatMapEager;
+
+    AsyncEnumerable<Integer> mergeArray;
+
+    AsyncEnumerable<Integer> mergeSorted;
+
+    @Setup
+    public void setup() {
+        int inner = 1000000 / count;
+        AsyncEnumerable<Integer> innerSource = AsyncEnumerable.range(1, inner);
+        if ("async".equals(mode)) {
+            executor = Executors.newSingleThreadExecutor();
+            innerSource = innerSource.subscribeOn(executor);
+        }
+        AsyncEnumerable<Integer> is = innerSource;
+        AsyncEnumerable<Integer> outer = AsyncEnumerable.range(1, count);
+
+        flatMap = outer.flatMap(v -> is);
+        flatMapBounded = outer.flatMap(v -> is, 4, 32);
+        concatMap = outer.concatMap(v -> is);
+        concatMapEager = outer.concatMapEager(v -> is, 4, 32);
+        mergeArray = AsyncEnumerable.mergeArray(is, is);
+        mergeSorted = AsyncEnumerable.mergeSorted(Comparator.naturalOrder(), is, is);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(flatMap).await(count);
+    }
+
+    @Benchmark
+    public void flatMapBounded(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(flatMapBounded).await(count);
+    }
+
+    @Benchmark
+    public void concatMap(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(concatMap).await(count);
+    }
+
+    @Benchmark
+    public void concatMapEager(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(concatMapEager).await(count);
+    }
+
+    @Benchmark
+    public void mergeArray(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(mergeArray).await(count);
+    }
+
+    @Benchmark
+    public void mergeSorted(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(mergeSorted).await(count);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the Flow.Publisher bridges against a plain {@link SubmissionPublisher} baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class FlowBridgePerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    ExecutorService executor;
+
+    AsyncEnumerable<Integer> source;
+
+    Flow.Publisher<Integer> toFlowPublisher;
+
+    AsyncEnumerable<Integer> roundtrip;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        source = AsyncEnumerable.range(1, count);
+        toFlowPublisher = source.toFlowPublisher();
+        roundtrip = AsyncEnumerable.fromFlowPublisher(toFlowPublisher);
+    }
+
+    @TearDown
+    public void teardown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void toFlowPublisher(Blackhole bh) {
+        PerfFlowSubscriber s = new PerfFlowSubscriber(bh);
+        toFlowPublisher.subscribe(s);
+        s.await(count);
+    }
+
+    @Benchmark
+    public void fromFlowPublisherRoundtrip(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(roundtrip).await(count);
+    }
+
+    @Benchmark
+    public void submissionPublisherBaseline(Blackhole bh) {
+        PerfFlowSubscriber s = new PerfFlowSubscriber(bh);
+        try (SubmissionPublisher<Integer> sp = new SubmissionPublisher<>(executor, Flow.defaultBufferSize())) {
+            sp.subscribe(s);
+            for (int i = 1; i <= count; i++) {
+                sp.submit(i);
+            }
+        }
+        s.await(count);
+    }
+
+    @Benchmark
+    public void submissionPublisherEnumerated(Blackhole bh) {
+        PerfAsyncConsumer c = new PerfAsyncConsumer(bh);
+        try (SubmissionPublisher<Integer> sp = new SubmissionPublisher<>(executor, Flow.defaultBufferSize())) {
+            c.consume(AsyncEnumerable.fromFlowPublisher(sp));
+            for (int i = 1; i <= count; i++) {
+                sp.submit(i);
+            }
+        }
+        c.await(count);
+    }
+}
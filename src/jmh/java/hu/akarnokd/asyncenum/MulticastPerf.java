@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the multicasting operators: publish, cache and groupBy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class MulticastPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    AsyncEnumerable<Integer> publish;
+
+    AsyncEnumerable<Integer> publishTwoBranches;
+
+    AsyncEnumerable<Integer> publishTwoBranchesPrefetch;
+
+    AsyncEnumerable<Integer> source;
+
+    AsyncEnumerable<Integer> cacheReplay;
+
+    AsyncEnumerable<Integer> groupBy;
+
+    @Setup
+    public void setup() {
+        source = AsyncEnumerable.range(1, count);
+
+        publish = source.publish(v -> v);
+        publishTwoBranches = source.publish(v -> v.filter(u -> (u & 1) == 0).mergeWith(v.filter(u -> (u & 1) != 0)));
+        publishTwoBranchesPrefetch = source.publish(v -> v.filter(u -> (u & 1) == 0).mergeWith(v.filter(u -> (u & 1) != 0)), 128);
+
+        cacheReplay = source.cache();
+        cacheReplay.blockingLast();
+
+        groupBy = source.groupBy(v -> v & 7).flatMap(g -> g);
+    }
+
+    @Benchmark
+    public void publish(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(publish).await(count);
+    }
+
+    @Benchmark
+    public void publishTwoBranches(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(publishTwoBranches).await(count);
+    }
+
+    @Benchmark
+    public void publishTwoBranchesPrefetch(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(publishTwoBranchesPrefetch).await(count);
+    }
+
+    @Benchmark
+    public void cacheFresh(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(source.cache()).await(count);
+    }
+
+    @Benchmark
+    public void cacheReplay(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(cacheReplay).await(count);
+    }
+
+    @Benchmark
+    public void groupBy(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(groupBy).await(count);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the common intermediate operators over a synchronous
+ * or a {@code subscribeOn}-asynchronous source.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class OperatorsPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    @Param({"sync", "async"})
+    String mode;
+
+    ExecutorService executor;
+
+    AsyncEnumerable<Integer> map;
+
+    AsyncEnumerable<Integer> filter;
+
+    AsyncEnumerable<Integer> mapFilter;
+
+    AsyncEnumerable<Integer> take;
+
+    AsyncEnumerable<Integer> skip;
+
+    AsyncEnumerable<Integer> takeLast;
+
+    AsyncEnumerable<Integer> distinctUntilChanged;
+
+    AsyncEnumerable<Integer> reduce;
+
+    AsyncEnumerable<?> toList;
+
+    AsyncEnumerable<Integer> concatWith;
+
+    @Setup
+    public void setup() {
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, count);
+        if ("async".equals(mode)) {
+            executor = Executors.newSingleThreadExecutor();
+            source = source.subscribeOn(executor);
+        }
+
+        map = source.map(v -> v + 1);
+        filter = source.filter(v -> (v & 1) == 0);
+        mapFilter = source.map(v -> v + 1).filter(v -> (v & 1) == 0);
+        take = source.take(count / 2);
+        skip = source.skip(count / 2);
+        takeLast = source.takeLast(10);
+        distinctUntilChanged = source.distinctUntilChanged(v -> v >> 2);
+        reduce = source.reduce((a, b) -> a + b);
+        toList = source.toList();
+        concatWith = source.concatWith(source);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void map(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(map).await(count);
+    }
+
+    @Benchmark
+    public void filter(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(filter).await(count);
+    }
+
+    @Benchmark
+    public void mapFilter(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(mapFilter).await(count);
+    }
+
+    @Benchmark
+    public void take(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(take).await(count);
+    }
+
+    @Benchmark
+    public void skip(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(skip).await(count);
+    }
+
+    @Benchmark
+    public void takeLast(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(takeLast).await(count);
+    }
+
+    @Benchmark
+    public void distinctUntilChanged(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(distinctUntilChanged).await(count);
+    }
+
+    @Benchmark
+    public void reduce(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(reduce).await(count);
+    }
+
+    @Benchmark
+    public void toList(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(toList).await(count);
+    }
+
+    @Benchmark
+    public void concatWith(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(concatWith).await(count);
+    }
+}
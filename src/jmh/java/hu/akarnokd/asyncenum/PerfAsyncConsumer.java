@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Consumes an AsyncEnumerable into a Blackhole and allows awaiting
+ * its termination when the source crosses thread boundaries.
+ */
+public final class PerfAsyncConsumer extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+    final Blackhole bh;
+
+    final CountDownLatch latch;
+
+    AsyncEnumerator<?> en;
+
+    public PerfAsyncConsumer(Blackhole bh) {
+        this.bh = bh;
+        this.latch = new CountDownLatch(1);
+    }
+
+    public PerfAsyncConsumer consume(AsyncEnumerable<?> source) {
+        en = source.enumerator();
+        moveNext();
+        return this;
+    }
+
+    void moveNext() {
+        if (getAndIncrement() == 0) {
+            do {
+                AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    @Override
+    public void accept(Boolean aBoolean, Throwable throwable) {
+        if (throwable != null) {
+            bh.consume(throwable);
+            latch.countDown();
+            return;
+        }
+
+        if (aBoolean) {
+            bh.consume(en.current());
+            moveNext();
+        } else {
+            bh.consume(false);
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Waits for the termination of the consumed source; spins for short
+     * sequences to avoid measuring the park/unpark latency.
+     * @param count the expected number of items, used for picking the waiting strategy
+     */
+    public void await(int count) {
+        if (count <= 1000) {
+            while (latch.getCount() != 0) {
+                Thread.onSpinWait();
+            }
+        } else {
+            try {
+                if (!latch.await(30, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Timeout");
+                }
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Unbounded Flow.Subscriber consuming items into a Blackhole and allowing
+ * awaiting its termination.
+ */
+public final class PerfFlowSubscriber implements Flow.Subscriber<Object> {
+
+    final Blackhole bh;
+
+    final CountDownLatch latch;
+
+    public PerfFlowSubscriber(Blackhole bh) {
+        this.bh = bh;
+        this.latch = new CountDownLatch(1);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        bh.consume(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        bh.consume(throwable);
+        latch.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        bh.consume(true);
+        latch.countDown();
+    }
+
+    public void await(int count) {
+        if (count <= 1000) {
+            while (latch.getCount() != 0) {
+                Thread.onSpinWait();
+            }
+        } else {
+            try {
+                if (!latch.await(30, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Timeout");
+                }
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.*;
+
+/**
+ * Compares synchronous AsyncEnumerable pipelines with their {@code java.util.stream} equivalents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class StreamBaselinePerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    AsyncEnumerable<Integer> mapFilterSum;
+
+    IntAsyncEnumerable mapFilterSumInt;
+
+    AsyncEnumerable<Integer> flatMap;
+
+    AsyncEnumerable<?> toList;
+
+    @Setup
+    public void setup() {
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, count);
+
+        mapFilterSum = source.map(v -> v + 1).filter(v -> (v & 1) == 0).sumInt(v -> v);
+        mapFilterSumInt = IntAsyncEnumerable.range(1, count).map(v -> v + 1).filter(v -> (v & 1) == 0).sum();
+        flatMap = source.flatMap(v -> AsyncEnumerable.fromArray(v, v + 1));
+        toList = source.toList();
+    }
+
+    @Benchmark
+    public void mapFilterSum(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(mapFilterSum).await(count);
+    }
+
+    @Benchmark
+    public void mapFilterSumStream(Blackhole bh) {
+        bh.consume(IntStream.rangeClosed(1, count).boxed().map(v -> v + 1).filter(v -> (v & 1) == 0).mapToInt(v -> v).sum());
+    }
+
+    @Benchmark
+    public void mapFilterSumInt(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(mapFilterSumInt.boxed()).await(count);
+    }
+
+    @Benchmark
+    public void mapFilterSumIntStream(Blackhole bh) {
+        bh.consume(IntStream.rangeClosed(1, count).map(v -> v + 1).filter(v -> (v & 1) == 0).sum());
+    }
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(flatMap).await(count);
+    }
+
+    @Benchmark
+    public void flatMapStream(Blackhole bh) {
+        IntStream.rangeClosed(1, count).boxed().flatMap(v -> Stream.of(v, v + 1)).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public void toList(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(toList).await(count);
+    }
+
+    @Benchmark
+    public void toListStream(Blackhole bh) {
+        bh.consume(IntStream.rangeClosed(1, count).boxed().collect(Collectors.toList()));
+    }
+}
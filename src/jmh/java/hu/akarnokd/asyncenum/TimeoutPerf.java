@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the per-item cost of arming and disarming a timeout with a
+ * ScheduledThreadPoolExecutor versus the HashedWheelTimer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class TimeoutPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    ScheduledExecutorService executor;
+
+    HashedWheelTimer timer;
+
+    AsyncEnumerable<Integer> timeoutExecutor;
+
+    AsyncEnumerable<Integer> timeoutWheel;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        timer = new HashedWheelTimer();
+
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, count);
+
+        timeoutExecutor = source.timeout(1, TimeUnit.MINUTES, executor);
+        timeoutWheel = source.timeout(1, TimeUnit.MINUTES, timer);
+    }
+
+    @TearDown
+    public void teardown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Benchmark
+    public void timeoutExecutor(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(timeoutExecutor).await(count);
+    }
+
+    @Benchmark
+    public void timeoutWheel(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(timeoutWheel).await(count);
+    }
+}
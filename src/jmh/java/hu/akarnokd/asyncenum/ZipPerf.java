@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures zipping two and four sources, with and without prefetching.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class ZipPerf {
+
+    @Param({"1", "1000", "1000000"})
+    int count;
+
+    @Param({"sync", "async"})
+    String mode;
+
+    ExecutorService executor;
+
+    AsyncEnumerable<Integer> zipWith;
+
+    AsyncEnumerable<Object> zip4;
+
+    AsyncEnumerable<Object> zip4Prefetch;
+
+    AsyncEnumerable<Object> zip4ReuseRow;
+
+    @Setup
+    public void setup() {
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, count);
+        if ("async".equals(mode)) {
+            executor = Executors.newSingleThreadExecutor();
+            source = source.subscribeOn(executor);
+        }
+
+        zipWith = source.zipWith(source, (a, b) -> a + b);
+        zip4 = AsyncEnumerable.zipArray(a -> a[0], source, source, source, source);
+        zip4Prefetch = AsyncEnumerable.zipArray(a -> a[0], 128, source, source, source, source);
+        zip4ReuseRow = AsyncEnumerable.zipArray(a -> a[0], 128, true, source, source, source, source);
+    }
+
+    @TearDown
+    public void teardown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void zipWith(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(zipWith).await(count);
+    }
+
+    @Benchmark
+    public void zip4(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(zip4).await(count);
+    }
+
+    @Benchmark
+    public void zip4Prefetch(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(zip4Prefetch).await(count);
+    }
+
+    @Benchmark
+    public void zip4ReuseRow(Blackhole bh) {
+        new PerfAsyncConsumer(bh).consume(zip4ReuseRow).await(count);
+    }
+}
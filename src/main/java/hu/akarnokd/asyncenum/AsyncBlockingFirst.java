@@ -17,7 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.*;
 
 final class AsyncBlockingFirst {
 
@@ -27,8 +27,8 @@ final class AsyncBlockingFirst {
 
     public static <T> T blockingFirst(AsyncEnumerator<T> source) {
         try {
-            Boolean result = source.moveNext().toCompletableFuture().get();
-            if (result) {
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == AsyncEnumerable.TRUE || (stage != AsyncEnumerable.FALSE && stage.toCompletableFuture().get())) {
                 T r = source.current();
                 source.cancel();
                 return r;
@@ -44,8 +44,8 @@ final class AsyncBlockingFirst {
 
     public static <T> Optional<T> blockingFirstOptional(AsyncEnumerator<T> source) {
         try {
-            Boolean result = source.moveNext().toCompletableFuture().get();
-            if (result) {
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == AsyncEnumerable.TRUE || (stage != AsyncEnumerable.FALSE && stage.toCompletableFuture().get())) {
                 T r = source.current();
                 source.cancel();
                 return Optional.ofNullable(r);
@@ -17,7 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.*;
 
 final class AsyncBlockingIterable<T> implements Iterable<T> {
 
@@ -50,11 +50,9 @@ final class AsyncBlockingIterable<T> implements Iterable<T> {
         public boolean hasNext() {
             if (!hasValue && !done) {
                 try {
-                    Boolean b = source
-                            .moveNext()
-                            .toCompletableFuture()
-                            .get();
-                    if (b) {
+                    CompletionStage<Boolean> stage = source.moveNext();
+                    if (stage == AsyncEnumerable.TRUE
+                            || (stage != AsyncEnumerable.FALSE && stage.toCompletableFuture().get())) {
                         hasValue = true;
                         value = source.current();
                     } else {
@@ -41,7 +41,7 @@ final class AsyncBlockingLast<T> extends CountDownLatch implements BiConsumer<Bo
     void moveNext() {
         if (wip.getAndIncrement() == 0) {
             do {
-                source.moveNext().whenComplete(this);
+                AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
             } while (wip.decrementAndGet() != 0);
         }
     }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Base class for enumerators running a blocking producer on a dedicated thread
+ * which hands its items over through a bounded buffer.
+ * <p>
+ *     The producer thread is created on the first {@code moveNext} call and blocks
+ *     while the buffer is full. The consumer replenishes the buffer in batches of
+ *     75% of its capacity. Cancellation interrupts the producer thread.
+ * </p>
+ * @param <T> the value type
+ */
+abstract class AsyncBlockingProducer<T> extends AtomicInteger implements AsyncEnumerator<T>, Runnable {
+
+    final ThreadFactory threadFactory;
+
+    final SpscArrayQueue<T> queue;
+
+    final AtomicLong requested;
+
+    final int limit;
+
+    final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+    volatile ReusableCompletionStage completable;
+
+    Consumer<? super T> batchSink;
+
+    int batchMax;
+
+    T current;
+
+    boolean started;
+
+    int consumed;
+
+    long produced;
+
+    volatile Thread thread;
+
+    volatile boolean cancelled;
+
+    volatile boolean done;
+
+    Throwable error;
+
+    AsyncBlockingProducer(ThreadFactory threadFactory, int bufferSize) {
+        this.threadFactory = threadFactory;
+        this.queue = new SpscArrayQueue<>(bufferSize);
+        this.requested = new AtomicLong(bufferSize);
+        this.limit = bufferSize - (bufferSize >> 2);
+    }
+
+    /**
+     * Runs the blocking producer on the dedicated thread, calling {@link #emit(Object)}
+     * for each item.
+     * @throws Exception the failure to signal to the consumer
+     */
+    abstract void produce() throws Exception;
+
+    @Override
+    public final void run() {
+        if (!cancelled) {
+            try {
+                produce();
+            } catch (Throwable ex) {
+                if (cancelled) {
+                    return;
+                }
+                error = ex;
+            }
+            done = true;
+            drain();
+        }
+    }
+
+    /**
+     * Hands an item to the consumer, blocking the producer thread while
+     * the buffer is full.
+     * @param item the item to emit, not null
+     * @return false if the consumer has cancelled and the producer should stop
+     * @throws InterruptedException if the producer thread was interrupted while waiting
+     */
+    final boolean emit(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "The blocking source produced a null item");
+        long p = produced;
+        while (p == requested.get()) {
+            if (cancelled) {
+                return false;
+            }
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        if (cancelled) {
+            return false;
+        }
+        queue.offer(item);
+        produced = p + 1;
+        drain();
+        return true;
+    }
+
+    @Override
+    public final CompletionStage<Boolean> moveNext() {
+        current = null;
+        ReusableCompletionStage cf = completion.reset();
+        completable = cf;
+        start();
+        drain();
+        return cf;
+    }
+
+    @Override
+    public final CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super T> sink) {
+        current = null;
+        ReusableCompletionStage cf = completion.reset();
+        batchMax = max;
+        batchSink = sink;
+        completable = cf;
+        start();
+        drain();
+        return cf;
+    }
+
+    @Override
+    public final T current() {
+        return current;
+    }
+
+    @Override
+    public final void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            Thread t = thread;
+            if (t != null && !done) {
+                t.interrupt();
+            }
+        }
+    }
+
+    final void start() {
+        if (!started) {
+            started = true;
+            Thread t = threadFactory.newThread(this);
+            thread = t;
+            t.start();
+        }
+    }
+
+    final void replenish() {
+        int c = consumed + 1;
+        if (c == limit) {
+            consumed = 0;
+            requested.getAndAdd(c);
+            LockSupport.unpark(thread);
+        } else {
+            consumed = c;
+        }
+    }
+
+    final void drain() {
+        if (getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            ReusableCompletionStage cf = completable;
+            if (cf != null) {
+                boolean d = done;
+                T v = queue.poll();
+                if (v != null) {
+                    completable = null;
+                    Consumer<? super T> sink = batchSink;
+                    if (sink != null) {
+                        batchSink = null;
+                        int max = batchMax;
+                        int n = 0;
+                        try {
+                            do {
+                                sink.accept(v);
+                                replenish();
+                            } while (++n != max && (v = queue.poll()) != null);
+                        } catch (Throwable ex) {
+                            cancel();
+                            cf.completeExceptionally(ex);
+                            continue;
+                        }
+                    } else {
+                        current = v;
+                        replenish();
+                    }
+                    cf.complete(true);
+                } else if (d) {
+                    completable = null;
+                    batchSink = null;
+                    Throwable ex = error;
+                    if (ex != null) {
+                        cf.completeExceptionally(ex);
+                    } else {
+                        cf.complete(false);
+                    }
+                }
+            }
+        } while (decrementAndGet() != 0);
+    }
+}
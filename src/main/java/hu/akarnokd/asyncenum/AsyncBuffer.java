@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncBuffer<T> implements AsyncEnumerable<List<T>> {
+
+    final AsyncEnumerable<T> source;
+
+    final int count;
+
+    final int skip;
+
+    AsyncBuffer(AsyncEnumerable<T> source, int count, int skip) {
+        this.source = source;
+        this.count = count;
+        this.skip = skip;
+    }
+
+    @Override
+    public AsyncEnumerator<List<T>> enumerator() {
+        return new BufferEnumerator<>(source.enumerator(), count, skip);
+    }
+
+    /**
+     * Fills the open buffers via {@code moveNextBatch}, asking for just enough items
+     * to complete the oldest open buffer.
+     * @param <T> the element type
+     */
+    static final class BufferEnumerator<T> extends AtomicInteger
+            implements AsyncEnumerator<List<T>>, BiConsumer<Boolean, Throwable>, Consumer<T> {
+
+        final AsyncEnumerator<T> source;
+
+        final int count;
+
+        final int skip;
+
+        /** The buffers still receiving items, oldest first. */
+        final ArrayDeque<List<T>> open;
+
+        /** The completed buffers not yet handed out. */
+        final ArrayDeque<List<T>> ready;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        ReusableCompletionStage completable;
+
+        List<T> result;
+
+        long index;
+
+        boolean done;
+
+        BufferEnumerator(AsyncEnumerator<T> source, int count, int skip) {
+            this.source = source;
+            this.count = count;
+            this.skip = skip;
+            this.open = new ArrayDeque<>();
+            this.ready = new ArrayDeque<>();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            List<T> b = ready.poll();
+            if (b != null) {
+                result = b;
+                return TRUE;
+            }
+            if (done) {
+                return FALSE;
+            }
+            for (;;) {
+                CompletionStage<Boolean> stage = source.moveNextBatch(missing(), this);
+                if (stage == TRUE) {
+                    b = ready.poll();
+                    if (b != null) {
+                        result = b;
+                        return TRUE;
+                    }
+                } else if (stage == FALSE) {
+                    flush();
+                    b = ready.poll();
+                    if (b != null) {
+                        result = b;
+                        return TRUE;
+                    }
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+        }
+
+        @Override
+        public List<T> current() {
+            return result;
+        }
+
+        /**
+         * Returns the number of items needed to complete the oldest open buffer,
+         * including the items to skip before it opens.
+         */
+        int missing() {
+            List<T> b = open.peek();
+            if (b != null) {
+                return count - b.size();
+            }
+            return (int)Math.min(Integer.MAX_VALUE, (skip - index % skip) % skip + count);
+        }
+
+        @Override
+        public void accept(T t) {
+            if (index++ % skip == 0) {
+                open.offer(new ArrayList<>(count));
+            }
+            for (List<T> b : open) {
+                b.add(t);
+            }
+            List<T> b = open.peek();
+            if (b != null && b.size() == count) {
+                ready.offer(open.poll());
+            }
+        }
+
+        void flush() {
+            done = true;
+            List<T> b;
+            while ((b = open.poll()) != null) {
+                ready.offer(b);
+            }
+        }
+
+        void moveNextSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    AsyncEnumeratorHelper.whenComplete(source.moveNextBatch(missing(), this), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            ReusableCompletionStage cf = completable;
+            if (throwable != null) {
+                done = true;
+                open.clear();
+                completable = null;
+                cf.completeExceptionally(throwable);
+                return;
+            }
+
+            if (!aBoolean) {
+                flush();
+            }
+            List<T> b = ready.poll();
+            if (b != null) {
+                result = b;
+                completable = null;
+                cf.complete(true);
+            } else if (done) {
+                completable = null;
+                cf.complete(false);
+            } else {
+                moveNextSource();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
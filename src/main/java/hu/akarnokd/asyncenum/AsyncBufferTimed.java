@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+final class AsyncBufferTimed<T> implements AsyncEnumerable<List<T>> {
+
+    final AsyncEnumerable<T> source;
+
+    final int count;
+
+    final long time;
+
+    final TimeUnit unit;
+
+    final TimedScheduler scheduler;
+
+    AsyncBufferTimed(AsyncEnumerable<T> source, int count, long time, TimeUnit unit, ScheduledExecutorService executor) {
+        this.source = source;
+        this.count = count;
+        this.time = time;
+        this.unit = unit;
+        this.scheduler = TimedScheduler.from(executor);
+    }
+
+    @Override
+    public AsyncEnumerator<List<T>> enumerator() {
+        BufferTimedEnumerator<T> enumerator = new BufferTimedEnumerator<>(source.enumerator(), count);
+        enumerator.task = scheduler.handle(t -> enumerator.run());
+        enumerator.task.schedulePeriodically(time, time, unit);
+        return enumerator;
+    }
+
+    /**
+     * Keeps pulling the source into the current buffer while no completed buffer waits
+     * for the consumer; the buffer is completed when it has {@code count} items or
+     * when the periodic timer fires, whichever happens first.
+     * @param <T> the element type
+     */
+    static final class BufferTimedEnumerator<T> extends AtomicInteger
+            implements AsyncEnumerator<List<T>>, BiConsumer<Boolean, Throwable>, Runnable {
+
+        final AsyncEnumerator<T> source;
+
+        final int count;
+
+        final ArrayDeque<List<T>> ready;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        TimedHandle task;
+
+        List<T> buffer;
+
+        List<T> result;
+
+        T item;
+
+        boolean hasItem;
+
+        volatile boolean tick;
+
+        boolean started;
+
+        volatile boolean sourceOutstanding;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        boolean terminated;
+
+        volatile boolean cancelled;
+
+        BufferTimedEnumerator(AsyncEnumerator<T> source, int count) {
+            this.source = source;
+            this.count = count;
+            this.ready = new ArrayDeque<>();
+            this.buffer = new ArrayList<>();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            started = true;
+            drain();
+            return cf;
+        }
+
+        @Override
+        public List<T> current() {
+            return result;
+        }
+
+        @Override
+        public void run() {
+            tick = true;
+            drain();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                error = throwable;
+                done = true;
+            } else if (aBoolean) {
+                item = source.current();
+                hasItem = true;
+            } else {
+                done = true;
+            }
+            sourceOutstanding = false;
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    buffer = null;
+                    ready.clear();
+                    return;
+                }
+
+                if (!terminated) {
+                    if (hasItem) {
+                        T v = item;
+                        item = null;
+                        hasItem = false;
+                        buffer.add(v);
+                        if (buffer.size() == count) {
+                            ready.offer(buffer);
+                            buffer = new ArrayList<>();
+                        }
+                    }
+
+                    if (tick) {
+                        tick = false;
+                        if (!buffer.isEmpty()) {
+                            ready.offer(buffer);
+                            buffer = new ArrayList<>();
+                        }
+                    }
+
+                    if (done) {
+                        terminated = true;
+                        task.dispose();
+                        if (error != null) {
+                            ready.clear();
+                        } else if (!buffer.isEmpty()) {
+                            ready.offer(buffer);
+                        }
+                        buffer = null;
+                    }
+                }
+
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    List<T> b = ready.poll();
+                    if (b != null) {
+                        result = b;
+                        completable = null;
+                        cf.complete(true);
+                    } else if (terminated) {
+                        completable = null;
+                        Throwable ex = error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+
+                if (started && !terminated && !sourceOutstanding && ready.isEmpty()) {
+                    sourceOutstanding = true;
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                }
+            } while (decrementAndGet() != 0);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            task.dispose();
+            source.cancel();
+            drain();
+        }
+    }
+}
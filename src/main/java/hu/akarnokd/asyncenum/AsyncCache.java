@@ -16,13 +16,12 @@
 
 package hu.akarnokd.asyncenum;
 
-import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.BiConsumer;
 
 final class AsyncCache<T> extends AtomicInteger
-        implements AsyncEnumerable<T>, BiConsumer<Boolean, Throwable> {
+        implements AsyncEnumerable<T>, BiConsumer<Boolean, Throwable>, Runnable {
 
     final AsyncEnumerable<T> source;
 
@@ -36,53 +35,144 @@ final class AsyncCache<T> extends AtomicInteger
     @SuppressWarnings("unchecked")
     static final CacheEnumerator[] TERMINATED = new CacheEnumerator[0];
 
-    final List<T> list;
+    /** The number of items per segment. */
+    static final int SEGMENT_SIZE = 128;
+
+    /** The maximum number of items retained for late enumerators, Long.MAX_VALUE if unbounded. */
+    final long maxItems;
+
+    /** The maximum age of the retained items in nanoseconds, Long.MAX_VALUE if unbounded. */
+    final long maxAge;
+
+    final ScheduledExecutorService executor;
+
+    /** Stores the items instead of the segments if not null. */
+    final CacheStorage<T> storage;
+
+    /** Serializes the trimming of the head. */
+    final AtomicInteger trimWip;
+
+    /** The segment being appended to, accessed by the source thread only. */
+    Segment tail;
 
     AsyncEnumerator<T> sourceEnumerator;
 
-    volatile int size;
+    volatile long size;
+
+    /** The index of the oldest retained item; late enumerators start from here. */
+    volatile long headIndex;
+
+    /** The segment containing the oldest retained item or lagging behind it. */
+    volatile Segment headSegment;
+
+    volatile boolean trimScheduled;
 
     volatile boolean done;
     Throwable error;
 
-    @SuppressWarnings("unchecked")
     AsyncCache(AsyncEnumerable<T> source) {
+        this(source, Long.MAX_VALUE, Long.MAX_VALUE, null, null);
+    }
+
+    AsyncCache(AsyncEnumerable<T> source, CacheStorage<T> storage) {
+        this(source, Long.MAX_VALUE, Long.MAX_VALUE, null, storage);
+    }
+
+    AsyncCache(AsyncEnumerable<T> source, long maxItems, long maxAge, ScheduledExecutorService executor) {
+        this(source, maxItems, maxAge, executor, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    AsyncCache(AsyncEnumerable<T> source, long maxItems, long maxAge, ScheduledExecutorService executor,
+               CacheStorage<T> storage) {
         this.source = source;
+        this.maxItems = maxItems;
+        this.maxAge = maxAge;
+        this.executor = executor;
+        this.storage = storage;
         this.once = new AtomicBoolean();
         this.enumerators = new AtomicReference<>(EMPTY);
-        this.list = new ArrayList<>();
+        this.trimWip = new AtomicInteger();
+        Segment segment = new Segment(0L, maxAge != Long.MAX_VALUE);
+        this.tail = segment;
+        this.headSegment = segment;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void accept(Boolean aBoolean, Throwable throwable) {
         if (throwable != null) {
-            error = throwable;
-            done = true;
-            for (CacheEnumerator<T> en : enumerators.getAndSet(TERMINATED)) {
-                signal(en);
-            }
+            terminate(throwable);
             return;
         }
 
         if (aBoolean) {
-            list.add(sourceEnumerator.current());
-            size = size + 1;
+            T v = sourceEnumerator.current();
+            long s = size;
+            if (storage != null) {
+                try {
+                    storage.append(v);
+                } catch (Throwable ex) {
+                    sourceEnumerator.cancel();
+                    terminate(ex);
+                    return;
+                }
+            } else {
+                append(v, s);
+            }
+            size = s + 1;
+            if (isBounded()) {
+                trim();
+            }
             for (CacheEnumerator<T> en : enumerators.getAcquire()) {
                 signal(en);
             }
             nextSource();
         } else {
-            done = true;
-            for (CacheEnumerator<T> en : enumerators.getAndSet(TERMINATED)) {
-                signal(en);
-            }
+            terminate(null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void terminate(Throwable throwable) {
+        error = throwable;
+        done = true;
+        for (CacheEnumerator<T> en : enumerators.getAndSet(TERMINATED)) {
+            signal(en);
+        }
+    }
+
+    void append(T v, long s) {
+        Segment t = tail;
+        int o = (int)(s - t.start);
+        if (o == SEGMENT_SIZE) {
+            Segment n = new Segment(s, t.times != null);
+            t.next = n;
+            tail = n;
+            t = n;
+            o = 0;
+        }
+        t.items[o] = v;
+        if (t.times != null) {
+            t.times[o] = System.nanoTime();
         }
     }
 
     @Override
     public AsyncEnumerator<T> enumerator() {
-        CacheEnumerator<T> en = new CacheEnumerator<>(this);
+        if (isBounded()) {
+            trim();
+        }
+        long index = headIndex;
+        Segment segment = headSegment;
+        if (index < segment.start) {
+            index = segment.start;
+        }
+        while (index - segment.start >= SEGMENT_SIZE && segment.next != null) {
+            segment = segment.next;
+        }
+        CacheEnumerator<T> en = new CacheEnumerator<>(this, segment, index,
+                storage != null ? storage.reader() : null);
         if (add(en)) {
             if (!once.get() && once.compareAndSet(false, true)) {
                 sourceEnumerator = source.enumerator();
@@ -93,10 +183,58 @@ final class AsyncCache<T> extends AtomicInteger
         return en;
     }
 
+    boolean isBounded() {
+        return maxItems != Long.MAX_VALUE || maxAge != Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves the head past the items exceeding {@code maxItems} or {@code maxAge}
+     * and schedules the next trim for when the oldest retained item expires.
+     * Segments behind the head become garbage once the enumerators reading them moved on.
+     */
+    void trim() {
+        if (trimWip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            long s = size;
+            long h = headIndex;
+            Segment segment = headSegment;
+            if (s - h > maxItems) {
+                h = s - maxItems;
+            }
+            boolean timed = maxAge != Long.MAX_VALUE;
+            long now = timed ? System.nanoTime() : 0L;
+            for (;;) {
+                while (h - segment.start >= SEGMENT_SIZE && segment.next != null) {
+                    segment = segment.next;
+                }
+                if (h == s || !timed || now - segment.times[(int)(h - segment.start)] < maxAge) {
+                    break;
+                }
+                h++;
+            }
+            headIndex = h;
+            headSegment = segment;
+
+            if (timed && h != s && !trimScheduled) {
+                trimScheduled = true;
+                long delay = segment.times[(int)(h - segment.start)] + maxAge - now;
+                executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+            }
+        } while (trimWip.decrementAndGet() != 0);
+    }
+
+    @Override
+    public void run() {
+        trimScheduled = false;
+        trim();
+    }
+
     void nextSource() {
         if (getAndIncrement() == 0) {
             do {
-                sourceEnumerator.moveNext().whenComplete(this);
+                AsyncEnumeratorHelper.whenComplete(sourceEnumerator.moveNext(), this);
             } while (decrementAndGet() != 0);
         }
     }
@@ -151,15 +289,16 @@ final class AsyncCache<T> extends AtomicInteger
         }
     }
 
+    @SuppressWarnings("unchecked")
     void signal(CacheEnumerator<T> target) {
         if (target.getAndIncrement() == 0) {
             do {
-                CompletableFuture<Boolean> cf = target.completable;
+                ReusableCompletionStage cf = target.completable;
                 if (cf != null) {
-                    int index = target.index;
+                    long index = target.index;
 
                     boolean d = done;
-                    int s = size;
+                    long s = size;
                     boolean empty = s == index;
 
                     if (d && empty) {
@@ -173,7 +312,31 @@ final class AsyncCache<T> extends AtomicInteger
                     }
 
                     if (!empty) {
-                        target.result = list.get(index);
+                        CacheStorage.Reader<T> reader = target.reader;
+                        if (reader != null) {
+                            T v;
+                            try {
+                                v = reader.read();
+                            } catch (Throwable ex) {
+                                target.completable = null;
+                                remove(target);
+                                cf.completeExceptionally(ex);
+                                continue;
+                            }
+                            target.result = v;
+                            target.index = index + 1;
+                            target.completable = null;
+                            cf.complete(true);
+                            continue;
+                        }
+                        Segment segment = target.segment;
+                        int o = (int)(index - segment.start);
+                        if (o == SEGMENT_SIZE) {
+                            segment = segment.next;
+                            target.segment = segment;
+                            o = 0;
+                        }
+                        target.result = (T)segment.items[o];
                         target.index = index + 1;
                         target.completable = null;
                         cf.complete(true);
@@ -183,24 +346,55 @@ final class AsyncCache<T> extends AtomicInteger
         }
     }
 
+    /**
+     * A fixed-size, append-only chunk of the cached items.
+     */
+    static final class Segment {
+
+        /** The index of the first item of this segment. */
+        final long start;
+
+        final Object[] items;
+
+        /** The System.nanoTime() of the arrival of each item, null if not time-bound. */
+        final long[] times;
+
+        Segment next;
+
+        Segment(long start, boolean timed) {
+            this.start = start;
+            this.items = new Object[SEGMENT_SIZE];
+            this.times = timed ? new long[SEGMENT_SIZE] : null;
+        }
+    }
+
     static final class CacheEnumerator<T> extends AtomicInteger implements AsyncEnumerator<T> {
 
         final AsyncCache<T> parent;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        long index;
+
+        Segment segment;
 
-        int index;
+        final CacheStorage.Reader<T> reader;
 
         T result;
 
-        CacheEnumerator(AsyncCache<T> parent) {
+        CacheEnumerator(AsyncCache<T> parent, Segment segment, long index, CacheStorage.Reader<T> reader) {
             this.parent = parent;
+            this.segment = segment;
+            this.index = index;
+            this.reader = reader;
         }
 
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             parent.signal(this);
             return cf;
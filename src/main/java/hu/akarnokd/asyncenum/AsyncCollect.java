@@ -40,7 +40,7 @@ final class AsyncCollect<T, C> implements AsyncEnumerable<C> {
     }
 
     static final class CollectEnumerator<T, C> extends AtomicInteger
-    implements AsyncEnumerator<C>, BiConsumer<Boolean, Throwable> {
+    implements AsyncEnumerator<C>, BiConsumer<Boolean, Throwable>, Consumer<T> {
 
         final AsyncEnumerator<T> source;
 
@@ -82,7 +82,16 @@ final class AsyncCollect<T, C> implements AsyncEnumerable<C> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    CompletionStage<Boolean> next;
+                    try {
+                        next = source.moveNextBatch(AsyncMoveNextBatch.BATCH_SIZE, this);
+                    } catch (Throwable ex) {
+                        source.cancel();
+                        collection = null;
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+                    AsyncEnumeratorHelper.whenComplete(next, this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -96,7 +105,6 @@ final class AsyncCollect<T, C> implements AsyncEnumerable<C> {
             }
 
             if (aBoolean) {
-                collector.accept(collection, source.current());
                 collectSource();
             } else {
                 result = collection;
@@ -105,6 +113,11 @@ final class AsyncCollect<T, C> implements AsyncEnumerable<C> {
             }
         }
 
+        @Override
+        public void accept(T t) {
+            collector.accept(collection, t);
+        }
+
         @Override
         public void cancel() {
             cancelled = true;
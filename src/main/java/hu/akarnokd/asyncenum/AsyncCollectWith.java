@@ -87,7 +87,7 @@ final class AsyncCollectWith<T, A, R> implements AsyncEnumerable<R> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
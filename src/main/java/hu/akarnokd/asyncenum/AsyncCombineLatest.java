@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncCombineLatest<T, R> implements AsyncEnumerable<R> {
+
+    final AsyncEnumerable<? extends T>[] sources;
+
+    final Function<? super Object[], ? extends R> combiner;
+
+    AsyncCombineLatest(AsyncEnumerable<? extends T>[] sources, Function<? super Object[], ? extends R> combiner) {
+        this.sources = sources;
+        this.combiner = combiner;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new CombineLatestEnumerator<>(sources, combiner);
+    }
+
+    /**
+     * Keeps pulling every source and overwrites its slot in the {@code latest} row;
+     * a {@code moveNext} call combines the row as it is at that moment, so a slow
+     * consumer skips the intermediate combinations.
+     * @param <T> the common source value type
+     * @param <R> the result type
+     */
+    static final class CombineLatestEnumerator<T, R> extends AtomicInteger implements AsyncEnumerator<R> {
+
+        final CombineLatestInner<T>[] inners;
+
+        final Function<? super Object[], ? extends R> combiner;
+
+        /** The latest value of each source, guarded by itself along with the fields below. */
+        final Object[] latest;
+
+        final boolean[] hasValue;
+
+        int available;
+
+        int done;
+
+        /** Set when a source completed without producing any value. */
+        boolean empty;
+
+        /** Set when the latest row changed since it was last combined. */
+        boolean dirty;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        R result;
+
+        boolean started;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        CombineLatestEnumerator(AsyncEnumerable<? extends T>[] sources, Function<? super Object[], ? extends R> combiner) {
+            int n = sources.length;
+            this.inners = new CombineLatestInner[n];
+            this.combiner = combiner;
+            this.latest = new Object[n];
+            this.hasValue = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                inners[i] = new CombineLatestInner<>(sources[i].enumerator(), this, i);
+            }
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                for (CombineLatestInner<T> inner : inners) {
+                    inner.moveNext();
+                }
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public R current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelAll();
+        }
+
+        void cancelAll() {
+            for (CombineLatestInner<T> inner : inners) {
+                inner.source.cancel();
+            }
+        }
+
+        void innerNext(int index, T value) {
+            synchronized (latest) {
+                latest[index] = value;
+                if (!hasValue[index]) {
+                    hasValue[index] = true;
+                    available++;
+                }
+                dirty = true;
+            }
+            drain();
+        }
+
+        void innerError(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            drain();
+        }
+
+        void innerComplete(int index) {
+            synchronized (latest) {
+                done++;
+                if (!hasValue[index]) {
+                    empty = true;
+                }
+            }
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error;
+                    if (ex != null) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+
+                    Object[] row = null;
+                    boolean finished;
+                    Object[] a = latest;
+                    synchronized (a) {
+                        if (dirty && available == a.length) {
+                            dirty = false;
+                            row = a.clone();
+                        }
+                        finished = empty || done == a.length;
+                    }
+
+                    if (row != null) {
+                        R r;
+                        try {
+                            r = combiner.apply(row);
+                        } catch (Throwable exc) {
+                            completable = null;
+                            cancelled = true;
+                            cancelAll();
+                            cf.completeExceptionally(exc);
+                            return;
+                        }
+                        result = r;
+                        completable = null;
+                        cf.complete(true);
+                    } else if (finished) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.complete(false);
+                        return;
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class CombineLatestInner<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+        final AsyncEnumerator<? extends T> source;
+
+        final CombineLatestEnumerator<T, ?> parent;
+
+        final int index;
+
+        CombineLatestInner(AsyncEnumerator<? extends T> source, CombineLatestEnumerator<T, ?> parent, int index) {
+            this.source = source;
+            this.parent = parent;
+            this.index = index;
+        }
+
+        void moveNext() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (parent.cancelled) {
+                        return;
+                    }
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                parent.innerError(throwable);
+            } else if (aBoolean) {
+                parent.innerNext(index, source.current());
+                moveNext();
+            } else {
+                parent.innerComplete(index);
+            }
+        }
+    }
+}
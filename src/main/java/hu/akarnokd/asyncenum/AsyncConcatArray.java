@@ -40,7 +40,9 @@ final class AsyncConcatArray<T> implements AsyncEnumerable<T> {
 
         final AtomicReference<AsyncEnumerator<T>> currentEnumerator;
 
-        CompletableFuture<Boolean> currentStage;
+        ReusableCompletionStage currentStage;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         int index;
 
@@ -60,8 +62,8 @@ final class AsyncConcatArray<T> implements AsyncEnumerable<T> {
                 }
             }
 
-            currentStage = new CompletableFuture<>();
-            currentEnumerator.getPlain().moveNext().whenComplete(this);
+            currentStage = completion.reset();
+            AsyncEnumeratorHelper.whenComplete(currentEnumerator.getPlain().moveNext(), this);
             return currentStage;
         }
 
@@ -87,7 +89,7 @@ final class AsyncConcatArray<T> implements AsyncEnumerable<T> {
                         }
                         AsyncEnumerator<T> en = sources[index++].enumerator();
                         if (AsyncEnumeratorHelper.replace(currentEnumerator, en)) {
-                            en.moveNext().whenComplete(this);
+                            AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
                         } else {
                             break;
                         }
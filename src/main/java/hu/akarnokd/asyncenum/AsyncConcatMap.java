@@ -49,7 +49,9 @@ final class AsyncConcatMap<T, R> implements AsyncEnumerable<R> {
 
         final AtomicReference<AsyncEnumerator<R>> currentSource;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         R current;
 
@@ -63,7 +65,7 @@ final class AsyncConcatMap<T, R> implements AsyncEnumerable<R> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             if (currentSource.getPlain() == null) {
                 nextMain();
@@ -111,7 +113,7 @@ final class AsyncConcatMap<T, R> implements AsyncEnumerable<R> {
         void nextMain() {
             if (wipMain.getAndIncrement() == 0) {
                 do {
-                    source.moveNext().whenComplete(this::acceptMain);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this::acceptMain);
                 } while (wipMain.decrementAndGet() != 0);
             }
         }
@@ -119,7 +121,7 @@ final class AsyncConcatMap<T, R> implements AsyncEnumerable<R> {
         void nextInner() {
             if (wipInner.getAndIncrement() == 0) {
                 do {
-                    currentSource.getPlain().moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(currentSource.getPlain().moveNext(), this);
                 } while (wipInner.decrementAndGet() != 0);
             }
         }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+final class AsyncConcatMapEager<T, R> implements AsyncEnumerable<R> {
+
+    final AsyncEnumerable<T> upstream;
+
+    final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
+
+    final int maxConcurrency;
+
+    final int prefetch;
+
+    AsyncConcatMapEager(AsyncEnumerable<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+                        int maxConcurrency, int prefetch) {
+        this.upstream = upstream;
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new ConcatMapEagerEnumerator<>(upstream.enumerator(), mapper, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Runs up to {@code maxConcurrency} inners at once, each prefetching into its own queue,
+     * and emits from the oldest inner only, moving to the next one when it is exhausted.
+     * @param <T> the upstream value type
+     * @param <R> the result type
+     */
+    static final class ConcatMapEagerEnumerator<T, R> extends AtomicInteger
+            implements AsyncEnumerator<R>, BiConsumer<Boolean, Throwable> {
+
+        /** Stands in for {@code null} items in the inner queues. */
+        static final Object NULL_ITEM = new Object();
+
+        final AsyncEnumerator<T> upstream;
+
+        final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
+
+        final int maxConcurrency;
+
+        final int prefetch;
+
+        /** The active inners in upstream order; the head is the one being emitted. */
+        final ConcurrentLinkedQueue<EagerInner<R>> inners;
+
+        final AtomicInteger active;
+
+        final AtomicInteger upstreamWip;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        R result;
+
+        boolean started;
+
+        /** Cleared only after the upstream item was read and its inner queued, so the upstream isn't pulled before that. */
+        volatile boolean upstreamOutstanding;
+
+        volatile boolean upstreamDone;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        ConcatMapEagerEnumerator(AsyncEnumerator<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+                                 int maxConcurrency, int prefetch) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = prefetch;
+            this.inners = new ConcurrentLinkedQueue<>();
+            this.active = new AtomicInteger();
+            this.upstreamWip = new AtomicInteger();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                moveNextUpstream();
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public R current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            cancelAllInner();
+        }
+
+        void cancelAllInner() {
+            EagerInner<R> inner;
+            while ((inner = inners.poll()) != null) {
+                inner.cancel();
+            }
+        }
+
+        void moveNextUpstream() {
+            if (upstreamWip.getAndIncrement() == 0) {
+                do {
+                    if (!upstreamOutstanding && !upstreamDone && !cancelled
+                            && active.get() < maxConcurrency) {
+                        upstreamOutstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(upstream.moveNext(), this);
+                    }
+                } while (upstreamWip.decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                upstreamDone = true;
+                upstreamOutstanding = false;
+                innerError(throwable);
+                return;
+            }
+            if (aBoolean) {
+                AsyncEnumerator<? extends R> en;
+                try {
+                    en = mapper.apply(upstream.current()).enumerator();
+                } catch (Throwable ex) {
+                    upstreamDone = true;
+                    upstreamOutstanding = false;
+                    upstream.cancel();
+                    innerError(ex);
+                    return;
+                }
+                EagerInner<R> inner = new EagerInner<>(en, this, prefetch);
+                active.getAndIncrement();
+                inners.offer(inner);
+                upstreamOutstanding = false;
+                if (cancelled) {
+                    cancelAllInner();
+                    return;
+                }
+                inner.moveNext();
+                moveNextUpstream();
+            } else {
+                upstreamDone = true;
+                upstreamOutstanding = false;
+                drain();
+            }
+        }
+
+        void innerError(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    cancelAllInner();
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error;
+                    if (ex != null) {
+                        completable = null;
+                        cancel();
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+
+                    boolean d = upstreamDone;
+                    EagerInner<R> inner = inners.peek();
+                    if (inner == null) {
+                        if (d) {
+                            completable = null;
+                            cancelled = true;
+                            cf.complete(false);
+                            return;
+                        }
+                    } else {
+                        boolean innerDone = inner.done;
+                        Object v = inner.queue.poll();
+                        if (v != null) {
+                            result = v == NULL_ITEM ? null : (R)v;
+                            completable = null;
+                            inner.consumed();
+                            cf.complete(true);
+                        } else if (innerDone) {
+                            inners.poll();
+                            active.decrementAndGet();
+                            moveNextUpstream();
+                            // look at the next inner in the same drain loop
+                            getAndIncrement();
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class EagerInner<R> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+        final AsyncEnumerator<? extends R> source;
+
+        final ConcatMapEagerEnumerator<?, R> parent;
+
+        final SpscArrayQueue<Object> queue;
+
+        final int limit;
+
+        /** The number of items the drain loop allowed to be put into the queue. */
+        final AtomicLong requested;
+
+        long produced;
+
+        int consumed;
+
+        /** Cleared only after the item was queued, so the source isn't pulled before that. */
+        volatile boolean outstanding;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        EagerInner(AsyncEnumerator<? extends R> source, ConcatMapEagerEnumerator<?, R> parent, int prefetch) {
+            this.source = source;
+            this.parent = parent;
+            this.queue = new SpscArrayQueue<>(prefetch);
+            this.limit = prefetch - (prefetch >> 2);
+            this.requested = new AtomicLong(prefetch);
+        }
+
+        /**
+         * Called by the drain loop after taking an item from the queue;
+         * replenishes the inner source in batches.
+         */
+        void consumed() {
+            int c = consumed + 1;
+            if (c == limit) {
+                consumed = 0;
+                requested.getAndAdd(c);
+                moveNext();
+            } else {
+                consumed = c;
+            }
+        }
+
+        void moveNext() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (!outstanding && !done && !cancelled && produced != requested.get()) {
+                        outstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                    }
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean hasMore, Throwable throwable) {
+            if (throwable != null) {
+                done = true;
+                outstanding = false;
+                parent.innerError(throwable);
+                return;
+            }
+            if (hasMore) {
+                R v = source.current();
+                produced++;
+                queue.offer(v == null ? ConcatMapEagerEnumerator.NULL_ITEM : v);
+                outstanding = false;
+                parent.drain();
+                moveNext();
+            } else {
+                done = true;
+                outstanding = false;
+                parent.drain();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            source.cancel();
+        }
+    }
+}
@@ -56,7 +56,9 @@ final class AsyncCreate<T> implements AsyncEnumerable<T> {
         volatile boolean done;
         Throwable error;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         AutoCloseable toRelease;
 
@@ -138,7 +140,7 @@ final class AsyncCreate<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             drain();
             return cf;
@@ -153,7 +155,7 @@ final class AsyncCreate<T> implements AsyncEnumerable<T> {
         void drain() {
             if (getAndIncrement() == 0) {
                 do {
-                    CompletableFuture<Boolean> cf = completable;
+                    ReusableCompletionStage cf = completable;
                     if (cf != null) {
                         boolean d = done;
                         boolean empty = queue.isEmpty();
@@ -50,7 +50,9 @@ final class AsyncDistinct<T, K, C extends Collection<? super K>> implements Asyn
 
         final Collection<? super K> set;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T result;
 
@@ -65,10 +67,25 @@ final class AsyncDistinct<T, K, C extends Collection<? super K>> implements Asyn
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
-            completable = cf;
-            nextSource();
-            return cf;
+            while (!cancelled) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    T v = source.current();
+                    if (set.add(keySelector.apply(v))) {
+                        result = v;
+                        return TRUE;
+                    }
+                } else if (stage == FALSE) {
+                    set.clear();
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+            return new CompletableFuture<>();
         }
 
         void nextSource() {
@@ -77,7 +94,7 @@ final class AsyncDistinct<T, K, C extends Collection<? super K>> implements Asyn
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -49,7 +49,9 @@ final class AsyncDistinctUntilChanged<T, K> implements AsyncEnumerable<T> {
 
         final BiPredicate<? super K, ? super K> comparer;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         volatile boolean cancelled;
 
@@ -67,10 +69,35 @@ final class AsyncDistinctUntilChanged<T, K> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
-            completable = cf;
-            nextSource();
-            return cf;
+            while (!cancelled) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    T v = source.current();
+                    K nextKey = keySelector.apply(v);
+                    if (once) {
+                        K prevKey = currentKey;
+                        currentKey = nextKey;
+                        if (!comparer.test(prevKey, nextKey)) {
+                            result = v;
+                            return TRUE;
+                        }
+                    } else {
+                        once = true;
+                        currentKey = nextKey;
+                        result = v;
+                        return TRUE;
+                    }
+                } else if (stage == FALSE) {
+                    currentKey = null;
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+            return new CompletableFuture<>();
         }
 
         void nextSource() {
@@ -79,7 +106,7 @@ final class AsyncDistinctUntilChanged<T, K> implements AsyncEnumerable<T> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
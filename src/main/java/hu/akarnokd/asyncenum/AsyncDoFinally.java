@@ -44,7 +44,9 @@ final class AsyncDoFinally<T> implements AsyncEnumerable<T> {
 
         final Runnable onFinally;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T result;
 
@@ -56,9 +58,9 @@ final class AsyncDoFinally<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
             return cf;
         }
 
@@ -51,7 +51,9 @@ final class AsyncDoOn<T> implements AsyncEnumerable<T> {
 
         final Runnable onComplete;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T result;
 
@@ -66,11 +68,22 @@ final class AsyncDoOn<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == TRUE) {
+                T r = source.current();
+                result = r;
+                onNext.accept(r);
+                return TRUE;
+            }
+            if (stage == FALSE) {
+                onComplete.run();
+                return FALSE;
+            }
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             // Note that returning this directly results in CompletionException(Throwable)
             // instead of the original failure for some reason.
-            source.moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(stage, this);
             return cf;
         }
 
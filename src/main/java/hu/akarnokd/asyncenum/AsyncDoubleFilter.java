@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncDoubleFilter implements DoubleAsyncEnumerable {
+
+    final DoubleAsyncEnumerable source;
+
+    final DoublePredicate predicate;
+
+    AsyncDoubleFilter(DoubleAsyncEnumerable source, DoublePredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public DoubleAsyncEnumerator enumerator() {
+        return new DoubleFilterEnumerator(source.enumerator(), predicate);
+    }
+
+    static final class DoubleFilterEnumerator extends AtomicInteger
+    implements DoubleAsyncEnumerator, BiConsumer<Boolean, Throwable> {
+
+        final DoubleAsyncEnumerator source;
+
+        final DoublePredicate predicate;
+
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        double current;
+
+        DoubleFilterEnumerator(DoubleAsyncEnumerator source, DoublePredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            for (;;) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == AsyncEnumerable.TRUE) {
+                    double v = source.currentDouble();
+                    if (predicate.test(v)) {
+                        current = v;
+                        return AsyncEnumerable.TRUE;
+                    }
+                } else if (stage == AsyncEnumerable.FALSE) {
+                    return AsyncEnumerable.FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+        }
+
+        @Override
+        public double currentDouble() {
+            return current;
+        }
+
+        void moveNextSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                completable.completeExceptionally(throwable);
+                return;
+            }
+
+            if (aBoolean) {
+                double v = source.currentDouble();
+                if (predicate.test(v)) {
+                    current = v;
+                    completable.complete(true);
+                } else {
+                    moveNextSource();
+                }
+            } else {
+                completable.complete(false);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.DoubleFunction;
+
+final class AsyncDoubleMapToObj<R> implements AsyncEnumerable<R> {
+
+    final DoubleAsyncEnumerable source;
+
+    final DoubleFunction<? extends R> mapper;
+
+    AsyncDoubleMapToObj(DoubleAsyncEnumerable source, DoubleFunction<? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new DoubleMapToObjEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class DoubleMapToObjEnumerator<R> implements AsyncEnumerator<R> {
+
+        final DoubleAsyncEnumerator source;
+
+        final DoubleFunction<? extends R> mapper;
+
+        DoubleMapToObjEnumerator(DoubleAsyncEnumerator source, DoubleFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            return source.moveNext();
+        }
+
+        @Override
+        public R current() {
+            return mapper.apply(source.currentDouble());
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
@@ -51,6 +51,14 @@ public interface AsyncEnumerable<T> {
         return new AsyncRange(start, count);
     }
 
+    static IntAsyncEnumerable rangeInt(int start, int count) {
+        return IntAsyncEnumerable.range(start, count);
+    }
+
+    static LongAsyncEnumerable rangeLong(long start, long count) {
+        return LongAsyncEnumerable.range(start, count);
+    }
+
     static <T> AsyncEnumerable<T> empty() {
         return AsyncEmpty.instance();
     }
@@ -86,7 +94,72 @@ public interface AsyncEnumerable<T> {
     }
 
     static <T> AsyncEnumerable<T> fromFlowPublisher(Flow.Publisher<T> source) {
-        return new AsyncFromFlowPublisher<>(source);
+        return fromFlowPublisher(source, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Consumes a Flow.Publisher by requesting {@code prefetch} items upfront and
+     * requesting more once 75% of them have been consumed.
+     * @param <T> the element type
+     * @param source the Flow.Publisher to consume
+     * @param prefetch the number of items to request and buffer, positive
+     * @return the new AsyncEnumerable instance
+     */
+    static <T> AsyncEnumerable<T> fromFlowPublisher(Flow.Publisher<T> source, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncFromFlowPublisher<>(source, prefetch);
+    }
+
+    static <T> AsyncEnumerable<T> fromBlockingIterator(Supplier<? extends Iterator<? extends T>> iteratorSupplier, ThreadFactory threadFactory) {
+        return fromBlockingIterator(iteratorSupplier, threadFactory, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Iterates a fresh, possibly blocking Iterator for each enumerator on a thread created by
+     * the given ThreadFactory, handing the items over through a buffer of {@code bufferSize}.
+     * <p>
+     * The thread is created on the first {@code moveNext} call and is interrupted on cancellation.
+     * On Java 21+, {@code Thread.ofVirtual().factory()} allows running many such sources
+     * without dedicating a platform thread to each.
+     * @param <T> the element type
+     * @param iteratorSupplier the supplier of the Iterator to consume, the Iterator must not return nulls
+     * @param threadFactory the factory creating the producer thread for each enumerator
+     * @param bufferSize the number of items the producer can run ahead of the consumer, positive
+     * @return the new AsyncEnumerable instance
+     */
+    static <T> AsyncEnumerable<T> fromBlockingIterator(Supplier<? extends Iterator<? extends T>> iteratorSupplier,
+                                                       ThreadFactory threadFactory, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new AsyncFromBlockingIterator<>(iteratorSupplier, threadFactory, bufferSize);
+    }
+
+    static <T> AsyncEnumerable<T> fromBlockingQueue(BlockingQueue<? extends T> queue, ThreadFactory threadFactory) {
+        return fromBlockingQueue(queue, threadFactory, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Takes items from the BlockingQueue on a thread created by the given ThreadFactory,
+     * handing them over through a buffer of {@code bufferSize}.
+     * <p>
+     * The sequence doesn't complete on its own; cancelling the enumerator interrupts
+     * the thread waiting on the queue. An item taken concurrently with the cancellation
+     * is dropped.
+     * @param <T> the element type
+     * @param queue the queue to take items from
+     * @param threadFactory the factory creating the producer thread for each enumerator
+     * @param bufferSize the number of items the producer can run ahead of the consumer, positive
+     * @return the new AsyncEnumerable instance
+     */
+    static <T> AsyncEnumerable<T> fromBlockingQueue(BlockingQueue<? extends T> queue,
+                                                    ThreadFactory threadFactory, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        return new AsyncFromBlockingQueue<>(queue, threadFactory, bufferSize);
     }
 
     static <T> AsyncEnumerable<T> never() {
@@ -108,6 +181,103 @@ public interface AsyncEnumerable<T> {
         return new AsyncZipArray<>(sources, zipper);
     }
 
+    /**
+     * Zips the items of the sources into rows, letting each source run ahead by up to
+     * {@code prefetch} items into its own queue so that slow and fast sources overlap.
+     * @param zipper receives a fresh array of the next item of each source
+     * @param prefetch the number of items to prefetch from each source, positive
+     * @param sources the sources to zip
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @return the new AsyncEnumerable instance
+     */
+    @SafeVarargs
+    static <T, R> AsyncEnumerable<R> zipArray(
+            Function<? super Object[], ? extends R> zipper, int prefetch, AsyncEnumerable<? extends T>... sources
+    ) {
+        return zipArray(zipper, prefetch, false, sources);
+    }
+
+    /**
+     * Zips the items of the sources into rows, letting each source run ahead by up to
+     * {@code prefetch} items into its own queue so that slow and fast sources overlap.
+     * <p>
+     * If {@code reuseRow} is true, the zipper receives the same array for every row;
+     * it must not retain or return that array.
+     * @param zipper receives an array of the next item of each source
+     * @param prefetch the number of items to prefetch from each source, positive
+     * @param reuseRow if true, the row array is reused instead of allocating one per row
+     * @param sources the sources to zip
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @return the new AsyncEnumerable instance
+     */
+    @SafeVarargs
+    static <T, R> AsyncEnumerable<R> zipArray(
+            Function<? super Object[], ? extends R> zipper, int prefetch, boolean reuseRow,
+            AsyncEnumerable<? extends T>... sources
+    ) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncZipArrayPrefetch<>(sources, zipper, prefetch, reuseRow);
+    }
+
+    /**
+     * Combines the latest value of each source whenever any of them produces, once every
+     * source has produced at least one value.
+     * <p>
+     * The sources are consumed continuously and the combinations are conflated: a consumer
+     * slower than the sources receives only the freshest combination on its next
+     * {@code moveNext}. The sequence ends when all sources have ended or when a source
+     * ends without producing any value.
+     * @param combiner receives a fresh array of the latest value of each source
+     * @param sources the sources to combine
+     * @param <T> the common source value type
+     * @param <R> the result type
+     * @return the new AsyncEnumerable instance
+     */
+    @SafeVarargs
+    static <T, R> AsyncEnumerable<R> combineLatest(
+            Function<? super Object[], ? extends R> combiner, AsyncEnumerable<? extends T>... sources
+    ) {
+        return new AsyncCombineLatest<>(sources, combiner);
+    }
+
+    /**
+     * Merges sources already sorted by the given comparator into a single sorted sequence,
+     * prefetching up to {@link Flow#defaultBufferSize()} items from each source.
+     * @param comparator the comparator the sources are sorted by
+     * @param sources the sorted sources to merge
+     * @param <T> the value type
+     * @return the new AsyncEnumerable instance
+     */
+    @SafeVarargs
+    static <T> AsyncEnumerable<T> mergeSorted(Comparator<? super T> comparator, AsyncEnumerable<? extends T>... sources) {
+        return mergeSorted(comparator, Flow.defaultBufferSize(), sources);
+    }
+
+    /**
+     * Merges sources already sorted by the given comparator into a single sorted sequence,
+     * prefetching up to {@code prefetch} items from each source.
+     * <p>
+     * An item is emitted once every source that hasn't ended has an item available, and
+     * equal items are emitted in the order of the sources they came from.
+     * @param comparator the comparator the sources are sorted by
+     * @param prefetch the number of items to prefetch from each source, positive
+     * @param sources the sorted sources to merge
+     * @param <T> the value type
+     * @return the new AsyncEnumerable instance
+     */
+    @SafeVarargs
+    static <T> AsyncEnumerable<T> mergeSorted(Comparator<? super T> comparator, int prefetch,
+                                              AsyncEnumerable<? extends T>... sources) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncMergeSorted<>(sources, comparator, prefetch);
+    }
+
     @SafeVarargs
     static <T> AsyncEnumerable<T> mergeArray(AsyncEnumerable<? extends T>... sources) {
         return fromArray(sources).flatMap(v -> v);
@@ -163,23 +333,59 @@ public interface AsyncEnumerable<T> {
 
     default <R> AsyncEnumerable<R> flatMap(
             Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
-        return new AsyncFlatMap<>(this, mapper);
+        return flatMap(mapper, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Maps each upstream item to an inner AsyncEnumerable and merges their items,
+     * keeping at most {@code maxConcurrency} inner sources active and prefetching
+     * up to {@code prefetch} items from each of them.
+     * <p>
+     * The upstream is not pulled until the first {@code moveNext} call.
+     * @param <R> the result value type
+     * @param mapper the function returning an inner AsyncEnumerable for each upstream item
+     * @param maxConcurrency the maximum number of active inner sources, positive
+     * @param prefetch the number of items to prefetch from each inner source, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default <R> AsyncEnumerable<R> flatMap(
+            Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+            int maxConcurrency, int prefetch) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncFlatMap<>(this, mapper, maxConcurrency, prefetch);
     }
 
     default AsyncEnumerable<T> take(long n) {
-        return new AsyncTake<>(this, n);
+        return AsyncFused.fuse(this, new AsyncTake<>(this, n));
     }
 
     default AsyncEnumerable<T> skip(long n) {
-        return new AsyncSkip<>(this, n);
+        return AsyncFused.fuse(this, new AsyncSkip<>(this, n));
     }
 
     default <R> AsyncEnumerable<R> map(Function<? super T, ? extends R> mapper) {
-        return new AsyncMap<>(this, mapper);
+        return AsyncFused.fuse(this, new AsyncMap<>(this, mapper));
+    }
+
+    default IntAsyncEnumerable mapToInt(ToIntFunction<? super T> mapper) {
+        return new AsyncMapToInt<>(this, mapper);
+    }
+
+    default LongAsyncEnumerable mapToLong(ToLongFunction<? super T> mapper) {
+        return new AsyncMapToLong<>(this, mapper);
+    }
+
+    default DoubleAsyncEnumerable mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return new AsyncMapToDouble<>(this, mapper);
     }
 
     default AsyncEnumerable<T> filter(Predicate<? super T> predicate) {
-        return new AsyncFilter<>(this, predicate);
+        return AsyncFused.fuse(this, new AsyncFilter<>(this, predicate));
     }
 
     default <C> AsyncEnumerable<C> collect(Supplier<C> collection, BiConsumer<C, T> collector) {
@@ -206,6 +412,107 @@ public interface AsyncEnumerable<T> {
         return collect(ArrayList::new, List::add);
     }
 
+    default AsyncEnumerable<List<T>> buffer(int count) {
+        return buffer(count, count);
+    }
+
+    /**
+     * Collects items into lists of {@code count} items, starting a new list after
+     * every {@code skip} items; the last lists may contain fewer items.
+     * <p>
+     * If {@code skip} is less than {@code count}, the lists overlap, if it is greater,
+     * the items in between are dropped.
+     * @param count the number of items per list, positive
+     * @param skip the number of items after which a new list is started, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<List<T>> buffer(int count, int skip) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count > 0 required but it was " + count);
+        }
+        if (skip <= 0) {
+            throw new IllegalArgumentException("skip > 0 required but it was " + skip);
+        }
+        return new AsyncBuffer<>(this, count, skip);
+    }
+
+    default AsyncEnumerable<List<T>> buffer(long time, TimeUnit unit, ScheduledExecutorService executor) {
+        return buffer(Integer.MAX_VALUE, time, unit, executor);
+    }
+
+    /**
+     * Collects items into lists, emitting the current list when it has {@code count}
+     * items or when the periodic timer fires, whichever happens first; empty lists are
+     * not emitted.
+     * <p>
+     * The source is pulled while no completed list waits for the consumer.
+     * @param count the maximum number of items per list, positive
+     * @param time the period of the timer, positive
+     * @param unit the time unit of the period
+     * @param executor the executor running the timer
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<List<T>> buffer(int count, long time, TimeUnit unit, ScheduledExecutorService executor) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count > 0 required but it was " + count);
+        }
+        if (time <= 0L) {
+            throw new IllegalArgumentException("time > 0 required but it was " + time);
+        }
+        return new AsyncBufferTimed<>(this, count, time, unit, executor);
+    }
+
+    default AsyncEnumerable<AsyncEnumerable<T>> window(int count) {
+        return window(count, count);
+    }
+
+    /**
+     * Splits the items into windows of {@code count} items, starting a new window after
+     * every {@code skip} items, and streams the items through each window without
+     * collecting them.
+     * <p>
+     * Each window can be enumerated once and holds at most one item; the source is pulled
+     * once all open windows have handed out their item, thus overlapping windows
+     * ({@code skip < count}) have to be consumed concurrently, for example via {@code flatMap}.
+     * @param count the number of items per window, positive
+     * @param skip the number of items after which a new window is started, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<AsyncEnumerable<T>> window(int count, int skip) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count > 0 required but it was " + count);
+        }
+        if (skip <= 0) {
+            throw new IllegalArgumentException("skip > 0 required but it was " + skip);
+        }
+        return new AsyncWindow<>(this, count, skip, 0L, null, null);
+    }
+
+    default AsyncEnumerable<AsyncEnumerable<T>> window(long time, TimeUnit unit, ScheduledExecutorService executor) {
+        return window(Integer.MAX_VALUE, time, unit, executor);
+    }
+
+    /**
+     * Splits the items into consecutive windows, completing the current window when it
+     * has {@code count} items or when the periodic timer fires, whichever happens first;
+     * a new window is started by the next item, thus no empty windows are emitted.
+     * @param count the maximum number of items per window, positive
+     * @param time the period of the timer, positive
+     * @param unit the time unit of the period
+     * @param executor the executor running the timer
+     * @return the new AsyncEnumerable instance
+     * @see #window(int, int)
+     */
+    default AsyncEnumerable<AsyncEnumerable<T>> window(int count, long time, TimeUnit unit, ScheduledExecutorService executor) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count > 0 required but it was " + count);
+        }
+        if (time <= 0L) {
+            throw new IllegalArgumentException("time > 0 required but it was " + time);
+        }
+        return new AsyncWindow<>(this, count, count, time, unit, executor);
+    }
+
     default AsyncEnumerable<T> subscribeOn(Executor executor) {
         return new AsyncSubscribeOn<>(this, executor);
     }
@@ -214,6 +521,66 @@ public interface AsyncEnumerable<T> {
         return new AsyncObserveOn<>(this, executor);
     }
 
+    /**
+     * Prefetches up to {@code prefetch} items from this AsyncEnumerable and completes the
+     * {@code moveNext} calls on the given executor.
+     * <p>
+     * Unlike {@link #observeOn(Executor)}, which submits a task for each item, a single
+     * task keeps serving {@code moveNext} calls, including those issued from within it,
+     * while there are prefetched items available.
+     * @param executor the executor to complete the {@code moveNext} calls on
+     * @param prefetch the number of items to prefetch, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> observeOn(Executor executor, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncObserveOnPrefetch<>(this, executor, prefetch);
+    }
+
+    /**
+     * Splits this AsyncEnumerable into the given number of rails, handing each item
+     * to the next rail with free buffer space in a round-robin fashion.
+     * <p>
+     * Use {@link ParallelAsyncEnumerable#runOn(Executor)} to have the rails
+     * actually run concurrently.
+     * @param rails the number of rails, positive
+     * @return the new ParallelAsyncEnumerable instance
+     */
+    default ParallelAsyncEnumerable<T> parallel(int rails) {
+        if (rails <= 0) {
+            throw new IllegalArgumentException("rails > 0 required but it was " + rails);
+        }
+        return new AsyncParallelSource<>(this, rails, null);
+    }
+
+    /**
+     * Splits this AsyncEnumerable into the given number of rails and runs
+     * each rail on the given executor.
+     * @param rails the number of rails, positive
+     * @param executor the executor to run the rails on
+     * @return the new ParallelAsyncEnumerable instance
+     * @see #parallel(int)
+     */
+    default ParallelAsyncEnumerable<T> parallel(int rails, Executor executor) {
+        return parallel(rails).runOn(executor);
+    }
+
+    /**
+     * Splits this AsyncEnumerable into the given number of rails, routing items with
+     * equal keys to the same rail based on the key's {@code hashCode}.
+     * @param rails the number of rails, positive
+     * @param keySelector the function returning the partitioning key for each item
+     * @return the new ParallelAsyncEnumerable instance
+     */
+    default ParallelAsyncEnumerable<T> parallelBy(int rails, Function<? super T, ?> keySelector) {
+        if (rails <= 0) {
+            throw new IllegalArgumentException("rails > 0 required but it was " + rails);
+        }
+        return new AsyncParallelSource<>(this, rails, keySelector);
+    }
+
     default <U> AsyncEnumerable<T> takeUntil(AsyncEnumerable<U> other) {
         return new AsyncTakeUntil<>(this, other);
     }
@@ -222,6 +589,42 @@ public interface AsyncEnumerable<T> {
         return new AsyncConcatMap<>(this, mapper);
     }
 
+    /**
+     * Maps each upstream item to an inner AsyncEnumerable and relays their items in
+     * upstream order, while running up to {@code maxConcurrency} inner sources at once
+     * and prefetching up to {@code prefetch} items from each of them.
+     * <p>
+     * The upstream is not pulled until the first {@code moveNext} call.
+     * @param <R> the result value type
+     * @param mapper the function returning an inner AsyncEnumerable for each upstream item
+     * @param maxConcurrency the maximum number of active inner sources, positive
+     * @param prefetch the number of items to prefetch from each inner source, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default <R> AsyncEnumerable<R> concatMapEager(
+            Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+            int maxConcurrency, int prefetch) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncConcatMapEager<>(this, mapper, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Maps each item of this AsyncEnumerable to an inner AsyncEnumerable and relays the
+     * items of the most recent one only; the previous inner is cancelled as soon as
+     * a new item arrives from this AsyncEnumerable, which is consumed continuously.
+     * @param mapper the function returning the inner AsyncEnumerable for an item
+     * @param <R> the result type
+     * @return the new AsyncEnumerable instance
+     */
+    default <R> AsyncEnumerable<R> switchMap(Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
+        return new AsyncSwitchMap<>(this, mapper);
+    }
+
     default Flow.Publisher<T> toFlowPublisher() {
         return new AsyncToFlowPublisher<>(this);
     }
@@ -265,15 +668,15 @@ public interface AsyncEnumerable<T> {
     }
 
     default AsyncEnumerable<T> doOnNext(Consumer<? super T> onNext) {
-        return new AsyncDoOn<>(this, onNext, t -> { }, () -> { });
+        return AsyncFused.fuse(this, new AsyncDoOn<>(this, onNext, t -> { }, () -> { }));
     }
 
     default AsyncEnumerable<T> doOnError(Consumer<? super Throwable> onError) {
-        return new AsyncDoOn<>(this, t -> { }, onError, () -> { });
+        return AsyncFused.fuse(this, new AsyncDoOn<>(this, t -> { }, onError, () -> { }));
     }
 
     default AsyncEnumerable<T> doOnComplete(Runnable onComplete) {
-        return new AsyncDoOn<>(this, t -> { }, t -> { }, onComplete);
+        return AsyncFused.fuse(this, new AsyncDoOn<>(this, t -> { }, t -> { }, onComplete));
     }
 
     default AsyncEnumerable<T> doFinally(Runnable onFinally) {
@@ -336,12 +739,66 @@ public interface AsyncEnumerable<T> {
         return new AsyncGroupBy<>(this, keySelector, valueSelector);
     }
 
+    /**
+     * Groups the items by a key into groups that each buffer up to {@code perGroupPrefetch}
+     * items, so that groups can be consumed at their own pace.
+     * <p>
+     * The source is pulled as long as the group of the latest item has room; when a new
+     * key would exceed {@code maxGroups} live groups, the group that received an item the
+     * longest time ago is completed and a later item with its key starts a new group.
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param keySelector the function returning the group key for an item
+     * @param valueSelector the function returning the value to put into the group
+     * @param perGroupPrefetch the number of items each group may buffer, positive
+     * @param maxGroups the maximum number of live groups, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default <K, V> AsyncEnumerable<GroupedAsyncEnumerable<V, K>> groupBy(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> valueSelector, int perGroupPrefetch, int maxGroups) {
+        if (perGroupPrefetch <= 0) {
+            throw new IllegalArgumentException("perGroupPrefetch > 0 required but it was " + perGroupPrefetch);
+        }
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+        }
+        return new AsyncGroupByBounded<>(this, keySelector, valueSelector, perGroupPrefetch, maxGroups, 0L, null);
+    }
+
+    /**
+     * Groups the items by a key into groups that each buffer up to {@code perGroupPrefetch}
+     * items and completes groups that haven't received an item for the given idle time.
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param keySelector the function returning the group key for an item
+     * @param valueSelector the function returning the value to put into the group
+     * @param perGroupPrefetch the number of items each group may buffer, positive
+     * @param maxGroups the maximum number of live groups, positive
+     * @param idleTimeout the time a group may stay without new items, positive
+     * @param unit the time unit of the idle timeout
+     * @param executor the executor checking the group idleness
+     * @return the new AsyncEnumerable instance
+     * @see #groupBy(Function, Function, int, int)
+     */
+    default <K, V> AsyncEnumerable<GroupedAsyncEnumerable<V, K>> groupBy(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> valueSelector, int perGroupPrefetch, int maxGroups,
+                                                                       long idleTimeout, TimeUnit unit, ScheduledExecutorService executor) {
+        if (perGroupPrefetch <= 0) {
+            throw new IllegalArgumentException("perGroupPrefetch > 0 required but it was " + perGroupPrefetch);
+        }
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+        }
+        if (idleTimeout <= 0L) {
+            throw new IllegalArgumentException("idleTimeout > 0 required but it was " + idleTimeout);
+        }
+        return new AsyncGroupByBounded<>(this, keySelector, valueSelector, perGroupPrefetch, maxGroups, unit.toNanos(idleTimeout), executor);
+    }
+
     default AsyncEnumerable<T> skipWhile(Predicate<? super T> predicate) {
-        return new AsyncSkipWhile<>(this, predicate);
+        return AsyncFused.fuse(this, new AsyncSkipWhile<>(this, predicate));
     }
 
     default AsyncEnumerable<T> takeWhile(Predicate<? super T> predicate) {
-        return new AsyncTakeWhile<>(this, predicate);
+        return AsyncFused.fuse(this, new AsyncTakeWhile<>(this, predicate));
     }
 
     default AsyncEnumerable<T> takeUntil(Predicate<? super T> stopPredicate) {
@@ -356,6 +813,74 @@ public interface AsyncEnumerable<T> {
         return new AsyncCache<>(this);
     }
 
+    /**
+     * Caches the items of this AsyncEnumerable in the given storage, for example
+     * in memory-mapped files via {@link CacheStorage#mapped}, instead of on the heap.
+     * <p>
+     * The storage is not closed by the cache.
+     * @param storage the storage to append the items to and replay them from
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> cache(CacheStorage<T> storage) {
+        return new AsyncCache<>(this, storage);
+    }
+
+    /**
+     * Caches the items of this AsyncEnumerable, retaining only the last {@code maxItems}
+     * of them for enumerators created later.
+     * <p>
+     * Enumerators already running keep reading the items in order, even those
+     * no longer retained.
+     * @param maxItems the maximum number of items to retain, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> cache(int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems > 0 required but it was " + maxItems);
+        }
+        return new AsyncCache<>(this, maxItems, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Caches the items of this AsyncEnumerable, retaining only those that arrived
+     * within the given time for enumerators created later.
+     * <p>
+     * The executor is used for dropping expired items when no new items arrive.
+     * Enumerators already running keep reading the items in order, even those
+     * no longer retained.
+     * @param maxAge the maximum age of the retained items, positive
+     * @param unit the time unit of maxAge
+     * @param executor the executor to schedule the removal of expired items on
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> cache(long maxAge, TimeUnit unit, ScheduledExecutorService executor) {
+        if (maxAge <= 0L) {
+            throw new IllegalArgumentException("maxAge > 0 required but it was " + maxAge);
+        }
+        return new AsyncCache<>(this, Long.MAX_VALUE, unit.toNanos(maxAge), executor);
+    }
+
+    /**
+     * Caches the items of this AsyncEnumerable, retaining at most the last {@code maxItems}
+     * items that arrived within the given time for enumerators created later.
+     * @param maxItems the maximum number of items to retain, positive
+     * @param maxAge the maximum age of the retained items, positive
+     * @param unit the time unit of maxAge
+     * @param executor the executor to schedule the removal of expired items on
+     * @return the new AsyncEnumerable instance
+     * @see #cache(int)
+     * @see #cache(long, TimeUnit, ScheduledExecutorService)
+     */
+    default AsyncEnumerable<T> cache(int maxItems, long maxAge, TimeUnit unit, ScheduledExecutorService executor) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems > 0 required but it was " + maxItems);
+        }
+        if (maxAge <= 0L) {
+            throw new IllegalArgumentException("maxAge > 0 required but it was " + maxAge);
+        }
+        return new AsyncCache<>(this, maxItems, unit.toNanos(maxAge), executor);
+    }
+
     default AsyncEnumerable<T> distinct() {
         return distinct(v -> v, HashSet::new);
     }
@@ -403,7 +928,56 @@ public interface AsyncEnumerable<T> {
     }
 
     default <R> AsyncEnumerable<R> publish(Function<? super AsyncEnumerable<T>, ? extends AsyncEnumerable<R>> handler) {
-        return new AsyncPublish<>(this, handler);
+        return publish(handler, 1);
+    }
+
+    /**
+     * Shares a single enumeration of this AsyncEnumerable among the enumerators created
+     * from the AsyncEnumerable passed to the handler.
+     * <p>
+     * The items are buffered in a ring of {@code prefetch} items (rounded up to a power of 2),
+     * allowing faster enumerators to run ahead of the slowest one by up to that many items.
+     * The source is not pulled until all enumerators have called {@code moveNext}.
+     * @param <R> the result value type
+     * @param handler the function receiving the shared AsyncEnumerable and returning the output
+     * @param prefetch the number of items to buffer, positive
+     * @return the new AsyncEnumerable instance
+     */
+    default <R> AsyncEnumerable<R> publish(Function<? super AsyncEnumerable<T>, ? extends AsyncEnumerable<R>> handler, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        return new AsyncPublish<>(this, handler, prefetch);
+    }
+
+    /**
+     * Shares a single enumeration of this AsyncEnumerable among all enumerators active at
+     * the same time.
+     * <p>
+     * The upstream is enumerated upon the first {@code enumerator()} call and cancelled when
+     * the last active enumerator cancels. Enumerators joining later receive only the
+     * items produced after they joined. Once the upstream terminates, the next
+     * {@code enumerator()} call starts a new upstream enumeration.
+     * The upstream is pulled while none of the enumerators lags behind by
+     * {@code Flow.defaultBufferSize()} items.
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> share() {
+        return new AsyncShare<>(this, 0, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Shares a single enumeration of this AsyncEnumerable among all enumerators active at
+     * the same time and replays up to the last {@code count} items to enumerators joining later.
+     * @param count the number of items to replay, non-negative
+     * @return the new AsyncEnumerable instance
+     * @see #share()
+     */
+    default AsyncEnumerable<T> replay(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        return new AsyncShare<>(this, count, Flow.defaultBufferSize());
     }
 
     default AsyncEnumerable<T> switchIfEmpty(AsyncEnumerable<T> fallback) {
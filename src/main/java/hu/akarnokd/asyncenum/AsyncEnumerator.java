@@ -17,6 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 public interface AsyncEnumerator<T> {
 
@@ -52,4 +53,31 @@ public interface AsyncEnumerator<T> {
      * release resources associated with it.
      */
     void cancel();
+
+    /**
+     * Asks the AsyncEnumerator to fetch up to {@code max} items, hand each of them
+     * to the {@code sink} in order and notify the end of the batch by completing the
+     * returned CompletionStage with: {@code true} if there could be more items
+     * available via a subsequent call; {@code false} if there won't be any more items;
+     * or containing the {@code Throwable} indicating an error.
+     * <p>
+     *     Synchronous sources and operators may implement this method natively to
+     *     avoid the per-item CompletionStage round-trip of {@link #moveNext()}. The
+     *     default implementation calls {@code moveNext()} and {@link #current()}
+     *     repeatedly.
+     * </p>
+     * <p>
+     *     Completing with {@code true} doesn't guarantee the sink received any
+     *     items. The same non-overlapping call rules apply as with {@code moveNext()}
+     *     and the value returned by {@code current()} is unspecified after this method
+     *     has been called.
+     * </p>
+     * @param max the maximum number of items to hand to the sink, positive
+     * @param sink the consumer receiving the items
+     * @return the CompletionStage that gets terminated depending on there are more
+     * items or an error available.
+     */
+    default CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super T> sink) {
+        return AsyncMoveNextBatch.moveNextBatch(this, max, sink);
+    }
 }
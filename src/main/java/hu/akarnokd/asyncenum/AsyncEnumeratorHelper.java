@@ -18,6 +18,7 @@ package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 enum AsyncEnumeratorHelper implements AsyncEnumerator<Object> {
 
@@ -66,4 +67,28 @@ enum AsyncEnumeratorHelper implements AsyncEnumerator<Object> {
     static boolean isCancelled(AsyncEnumerator<?> enumerator) {
         return enumerator == CANCELLED;
     }
+
+    /**
+     * Calls the consumer synchronously if the stage is one of the constant
+     * {@link AsyncEnumerable#TRUE} or {@link AsyncEnumerable#FALSE} instances,
+     * registers it directly on a {@link ReusableCompletionStage},
+     * otherwise registers it via {@link CompletionStage#whenComplete(BiConsumer)}.
+     * <p>
+     *     This avoids the dependent CompletableFuture {@code whenComplete} would
+     *     allocate for every item.
+     * </p>
+     * @param stage the stage returned by {@link AsyncEnumerator#moveNext()}
+     * @param consumer the consumer to call with the outcome
+     */
+    static void whenComplete(CompletionStage<Boolean> stage, BiConsumer<? super Boolean, ? super Throwable> consumer) {
+        if (stage == AsyncEnumerable.TRUE) {
+            consumer.accept(true, null);
+        } else if (stage == AsyncEnumerable.FALSE) {
+            consumer.accept(false, null);
+        } else if (stage instanceof ReusableCompletionStage) {
+            ((ReusableCompletionStage)stage).onComplete(consumer);
+        } else {
+            stage.whenComplete(consumer);
+        }
+    }
 }
@@ -42,7 +42,9 @@ final class AsyncFilter<T> implements AsyncEnumerable<T> {
 
         final Predicate<? super T> predicate;
 
-        CompletableFuture<Boolean> current;
+        ReusableCompletionStage current;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T currentItem;
 
@@ -53,9 +55,35 @@ final class AsyncFilter<T> implements AsyncEnumerable<T> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            current = new CompletableFuture<>();
-            moveNextSource();
-            return current;
+            for (;;) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    T v = source.current();
+                    if (predicate.test(v)) {
+                        currentItem = v;
+                        return TRUE;
+                    }
+                } else if (stage == FALSE) {
+                    currentItem = null;
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    current = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super T> sink) {
+            currentItem = null;
+            Predicate<? super T> p = predicate;
+            return source.moveNextBatch(max, v -> {
+                if (p.test(v)) {
+                    sink.accept(v);
+                }
+            });
         }
 
         @Override
@@ -66,7 +94,7 @@ final class AsyncFilter<T> implements AsyncEnumerable<T> {
         void moveNextSource() {
             if (getAndIncrement() == 0) {
                 do {
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
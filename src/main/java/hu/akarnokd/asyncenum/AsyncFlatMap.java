@@ -16,7 +16,6 @@
 
 package hu.akarnokd.asyncenum;
 
-import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.*;
@@ -27,58 +26,94 @@ final class AsyncFlatMap<T, R> implements AsyncEnumerable<R> {
 
     final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
 
-    AsyncFlatMap(AsyncEnumerable<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
+    final int maxConcurrency;
+
+    final int prefetch;
+
+    AsyncFlatMap(AsyncEnumerable<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+                 int maxConcurrency, int prefetch) {
         this.upstream = upstream;
         this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
     }
 
     @Override
     public AsyncEnumerator<R> enumerator() {
-        FlatMapEnumerator<T, R> en = new FlatMapEnumerator<>(upstream.enumerator(), mapper);
-        en.moveNextUpstream();
-        return en;
+        return new FlatMapEnumerator<>(upstream.enumerator(), mapper, maxConcurrency, prefetch);
     }
 
     static final class FlatMapEnumerator<T, R> implements AsyncEnumerator<R>, BiConsumer<Boolean, Throwable> {
 
+        /** Stands in for {@code null} items in the inner queues. */
+        static final Object NULL_ITEM = new Object();
+
+        @SuppressWarnings("unchecked")
+        static final InnerAsyncEnumerator[] EMPTY = new InnerAsyncEnumerator[0];
+
+        @SuppressWarnings("unchecked")
+        static final InnerAsyncEnumerator[] TERMINATED = new InnerAsyncEnumerator[0];
+
         final AsyncEnumerator<T> upstream;
 
         final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
 
-        final Queue<InnerAsyncEnumerator<R>> queue;
+        final int maxConcurrency;
 
-        final AtomicReference<CompletableFuture<Boolean>> next;
+        final int prefetch;
+
+        final AtomicReference<InnerAsyncEnumerator<R>[]> inners;
+
+        final AtomicReference<ReusableCompletionStage> next;
+
+        final ReusableCompletionStage completion;
 
         final AtomicInteger wip;
 
         final AtomicInteger active;
 
-        final ConcurrentMap<InnerAsyncEnumerator<R>, Object> inners;
-
         final AtomicInteger upstreamWip;
 
         final AtomicReference<Throwable> error;
 
+        /** Cleared only after the upstream item was read and its inner added, so the upstream isn't pulled before that. */
+        volatile boolean upstreamOutstanding;
+
+        volatile boolean upstreamDone;
+
+        boolean started;
+
+        int lastIndex;
+
         R current;
 
         volatile boolean cancelled;
 
-        FlatMapEnumerator(AsyncEnumerator<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
+        @SuppressWarnings("unchecked")
+        FlatMapEnumerator(AsyncEnumerator<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper,
+                          int maxConcurrency, int prefetch) {
             this.upstream = upstream;
             this.mapper = mapper;
-            this.queue = new ConcurrentLinkedQueue<>();
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = prefetch;
+            this.inners = new AtomicReference<>(EMPTY);
             this.next = new AtomicReference<>();
+            this.completion = new ReusableCompletionStage();
             this.wip = new AtomicInteger();
-            this.active = new AtomicInteger(1);
-            this.inners = new ConcurrentHashMap<>();
+            this.active = new AtomicInteger();
             this.upstreamWip = new AtomicInteger();
             this.error = new AtomicReference<>();
         }
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> nx = new CompletableFuture<>();
+            current = null;
+            ReusableCompletionStage nx = completion.reset();
             next.set(nx);
+            if (!started) {
+                started = true;
+                moveNextUpstream();
+            }
             drain();
             return nx;
         }
@@ -88,97 +123,193 @@ final class AsyncFlatMap<T, R> implements AsyncEnumerable<R> {
             return current;
         }
 
+        @SuppressWarnings("unchecked")
         void drain() {
             if (wip.getAndIncrement() != 0) {
                 return;
             }
 
             do {
-                CompletableFuture<Boolean> nx = next.get();
+                ReusableCompletionStage nx = next.get();
                 if (nx != null) {
-                    if (error.get() != null) {
-                        nx.completeExceptionally(error.get());
-                        return;
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        next.set(null);
+                        nx.completeExceptionally(ex);
+                        continue;
                     }
-                    int n = active.get();
-                    InnerAsyncEnumerator<R> inner = queue.peek();
 
-                    if (n == 0 && inner == null) {
+                    boolean d = upstreamDone;
+                    InnerAsyncEnumerator<R>[] a = inners.get();
+                    int n = a.length;
+                    if (d && n == 0) {
+                        next.set(null);
                         nx.complete(false);
-                        return;
+                        continue;
                     }
 
-                    if (inner != null) {
-                        queue.poll();
-                        next.set(null);
-                        current = inner.current();
-                        nx.complete(true);
-                        inner.moveNext();
+                    int j = lastIndex;
+                    if (j >= n) {
+                        j = 0;
+                    }
+                    boolean removed = false;
+                    for (int k = 0; k < n; k++) {
+                        InnerAsyncEnumerator<R> inner = a[j];
+                        boolean innerDone = inner.done;
+                        Object v = inner.queue.poll();
+                        if (v != null) {
+                            lastIndex = j + 1;
+                            current = v == NULL_ITEM ? null : (R)v;
+                            next.set(null);
+                            inner.consumed();
+                            nx.complete(true);
+                            break;
+                        }
+                        if (innerDone) {
+                            remove(inner);
+                            active.decrementAndGet();
+                            removed = true;
+                        }
+                        if (++j == n) {
+                            j = 0;
+                        }
+                    }
+                    if (removed) {
+                        moveNextUpstream();
+                        wip.getAndIncrement();
                     }
                 }
             } while (wip.decrementAndGet() != 0);
         }
 
-        void hasNext(InnerAsyncEnumerator<R> inner) {
-            queue.offer(inner);
+        void innerNext() {
             drain();
         }
 
-        void finish(InnerAsyncEnumerator<R> inner) {
-            inners.remove(inner);
-            active.decrementAndGet();
-            drain();
-        }
-
-        void error(InnerAsyncEnumerator<R> inner, Throwable ex) {
-            error.compareAndSet(null, ex);
-            cancel();
-            active.decrementAndGet();
+        void innerError(Throwable ex) {
+            if (error.compareAndSet(null, ex)) {
+                cancel();
+            }
             drain();
         }
 
         void moveNextUpstream() {
             if (upstreamWip.getAndIncrement() == 0) {
                 do {
-                    upstream.moveNext().whenComplete(this);
+                    if (!upstreamOutstanding && !upstreamDone && !cancelled
+                            && active.get() < maxConcurrency) {
+                        upstreamOutstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(upstream.moveNext(), this);
+                    }
                 } while (upstreamWip.decrementAndGet() != 0);
-            }
-        }
 
-        void cancelAllInner() {
-            for (InnerAsyncEnumerator<R> inner : inners.keySet()) {
-                inner.cancel();
+                // start the inners only after the upstream stopped producing synchronously
+                // so that all of them are subscribed before any of them is pulled
+                for (InnerAsyncEnumerator<R> inner : inners.get()) {
+                    inner.start();
+                }
             }
         }
 
         @Override
         public void accept(Boolean aBoolean, Throwable throwable) {
             if (throwable != null) {
-                error.compareAndSet(null, throwable);
-                cancelAllInner();
-                active.decrementAndGet();
+                upstreamDone = true;
+                upstreamOutstanding = false;
+                if (error.compareAndSet(null, throwable)) {
+                    cancelAllInner();
+                }
                 drain();
                 return;
             }
             if (aBoolean) {
                 T t = upstream.current();
-                AsyncEnumerator<? extends R> ae = mapper.apply(t).enumerator();
-                InnerAsyncEnumerator<R> inner = new InnerAsyncEnumerator<>(ae, this);
-                inners.put(inner, inner);
-                if (cancelled) {
-                    inners.remove(inner);
-                    inner.cancel();
-                } else {
-                    active.getAndIncrement();
-                    inner.moveNext();
+                AsyncEnumerator<? extends R> ae;
+                try {
+                    ae = mapper.apply(t).enumerator();
+                } catch (Throwable ex) {
+                    upstreamDone = true;
+                    upstreamOutstanding = false;
+                    upstream.cancel();
+                    if (error.compareAndSet(null, ex)) {
+                        cancelAllInner();
+                    }
+                    drain();
+                    return;
+                }
+                InnerAsyncEnumerator<R> inner = new InnerAsyncEnumerator<>(ae, this, prefetch);
+                active.getAndIncrement();
+                boolean added = add(inner);
+                upstreamOutstanding = false;
+                if (added) {
                     moveNextUpstream();
+                } else {
+                    inner.cancel();
                 }
             } else {
-                active.decrementAndGet();
+                upstreamDone = true;
+                upstreamOutstanding = false;
                 drain();
             }
         }
 
+        boolean add(InnerAsyncEnumerator<R> inner) {
+            for (;;) {
+                InnerAsyncEnumerator<R>[] a = inners.get();
+                if (a == TERMINATED) {
+                    return false;
+                }
+                int n = a.length;
+                @SuppressWarnings("unchecked")
+                InnerAsyncEnumerator<R>[] b = new InnerAsyncEnumerator[n + 1];
+                System.arraycopy(a, 0, b, 0, n);
+                b[n] = inner;
+                if (inners.compareAndSet(a, b)) {
+                    return true;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void remove(InnerAsyncEnumerator<R> inner) {
+            for (;;) {
+                InnerAsyncEnumerator<R>[] a = inners.get();
+                int n = a.length;
+                if (n == 0) {
+                    break;
+                }
+                int j = -1;
+                for (int i = 0; i < n; i++) {
+                    if (a[i] == inner) {
+                        j = i;
+                        break;
+                    }
+                }
+
+                if (j < 0) {
+                    break;
+                }
+                InnerAsyncEnumerator<R>[] b;
+                if (n == 1) {
+                    b = EMPTY;
+                } else {
+                    b = new InnerAsyncEnumerator[n - 1];
+                    System.arraycopy(a, 0, b, 0, j);
+                    System.arraycopy(a, j + 1, b, j, n - j - 1);
+                }
+                if (inners.compareAndSet(a, b)) {
+                    break;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void cancelAllInner() {
+            for (InnerAsyncEnumerator<R> inner : inners.getAndSet(TERMINATED)) {
+                inner.cancel();
+            }
+        }
+
         @Override
         public void cancel() {
             cancelled = true;
@@ -192,19 +323,69 @@ final class AsyncFlatMap<T, R> implements AsyncEnumerable<R> {
 
             final FlatMapEnumerator<?, R> parent;
 
-            InnerAsyncEnumerator(AsyncEnumerator<? extends R> source, FlatMapEnumerator<?, R> parent) {
+            final SpscArrayQueue<Object> queue;
+
+            final AtomicLong requested;
+
+            final AtomicBoolean once;
+
+            final int prefetch;
+
+            final int limit;
+
+            long produced;
+
+            int consumed;
+
+            /** Cleared only after the item was queued, so the source isn't pulled before that. */
+            volatile boolean outstanding;
+
+            volatile boolean done;
+
+            volatile boolean cancelled;
+
+            InnerAsyncEnumerator(AsyncEnumerator<? extends R> source, FlatMapEnumerator<?, R> parent, int prefetch) {
                 this.source = source;
                 this.parent = parent;
+                this.queue = new SpscArrayQueue<>(prefetch);
+                this.requested = new AtomicLong();
+                this.once = new AtomicBoolean();
+                this.prefetch = prefetch;
+                this.limit = prefetch - (prefetch >> 2);
+            }
+
+            void start() {
+                if (!once.get() && once.compareAndSet(false, true)) {
+                    request(prefetch);
+                }
             }
 
-            R current() {
-                return source.current();
+            void request(long n) {
+                requested.getAndAdd(n);
+                moveNext();
+            }
+
+            /**
+             * Called by the drain loop after taking an item from the queue;
+             * replenishes the inner source in batches.
+             */
+            void consumed() {
+                int c = consumed + 1;
+                if (c == limit) {
+                    consumed = 0;
+                    request(c);
+                } else {
+                    consumed = c;
+                }
             }
 
             void moveNext() {
                 if (getAndIncrement() == 0) {
                     do {
-                        source.moveNext().whenComplete(this);
+                        if (!outstanding && !done && !cancelled && produced != requested.get()) {
+                            outstanding = true;
+                            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                        }
                     } while (decrementAndGet() != 0);
                 }
             }
@@ -212,17 +393,27 @@ final class AsyncFlatMap<T, R> implements AsyncEnumerable<R> {
             @Override
             public void accept(Boolean hasMore, Throwable throwable) {
                 if (throwable != null) {
-                    parent.error(this, throwable);
+                    done = true;
+                    outstanding = false;
+                    parent.innerError(throwable);
                     return;
                 }
                 if (hasMore) {
-                    parent.hasNext(this);
+                    R v = source.current();
+                    produced++;
+                    queue.offer(v == null ? NULL_ITEM : v);
+                    outstanding = false;
+                    parent.innerNext();
+                    moveNext();
                 } else {
-                    parent.finish(this);
+                    done = true;
+                    outstanding = false;
+                    parent.innerNext();
                 }
             }
 
             void cancel() {
+                cancelled = true;
                 source.cancel();
             }
         }
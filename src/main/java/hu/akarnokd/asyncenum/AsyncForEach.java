@@ -30,6 +30,14 @@ final class AsyncForEach {
         return completion;
     }
 
+    static <E extends AsyncEnumerator<?>> CompletionStage<Boolean> forEachCurrent(
+            E enumerator,
+            Consumer<? super E> onCurrent) {
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        new ForEachCurrentTrampoline<>(completion, enumerator, onCurrent).moveNext();
+        return completion;
+    }
+
     static final class ForEachTrampoline<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
         final CompletableFuture<Boolean> completion;
         final AsyncEnumerator<T> enumerator;
@@ -48,7 +56,6 @@ final class AsyncForEach {
                 return;
             }
             if (r) {
-                onValue.accept(enumerator.current());
                 moveNext();
             } else {
                 completion.complete(true);
@@ -61,8 +68,57 @@ final class AsyncForEach {
             }
 
             do {
-                CompletionStage<Boolean> next = enumerator.moveNext();
-                next.whenComplete(this);
+                CompletionStage<Boolean> next;
+                try {
+                    next = enumerator.moveNextBatch(AsyncMoveNextBatch.BATCH_SIZE, onValue);
+                } catch (Throwable ex) {
+                    enumerator.cancel();
+                    completion.completeExceptionally(ex);
+                    return;
+                }
+                AsyncEnumeratorHelper.whenComplete(next, this);
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class ForEachCurrentTrampoline<E extends AsyncEnumerator<?>> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+        final CompletableFuture<Boolean> completion;
+        final E enumerator;
+        final Consumer<? super E> onCurrent;
+
+        ForEachCurrentTrampoline(CompletableFuture<Boolean> completion, E enumerator, Consumer<? super E> onCurrent) {
+            this.completion = completion;
+            this.enumerator = enumerator;
+            this.onCurrent = onCurrent;
+        }
+
+        @Override
+        public void accept(Boolean r, Throwable e) {
+            if (e != null) {
+                completion.completeExceptionally(e);
+                return;
+            }
+            if (r) {
+                try {
+                    onCurrent.accept(enumerator);
+                } catch (Throwable ex) {
+                    enumerator.cancel();
+                    completion.completeExceptionally(ex);
+                    return;
+                }
+                moveNext();
+            } else {
+                completion.complete(true);
+            }
+        }
+
+        void moveNext() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                AsyncEnumeratorHelper.whenComplete(enumerator.moveNext(), this);
             } while (decrementAndGet() != 0);
         }
     }
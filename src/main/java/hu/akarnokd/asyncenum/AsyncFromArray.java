@@ -17,6 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 final class AsyncFromArray<T> implements AsyncEnumerable<T> {
 
@@ -55,6 +56,20 @@ final class AsyncFromArray<T> implements AsyncEnumerable<T> {
             return TRUE;
         }
 
+        @Override
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super T> sink) {
+            current = null;
+            T[] a = array;
+            int idx = index;
+            int e = a.length;
+            for (int i = 0; i < max && idx != e; i++) {
+                T v = a[idx];
+                index = ++idx;
+                sink.accept(v);
+            }
+            return idx == e ? FALSE : TRUE;
+        }
+
         @Override
         public T current() {
             return current;
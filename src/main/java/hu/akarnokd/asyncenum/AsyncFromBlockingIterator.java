@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+final class AsyncFromBlockingIterator<T> implements AsyncEnumerable<T> {
+
+    final Supplier<? extends Iterator<? extends T>> iteratorSupplier;
+
+    final ThreadFactory threadFactory;
+
+    final int bufferSize;
+
+    AsyncFromBlockingIterator(Supplier<? extends Iterator<? extends T>> iteratorSupplier,
+                              ThreadFactory threadFactory, int bufferSize) {
+        this.iteratorSupplier = iteratorSupplier;
+        this.threadFactory = threadFactory;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        return new FromBlockingIteratorEnumerator<>(iteratorSupplier, threadFactory, bufferSize);
+    }
+
+    static final class FromBlockingIteratorEnumerator<T> extends AsyncBlockingProducer<T> {
+
+        final Supplier<? extends Iterator<? extends T>> iteratorSupplier;
+
+        FromBlockingIteratorEnumerator(Supplier<? extends Iterator<? extends T>> iteratorSupplier,
+                                       ThreadFactory threadFactory, int bufferSize) {
+            super(threadFactory, bufferSize);
+            this.iteratorSupplier = iteratorSupplier;
+        }
+
+        @Override
+        void produce() throws Exception {
+            Iterator<? extends T> it = Objects.requireNonNull(iteratorSupplier.get(), "The iteratorSupplier returned a null Iterator");
+            while (it.hasNext()) {
+                if (!emit(it.next())) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+
+final class AsyncFromBlockingQueue<T> implements AsyncEnumerable<T> {
+
+    final BlockingQueue<? extends T> queue;
+
+    final ThreadFactory threadFactory;
+
+    final int bufferSize;
+
+    AsyncFromBlockingQueue(BlockingQueue<? extends T> queue, ThreadFactory threadFactory, int bufferSize) {
+        this.queue = queue;
+        this.threadFactory = threadFactory;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        return new FromBlockingQueueEnumerator<>(queue, threadFactory, bufferSize);
+    }
+
+    static final class FromBlockingQueueEnumerator<T> extends AsyncBlockingProducer<T> {
+
+        final BlockingQueue<? extends T> source;
+
+        FromBlockingQueueEnumerator(BlockingQueue<? extends T> source, ThreadFactory threadFactory, int bufferSize) {
+            super(threadFactory, bufferSize);
+            this.source = source;
+        }
+
+        @Override
+        void produce() throws Exception {
+            while (emit(source.take())) {
+                // keeps taking until cancelled
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 final class AsyncFromCharSequence implements AsyncEnumerable<Integer> {
 
@@ -31,13 +32,13 @@ final class AsyncFromCharSequence implements AsyncEnumerable<Integer> {
         return new FromCharSequenceEnumerator(array);
     }
 
-    static final class FromCharSequenceEnumerator implements AsyncEnumerator<Integer> {
+    static final class FromCharSequenceEnumerator implements IntAsyncEnumerator {
 
         final CharSequence array;
 
         int index;
 
-        Integer current;
+        int current;
 
         FromCharSequenceEnumerator(CharSequence array) {
             this.array = array;
@@ -47,16 +48,28 @@ final class AsyncFromCharSequence implements AsyncEnumerable<Integer> {
         public CompletionStage<Boolean> moveNext() {
             int idx = index;
             if (idx == array.length()) {
-                current = null;
                 return FALSE;
             }
-            current = (int)array.charAt(idx);
+            current = array.charAt(idx);
             index = idx + 1;
             return TRUE;
         }
 
         @Override
-        public Integer current() {
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super Integer> sink) {
+            CharSequence a = array;
+            int idx = index;
+            int e = a.length();
+            for (int i = 0; i < max && idx != e; i++) {
+                int c = a.charAt(idx);
+                index = ++idx;
+                sink.accept(c);
+            }
+            return idx == e ? FALSE : TRUE;
+        }
+
+        @Override
+        public int currentInt() {
             return current;
         }
 
@@ -24,13 +24,16 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
 
     final Flow.Publisher<T> source;
 
-    AsyncFromFlowPublisher(Flow.Publisher<T> source) {
+    final int prefetch;
+
+    AsyncFromFlowPublisher(Flow.Publisher<T> source, int prefetch) {
         this.source = source;
+        this.prefetch = prefetch;
     }
 
     @Override
     public AsyncEnumerator<T> enumerator() {
-        FromFlowPublisherEnumerator<T> subscriber = new FromFlowPublisherEnumerator<>();
+        FromFlowPublisherEnumerator<T> subscriber = new FromFlowPublisherEnumerator<>(prefetch);
         source.subscribe(subscriber);
         return subscriber;
     }
@@ -41,27 +44,35 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
 
         final AtomicReference<Flow.Subscription> upstream;
 
-        final AtomicLong requested;
+        final SpscArrayQueue<T> queue;
+
+        final int prefetch;
+
+        final int limit;
+
+        int consumed;
 
-        volatile T item;
         volatile boolean done;
         Throwable error;
 
         T current;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
 
-        FromFlowPublisherEnumerator() {
-            upstream = new AtomicReference<>();
-            requested = new AtomicLong();
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        FromFlowPublisherEnumerator(int prefetch) {
+            this.upstream = new AtomicReference<>();
+            this.queue = new SpscArrayQueue<>(prefetch);
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
         }
 
         @Override
         public CompletionStage<Boolean> moveNext() {
             current = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            deferredRequestOne();
             drain();
             return cf;
         }
@@ -79,30 +90,11 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
             }
         }
 
-        void deferredRequestOne() {
-            Flow.Subscription current = upstream.get();
-            if (current != null) {
-                current.request(1);
-            } else {
-                requested.getAndIncrement();
-                current = upstream.get();
-                if (current != null) {
-                    long r = requested.getAndSet(0L);
-                    if (r != 0L) {
-                        current.request(r);
-                    }
-                }
-            }
-        }
-
         @Override
         public void onSubscribe(Flow.Subscription subscription) {
             Objects.requireNonNull(subscription, "subscription == null");
             if (upstream.compareAndSet(null, subscription)) {
-                long r = requested.getAndSet(0L);
-                if (r != 0L) {
-                    subscription.request(r);
-                }
+                subscription.request(prefetch);
             } else {
                 subscription.cancel();
             }
@@ -110,7 +102,11 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
 
         @Override
         public void onNext(T item) {
-            this.item = item;
+            if (!queue.offer(item)) {
+                cancel();
+                onError(new IllegalStateException("More items arrived than requested"));
+                return;
+            }
             drain();
         }
 
@@ -130,10 +126,10 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
         void drain() {
             if (getAndIncrement() == 0) {
                 do {
-                    CompletableFuture<Boolean> cf = completable;
+                    ReusableCompletionStage cf = completable;
                     if (cf != null) {
                         boolean d = done;
-                        T v = item;
+                        T v = queue.poll();
                         if (d && v == null) {
                             completable = null;
                             Throwable ex = error;
@@ -146,9 +142,15 @@ final class AsyncFromFlowPublisher<T> implements AsyncEnumerable<T> {
                         }
 
                         if (v != null) {
-                            current = item;
-                            item = null;
+                            current = v;
                             completable = null;
+                            int c = consumed + 1;
+                            if (c == limit) {
+                                consumed = 0;
+                                upstream.get().request(c);
+                            } else {
+                                consumed = c;
+                            }
                             cf.complete(true);
                         }
                     }
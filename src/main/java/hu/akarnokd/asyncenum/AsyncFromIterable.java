@@ -18,6 +18,7 @@ package hu.akarnokd.asyncenum;
 
 import java.util.Iterator;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 final class AsyncFromIterable<T> implements AsyncEnumerable<T> {
 
@@ -52,6 +53,19 @@ final class AsyncFromIterable<T> implements AsyncEnumerable<T> {
             return FALSE;
         }
 
+        @Override
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super T> sink) {
+            current = null;
+            Iterator<T> it = iterator;
+            for (int i = 0; i < max; i++) {
+                if (!it.hasNext()) {
+                    return FALSE;
+                }
+                sink.accept(it.next());
+            }
+            return TRUE;
+        }
+
         @Override
         public T current() {
             return current;
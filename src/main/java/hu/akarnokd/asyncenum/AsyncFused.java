@@ -0,0 +1,418 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+/**
+ * Runs a chain of consecutive map, filter, take, skip, takeWhile, skipWhile
+ * and doOn stages with a single enumerator, evaluating each stage function
+ * once per item.
+ * @param <R> the output value type
+ */
+final class AsyncFused<R> implements AsyncEnumerable<R> {
+
+    static final int MAP = 0;
+    static final int FILTER = 1;
+    static final int TAKE = 2;
+    static final int SKIP = 3;
+    static final int TAKE_WHILE = 4;
+    static final int SKIP_WHILE = 5;
+    static final int DO_ON = 6;
+
+    final AsyncEnumerable<?> source;
+
+    final Stage[] stages;
+
+    AsyncFused(AsyncEnumerable<?> source, Stage[] stages) {
+        this.source = source;
+        this.stages = stages;
+    }
+
+    /**
+     * Fuses the given operator with its upstream if both are fuseable stages.
+     * @param upstream the upstream of the operator
+     * @param operator the freshly assembled operator
+     * @param <R> the output value type
+     * @return the fused AsyncEnumerable or the operator itself
+     */
+    static <R> AsyncEnumerable<R> fuse(AsyncEnumerable<?> upstream, AsyncEnumerable<R> operator) {
+        if (upstream instanceof AsyncFused) {
+            AsyncFused<?> f = (AsyncFused<?>)upstream;
+            Stage[] a = f.stages;
+            int n = a.length;
+            Stage[] b = new Stage[n + 1];
+            System.arraycopy(a, 0, b, 0, n);
+            b[n] = stageOf(operator);
+            return new AsyncFused<>(f.source, b);
+        }
+        Stage first = stageOf(upstream);
+        if (first != null) {
+            return new AsyncFused<>(sourceOf(upstream), new Stage[] { first, stageOf(operator) });
+        }
+        return operator;
+    }
+
+    static Stage stageOf(AsyncEnumerable<?> op) {
+        if (op instanceof AsyncMap) {
+            return new Stage(MAP, ((AsyncMap<?, ?>)op).mapper, 0L);
+        }
+        if (op instanceof AsyncFilter) {
+            return new Stage(FILTER, ((AsyncFilter<?>)op).predicate, 0L);
+        }
+        if (op instanceof AsyncTake) {
+            return new Stage(TAKE, null, ((AsyncTake<?>)op).n);
+        }
+        if (op instanceof AsyncSkip) {
+            return new Stage(SKIP, null, ((AsyncSkip<?>)op).n);
+        }
+        if (op instanceof AsyncTakeWhile) {
+            return new Stage(TAKE_WHILE, ((AsyncTakeWhile<?>)op).predicate, 0L);
+        }
+        if (op instanceof AsyncSkipWhile) {
+            return new Stage(SKIP_WHILE, ((AsyncSkipWhile<?>)op).predicate, 0L);
+        }
+        if (op instanceof AsyncDoOn) {
+            AsyncDoOn<?> d = (AsyncDoOn<?>)op;
+            return new Stage(DO_ON, d.onNext, d.onError, d.onComplete);
+        }
+        return null;
+    }
+
+    static AsyncEnumerable<?> sourceOf(AsyncEnumerable<?> op) {
+        if (op instanceof AsyncMap) {
+            return ((AsyncMap<?, ?>)op).source;
+        }
+        if (op instanceof AsyncFilter) {
+            return ((AsyncFilter<?>)op).source;
+        }
+        if (op instanceof AsyncTake) {
+            return ((AsyncTake<?>)op).upstream;
+        }
+        if (op instanceof AsyncSkip) {
+            return ((AsyncSkip<?>)op).upstream;
+        }
+        if (op instanceof AsyncTakeWhile) {
+            return ((AsyncTakeWhile<?>)op).source;
+        }
+        if (op instanceof AsyncSkipWhile) {
+            return ((AsyncSkipWhile<?>)op).source;
+        }
+        return ((AsyncDoOn<?>)op).source;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new FusedEnumerator<>(source.enumerator(), stages);
+    }
+
+    static final class Stage {
+
+        final int kind;
+
+        final Object function;
+
+        final long n;
+
+        final Consumer<? super Throwable> onError;
+
+        final Runnable onComplete;
+
+        Stage(int kind, Object function, long n) {
+            this.kind = kind;
+            this.function = function;
+            this.n = n;
+            this.onError = null;
+            this.onComplete = null;
+        }
+
+        Stage(int kind, Object function, Consumer<? super Throwable> onError, Runnable onComplete) {
+            this.kind = kind;
+            this.function = function;
+            this.n = 0L;
+            this.onError = onError;
+            this.onComplete = onComplete;
+        }
+    }
+
+    static final class FusedEnumerator<R> extends AtomicInteger
+            implements AsyncEnumerator<R>, BiConsumer<Boolean, Throwable> {
+
+        static final int ITEM = 0;
+        static final int DROP = 1;
+        static final int STOP = 2;
+        static final int ERROR = 3;
+
+        final AsyncEnumerator<?> source;
+
+        final Stage[] stages;
+
+        /** Remaining items for take/skip, 1 for skipWhile once it lets items through. */
+        final long[] state;
+
+        /** The index of the most downstream take stage that ran out of items, -1 if none. */
+        int stopIndex;
+
+        /** True if all stages are map, filter, skip or skipWhile and can run inside the upstream's batch. */
+        final boolean batchable;
+
+        Throwable failure;
+
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        R current;
+
+        FusedEnumerator(AsyncEnumerator<?> source, Stage[] stages) {
+            this.source = source;
+            this.stages = stages;
+            int n = stages.length;
+            long[] s = new long[n];
+            int stop = -1;
+            boolean b = true;
+            for (int i = 0; i < n; i++) {
+                Stage st = stages[i];
+                int k = st.kind;
+                b &= k == MAP || k == FILTER || k == SKIP || k == SKIP_WHILE;
+                if (st.kind == TAKE) {
+                    s[i] = st.n;
+                    if (st.n <= 0L) {
+                        stop = i;
+                    }
+                } else if (st.kind == SKIP) {
+                    s[i] = st.n;
+                }
+            }
+            this.state = s;
+            this.stopIndex = stop;
+            this.batchable = b;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            for (;;) {
+                if (stopIndex >= 0) {
+                    stop();
+                    return FALSE;
+                }
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    int r = onItem();
+                    if (r == ITEM) {
+                        return TRUE;
+                    }
+                    if (r == STOP) {
+                        return FALSE;
+                    }
+                    if (r == ERROR) {
+                        return CompletableFuture.failedStage(failure);
+                    }
+                } else if (stage == FALSE) {
+                    complete(-1);
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super R> sink) {
+            if (!batchable) {
+                return AsyncMoveNextBatch.moveNextBatch(this, max, sink);
+            }
+            current = null;
+            Stage[] a = stages;
+            long[] s = state;
+            int n = a.length;
+            return ((AsyncEnumerator<Object>)source).moveNextBatch(max, v -> {
+                for (int i = 0; i < n; i++) {
+                    Stage st = a[i];
+                    switch (st.kind) {
+                        case MAP:
+                            v = ((Function<Object, Object>)st.function).apply(v);
+                            break;
+                        case FILTER:
+                            if (!((Predicate<Object>)st.function).test(v)) {
+                                return;
+                            }
+                            break;
+                        case SKIP:
+                            if (s[i] > 0L) {
+                                s[i]--;
+                                return;
+                            }
+                            break;
+                        default:
+                            if (s[i] == 0L) {
+                                if (((Predicate<Object>)st.function).test(v)) {
+                                    return;
+                                }
+                                s[i] = 1L;
+                            }
+                    }
+                }
+                sink.accept((R)v);
+            });
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+
+        void moveNextSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (stopIndex >= 0) {
+                        stop();
+                        completable.complete(false);
+                        return;
+                    }
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                error(-1, throwable);
+                completable.completeExceptionally(throwable);
+                return;
+            }
+            if (aBoolean) {
+                int r = onItem();
+                if (r == ITEM) {
+                    completable.complete(true);
+                } else if (r == DROP) {
+                    moveNextSource();
+                } else if (r == STOP) {
+                    completable.complete(false);
+                } else {
+                    completable.completeExceptionally(failure);
+                }
+            } else {
+                complete(-1);
+                completable.complete(false);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        int onItem() {
+            Stage[] a = stages;
+            long[] s = state;
+            int n = a.length;
+            int i = 0;
+            try {
+                Object v = source.current();
+                for (; i < n; i++) {
+                    Stage st = a[i];
+                    switch (st.kind) {
+                        case MAP:
+                            v = ((Function<Object, Object>)st.function).apply(v);
+                            break;
+                        case FILTER:
+                            if (!((Predicate<Object>)st.function).test(v)) {
+                                return DROP;
+                            }
+                            break;
+                        case TAKE:
+                            if (--s[i] == 0L) {
+                                stopIndex = Math.max(stopIndex, i);
+                            }
+                            break;
+                        case SKIP:
+                            if (s[i] > 0L) {
+                                s[i]--;
+                                return DROP;
+                            }
+                            break;
+                        case TAKE_WHILE:
+                            if (!((Predicate<Object>)st.function).test(v)) {
+                                source.cancel();
+                                complete(i);
+                                return STOP;
+                            }
+                            break;
+                        case SKIP_WHILE:
+                            if (s[i] == 0L) {
+                                if (((Predicate<Object>)st.function).test(v)) {
+                                    return DROP;
+                                }
+                                s[i] = 1L;
+                            }
+                            break;
+                        default:
+                            ((Consumer<Object>)st.function).accept(v);
+                    }
+                }
+                current = (R)v;
+                return ITEM;
+            } catch (Throwable ex) {
+                source.cancel();
+                error(i, ex);
+                failure = ex;
+                return ERROR;
+            }
+        }
+
+        void stop() {
+            source.cancel();
+            complete(stopIndex);
+        }
+
+        /**
+         * Signals completion to the doOn stages after the given stage index.
+         */
+        void complete(int from) {
+            Stage[] a = stages;
+            for (int i = from + 1; i < a.length; i++) {
+                Stage st = a[i];
+                if (st.kind == DO_ON) {
+                    st.onComplete.run();
+                }
+            }
+        }
+
+        /**
+         * Signals the error to the doOn stages after the given stage index.
+         */
+        void error(int from, Throwable ex) {
+            Stage[] a = stages;
+            for (int i = from + 1; i < a.length; i++) {
+                Stage st = a[i];
+                if (st.kind == DO_ON) {
+                    st.onError.accept(ex);
+                }
+            }
+        }
+    }
+}
@@ -61,7 +61,9 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
 
         final AtomicInteger active;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         volatile GroupedAsyncEnumerable<V, K> current;
         volatile boolean done;
@@ -82,7 +84,7 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
         @Override
         public CompletionStage<Boolean> moveNext() {
             current = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             consumersReady();
             drain();
@@ -167,7 +169,7 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
         void nextSource() {
             if (sourceWip.getAndIncrement() == 0) {
                 do {
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (sourceWip.decrementAndGet() != 0);
             }
         }
@@ -195,7 +197,7 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
         void drain() {
             if (wip.getAndIncrement() == 0) {
                 do {
-                    CompletableFuture<Boolean> cf = completable;
+                    ReusableCompletionStage cf = completable;
                     if (cf != null) {
                         completable = null;
                         Throwable ex = error;
@@ -225,7 +227,9 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
 
             final AtomicInteger wip;
 
-            volatile CompletableFuture<Boolean> completable;
+            volatile ReusableCompletionStage completable;
+
+            final ReusableCompletionStage completion = new ReusableCompletionStage();
 
             V result;
             volatile boolean hasValue;
@@ -257,7 +261,7 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
 
             @Override
             public CompletionStage<Boolean> moveNext() {
-                CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                ReusableCompletionStage cf = completion.reset();
                 completable = cf;
                 if (nonFirst) {
                     result = null;
@@ -278,7 +282,7 @@ final class AsyncGroupBy<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumera
             void drain() {
                 if (wip.getAndIncrement() == 0) {
                     do {
-                        CompletableFuture<Boolean> cf = completable;
+                        ReusableCompletionStage cf = completable;
                         if (cf != null) {
                             if (done) {
                                 Throwable ex = error;
@@ -0,0 +1,443 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncGroupByBounded<T, K, V> implements AsyncEnumerable<GroupedAsyncEnumerable<V, K>> {
+
+    final AsyncEnumerable<T> source;
+
+    final Function<? super T, ? extends K> keySelector;
+
+    final Function<? super T, ? extends V> valueSelector;
+
+    final int prefetch;
+
+    final int maxGroups;
+
+    final long idleTimeout;
+
+    final ScheduledExecutorService executor;
+
+    AsyncGroupByBounded(AsyncEnumerable<T> source, Function<? super T, ? extends K> keySelector,
+                        Function<? super T, ? extends V> valueSelector, int prefetch, int maxGroups,
+                        long idleTimeout, ScheduledExecutorService executor) {
+        this.source = source;
+        this.keySelector = keySelector;
+        this.valueSelector = valueSelector;
+        this.prefetch = prefetch;
+        this.maxGroups = maxGroups;
+        this.idleTimeout = idleTimeout;
+        this.executor = executor;
+    }
+
+    @Override
+    public AsyncEnumerator<GroupedAsyncEnumerable<V, K>> enumerator() {
+        return new GroupByBoundedEnumerator<>(source.enumerator(), keySelector, valueSelector,
+                prefetch, maxGroups, idleTimeout, executor);
+    }
+
+    /**
+     * Dispatches the source items into per-group queues; the dispatching is serialized
+     * by the AtomicInteger this class extends and it owns the group map.
+     * <p>
+     *     The source is pulled as long as there is no item waiting for room in a full
+     *     group, so a slow group only holds up the others once it is full.
+     * </p>
+     */
+    static final class GroupByBoundedEnumerator<T, K, V> extends AtomicInteger
+            implements AsyncEnumerator<GroupedAsyncEnumerable<V, K>>, BiConsumer<Boolean, Throwable>, Runnable {
+
+        /** Stands in for {@code null} values in the group queues. */
+        static final Object NULL_VALUE = new Object();
+
+        final AsyncEnumerator<T> source;
+
+        final Function<? super T, ? extends K> keySelector;
+
+        final Function<? super T, ? extends V> valueSelector;
+
+        final int prefetch;
+
+        final int maxGroups;
+
+        final long idleTimeout;
+
+        final ScheduledExecutorService executor;
+
+        /**
+         * The live groups in least-recently-dispatched-to order; a group is re-inserted
+         * when it receives an item, so the iteration order matches {@code lastAccess}.
+         */
+        final LinkedHashMap<K, BoundedGroup<K, V>> groups;
+
+        final ConcurrentLinkedQueue<BoundedGroup<K, V>> cancelledGroups;
+
+        final ConcurrentLinkedQueue<BoundedGroup<K, V>> newGroups;
+
+        final AtomicInteger mainWip;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        GroupedAsyncEnumerable<V, K> current;
+
+        boolean started;
+
+        volatile boolean sourceOutstanding;
+
+        boolean hasPending;
+
+        K pendingKey;
+
+        V pendingValue;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        boolean terminated;
+
+        volatile boolean mainDone;
+
+        volatile boolean mainCancelled;
+
+        boolean sourceCancelled;
+
+        volatile boolean timerScheduled;
+
+        volatile boolean evictIdle;
+
+        GroupByBoundedEnumerator(AsyncEnumerator<T> source, Function<? super T, ? extends K> keySelector,
+                                 Function<? super T, ? extends V> valueSelector, int prefetch, int maxGroups,
+                                 long idleTimeout, ScheduledExecutorService executor) {
+            this.source = source;
+            this.keySelector = keySelector;
+            this.valueSelector = valueSelector;
+            this.prefetch = prefetch;
+            this.maxGroups = maxGroups;
+            this.idleTimeout = idleTimeout;
+            this.executor = executor;
+            this.groups = new LinkedHashMap<>();
+            this.cancelledGroups = new ConcurrentLinkedQueue<>();
+            this.newGroups = new ConcurrentLinkedQueue<>();
+            this.mainWip = new AtomicInteger();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drainMain();
+            if (!started) {
+                started = true;
+                drain();
+            }
+            return cf;
+        }
+
+        @Override
+        public GroupedAsyncEnumerable<V, K> current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            if (!mainCancelled) {
+                mainCancelled = true;
+                drain();
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                error = throwable;
+                done = true;
+            } else if (aBoolean) {
+                T v = source.current();
+                try {
+                    pendingKey = keySelector.apply(v);
+                    pendingValue = valueSelector.apply(v);
+                    hasPending = true;
+                } catch (Throwable ex) {
+                    source.cancel();
+                    error = ex;
+                    done = true;
+                }
+            } else {
+                done = true;
+            }
+            sourceOutstanding = false;
+            drain();
+        }
+
+        @Override
+        public void run() {
+            timerScheduled = false;
+            evictIdle = true;
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                BoundedGroup<K, V> g;
+                while ((g = cancelledGroups.poll()) != null) {
+                    groups.remove(g.key, g);
+                }
+
+                if (evictIdle) {
+                    evictIdle = false;
+                    if (!terminated) {
+                        evictIdle(System.nanoTime());
+                    }
+                }
+
+                if (!sourceOutstanding) {
+                    if (done) {
+                        if (!terminated) {
+                            terminate();
+                        }
+                    } else if (hasPending) {
+                        dispatch();
+                    }
+                }
+
+                if (!terminated && !sourceCancelled) {
+                    if (mainCancelled && groups.isEmpty()) {
+                        sourceCancelled = true;
+                        hasPending = false;
+                        pendingKey = null;
+                        pendingValue = null;
+                        source.cancel();
+                    } else if (!sourceOutstanding && !done && !hasPending) {
+                        sourceOutstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                    }
+                }
+
+                if (executor != null && !terminated && !sourceCancelled && !timerScheduled && !groups.isEmpty()) {
+                    BoundedGroup<K, V> eldest = groups.values().iterator().next();
+                    timerScheduled = true;
+                    long delay = eldest.lastAccess + idleTimeout - System.nanoTime();
+                    executor.schedule(this, Math.max(0L, delay), TimeUnit.NANOSECONDS);
+                }
+            } while (decrementAndGet() != 0);
+        }
+
+        void dispatch() {
+            K key = pendingKey;
+            BoundedGroup<K, V> g = groups.get(key);
+            if (g != null && g.cancelled) {
+                groups.remove(key);
+                g = null;
+            }
+            if (g == null) {
+                if (mainCancelled) {
+                    hasPending = false;
+                    pendingKey = null;
+                    pendingValue = null;
+                    return;
+                }
+                if (groups.size() == maxGroups) {
+                    evict(groups.values().iterator().next());
+                }
+                g = new BoundedGroup<>(key, this, prefetch);
+                groups.put(key, g);
+                newGroups.offer(g);
+                drainMain();
+            }
+            if (g.queue.size() < prefetch) {
+                V v = pendingValue;
+                hasPending = false;
+                pendingKey = null;
+                pendingValue = null;
+                g.lastAccess = System.nanoTime();
+                groups.remove(key);
+                groups.put(key, g);
+                g.queue.offer(v == null ? NULL_VALUE : v);
+                g.drain();
+            }
+        }
+
+        void evictIdle(long now) {
+            Iterator<BoundedGroup<K, V>> it = groups.values().iterator();
+            while (it.hasNext()) {
+                BoundedGroup<K, V> g = it.next();
+                if (now - g.lastAccess < idleTimeout) {
+                    break;
+                }
+                it.remove();
+                g.done = true;
+                g.drain();
+            }
+        }
+
+        void evict(BoundedGroup<K, V> g) {
+            groups.remove(g.key);
+            g.done = true;
+            g.drain();
+        }
+
+        void terminate() {
+            terminated = true;
+            Throwable ex = error;
+            for (BoundedGroup<K, V> g : groups.values()) {
+                g.error = ex;
+                g.done = true;
+                g.drain();
+            }
+            groups.clear();
+            mainDone = true;
+            drainMain();
+        }
+
+        void drainMain() {
+            if (mainWip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    boolean d = mainDone;
+                    BoundedGroup<K, V> g = newGroups.poll();
+                    if (g != null) {
+                        current = g;
+                        completable = null;
+                        cf.complete(true);
+                    } else if (d) {
+                        completable = null;
+                        Throwable ex = error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (mainWip.decrementAndGet() != 0);
+        }
+    }
+
+    static final class BoundedGroup<K, V> extends AtomicInteger implements GroupedAsyncEnumerable<V, K>, AsyncEnumerator<V> {
+
+        final K key;
+
+        final GroupByBoundedEnumerator<?, K, V> parent;
+
+        final SpscArrayQueue<Object> queue;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        boolean once;
+
+        V current;
+
+        /** The System.nanoTime() of the last item dispatched to this group. */
+        long lastAccess;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        BoundedGroup(K key, GroupByBoundedEnumerator<?, K, V> parent, int prefetch) {
+            this.key = key;
+            this.parent = parent;
+            this.queue = new SpscArrayQueue<>(prefetch);
+            this.lastAccess = System.nanoTime();
+        }
+
+        @Override
+        public K key() {
+            return key;
+        }
+
+        @Override
+        public synchronized AsyncEnumerator<V> enumerator() {
+            if (!once) {
+                once = true;
+                return this;
+            }
+            return new AsyncError<V>(new IllegalStateException("Only one AsyncEnumerator allowed"));
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drain();
+            return cf;
+        }
+
+        @Override
+        public V current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.cancelledGroups.offer(this);
+                parent.drain();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    boolean d = done;
+                    Object v = queue.poll();
+                    if (v != null) {
+                        current = v == GroupByBoundedEnumerator.NULL_VALUE ? null : (V)v;
+                        completable = null;
+                        // the dispatcher may be waiting for room in this group
+                        parent.drain();
+                        cf.complete(true);
+                    } else if (d) {
+                        completable = null;
+                        Throwable ex = error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+}
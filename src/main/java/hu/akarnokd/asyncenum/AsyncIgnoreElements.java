@@ -61,7 +61,7 @@ final class AsyncIgnoreElements<T> implements AsyncEnumerable<T> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
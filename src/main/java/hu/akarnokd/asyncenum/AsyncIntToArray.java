@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+final class AsyncIntToArray implements AsyncEnumerable<int[]> {
+
+    final IntAsyncEnumerable source;
+
+    AsyncIntToArray(IntAsyncEnumerable source) {
+        this.source = source;
+    }
+
+    @Override
+    public AsyncEnumerator<int[]> enumerator() {
+        return new IntToArrayEnumerator(source.enumerator());
+    }
+
+    static final class IntToArrayEnumerator extends AtomicInteger
+    implements AsyncEnumerator<int[]>, BiConsumer<Boolean, Throwable> {
+
+        final IntAsyncEnumerator source;
+
+        int[] array;
+
+        int size;
+
+        int[] result;
+
+        CompletableFuture<Boolean> completable;
+
+        volatile boolean cancelled;
+
+        IntToArrayEnumerator(IntAsyncEnumerator source) {
+            this.source = source;
+            this.array = new int[16];
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            if (array == null) {
+                result = null;
+                return FALSE;
+            }
+            while (!cancelled) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    add(source.currentInt());
+                } else if (stage == FALSE) {
+                    finish();
+                    return TRUE;
+                } else {
+                    CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public int[] current() {
+            return result;
+        }
+
+        void add(int v) {
+            int[] a = array;
+            int s = size;
+            if (s == a.length) {
+                a = Arrays.copyOf(a, s + (s >> 1));
+                array = a;
+            }
+            a[s] = v;
+            size = s + 1;
+        }
+
+        void finish() {
+            result = Arrays.copyOf(array, size);
+            array = null;
+        }
+
+        void collectSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (cancelled) {
+                        return;
+                    }
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                array = null;
+                completable.completeExceptionally(throwable);
+                return;
+            }
+
+            if (aBoolean) {
+                add(source.currentInt());
+                collectSource();
+            } else {
+                finish();
+                completable.complete(true);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.cancel();
+        }
+    }
+}
@@ -18,7 +18,7 @@ package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
-import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
 
 final class AsyncInterval implements AsyncEnumerable<Long> {
 
@@ -28,33 +28,36 @@ final class AsyncInterval implements AsyncEnumerable<Long> {
 
     final TimeUnit unit;
 
-    final ScheduledExecutorService executor;
+    final TimedScheduler scheduler;
 
     AsyncInterval(long initialDelay, long period, TimeUnit unit, ScheduledExecutorService executor) {
         this.initialDelay = initialDelay;
         this.period = period;
         this.unit = unit;
-        this.executor = executor;
+        this.scheduler = TimedScheduler.from(executor);
     }
 
     @Override
     public AsyncEnumerator<Long> enumerator() {
         IntervalEnumerator enumerator = new IntervalEnumerator();
-        enumerator.task = executor.scheduleAtFixedRate(enumerator, initialDelay, period, unit);
+        enumerator.task = scheduler.handle(enumerator);
+        enumerator.task.schedulePeriodically(initialDelay, period, unit);
         return enumerator;
     }
 
     static final class IntervalEnumerator
             extends AtomicInteger
-            implements AsyncEnumerator<Long>, Runnable {
+            implements AsyncEnumerator<Long>, LongConsumer {
 
         final AtomicLong available;
 
-        Future<?> task;
+        TimedHandle task;
 
         long emitted;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         Long result;
 
@@ -65,7 +68,7 @@ final class AsyncInterval implements AsyncEnumerable<Long> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             drain();
             return cf;
@@ -77,7 +80,7 @@ final class AsyncInterval implements AsyncEnumerable<Long> {
         }
 
         @Override
-        public void run() {
+        public void accept(long tag) {
             available.getAndIncrement();
             drain();
         }
@@ -85,9 +88,11 @@ final class AsyncInterval implements AsyncEnumerable<Long> {
         void drain() {
             if (getAndIncrement() == 0) {
                 do {
-                    if (emitted != available.get()) {
+                    ReusableCompletionStage cf = completable;
+                    if (cf != null && emitted != available.get()) {
+                        completable = null;
                         result = emitted++;
-                        completable.complete(true);
+                        cf.complete(true);
                     }
                 } while (decrementAndGet() != 0);
             }
@@ -95,7 +100,7 @@ final class AsyncInterval implements AsyncEnumerable<Long> {
 
         @Override
         public void cancel() {
-            task.cancel(false);
+            task.dispose();
         }
     }
 }
@@ -69,7 +69,7 @@ final class AsyncLast<T> implements AsyncEnumerable<T> {
         void nextSource() {
             if (getAndIncrement() == 0) {
                 do {
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+
+final class AsyncLongFromArray implements LongAsyncEnumerable {
+
+    final long[] array;
+
+    AsyncLongFromArray(long[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public LongAsyncEnumerator enumerator() {
+        return new LongFromArrayEnumerator(array);
+    }
+
+    static final class LongFromArrayEnumerator implements LongAsyncEnumerator {
+
+        final long[] array;
+
+        int index;
+
+        long current;
+
+        LongFromArrayEnumerator(long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            int idx = index;
+            if (idx == array.length) {
+                return AsyncEnumerable.FALSE;
+            }
+            current = array[idx];
+            index = idx + 1;
+            return AsyncEnumerable.TRUE;
+        }
+
+        @Override
+        public long currentLong() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            // No action, consumer should stop calling moveNext().
+        }
+    }
+}
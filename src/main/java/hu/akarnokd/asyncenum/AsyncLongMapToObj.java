@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.LongFunction;
+
+final class AsyncLongMapToObj<R> implements AsyncEnumerable<R> {
+
+    final LongAsyncEnumerable source;
+
+    final LongFunction<? extends R> mapper;
+
+    AsyncLongMapToObj(LongAsyncEnumerable source, LongFunction<? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new LongMapToObjEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class LongMapToObjEnumerator<R> implements AsyncEnumerator<R> {
+
+        final LongAsyncEnumerator source;
+
+        final LongFunction<? extends R> mapper;
+
+        LongMapToObjEnumerator(LongAsyncEnumerator source, LongFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            return source.moveNext();
+        }
+
+        @Override
+        public R current() {
+            return mapper.apply(source.currentLong());
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncLongReduce implements LongAsyncEnumerable {
+
+    final LongAsyncEnumerable source;
+
+    final LongBinaryOperator reducer;
+
+    AsyncLongReduce(LongAsyncEnumerable source, LongBinaryOperator reducer) {
+        this.source = source;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public LongAsyncEnumerator enumerator() {
+        return new LongReduceEnumerator(source.enumerator(), reducer);
+    }
+
+    static final class LongReduceEnumerator extends AtomicInteger
+    implements LongAsyncEnumerator, BiConsumer<Boolean, Throwable> {
+
+        final LongAsyncEnumerator source;
+
+        final LongBinaryOperator reducer;
+
+        boolean hasValue;
+        long accumulator;
+
+        boolean done;
+
+        CompletableFuture<Boolean> completable;
+
+        volatile boolean cancelled;
+
+        LongReduceEnumerator(LongAsyncEnumerator source, LongBinaryOperator reducer) {
+            this.source = source;
+            this.reducer = reducer;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            if (done) {
+                return AsyncEnumerable.FALSE;
+            }
+            while (!cancelled) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == AsyncEnumerable.TRUE) {
+                    add(source.currentLong());
+                } else if (stage == AsyncEnumerable.FALSE) {
+                    done = true;
+                    return hasValue ? AsyncEnumerable.TRUE : AsyncEnumerable.FALSE;
+                } else {
+                    CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public long currentLong() {
+            return accumulator;
+        }
+
+        void add(long v) {
+            if (hasValue) {
+                accumulator = reducer.applyAsLong(accumulator, v);
+            } else {
+                hasValue = true;
+                accumulator = v;
+            }
+        }
+
+        void collectSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (cancelled) {
+                        return;
+                    }
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                done = true;
+                completable.completeExceptionally(throwable);
+                return;
+            }
+
+            if (aBoolean) {
+                add(source.currentLong());
+                collectSource();
+            } else {
+                done = true;
+                completable.complete(hasValue);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.cancel();
+        }
+    }
+}
@@ -41,6 +41,10 @@ final class AsyncMap<T, R> implements AsyncEnumerable<R> {
 
         final Function<? super T, ? extends R> mapper;
 
+        R current;
+
+        boolean hasCurrent;
+
         MapEnumerator(AsyncEnumerator<T> source, Function<? super T, ? extends R> mapper) {
             this.source = source;
             this.mapper = mapper;
@@ -48,12 +52,24 @@ final class AsyncMap<T, R> implements AsyncEnumerable<R> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
+            current = null;
+            hasCurrent = false;
             return source.moveNext();
         }
 
+        @Override
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super R> sink) {
+            Function<? super T, ? extends R> f = mapper;
+            return source.moveNextBatch(max, v -> sink.accept(f.apply(v)));
+        }
+
         @Override
         public R current() {
-            return mapper.apply(source.current());
+            if (!hasCurrent) {
+                current = mapper.apply(source.current());
+                hasCurrent = true;
+            }
+            return current;
         }
 
         @Override
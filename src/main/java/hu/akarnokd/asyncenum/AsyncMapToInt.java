@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.ToIntFunction;
+
+final class AsyncMapToInt<T> implements IntAsyncEnumerable {
+
+    final AsyncEnumerable<T> source;
+
+    final ToIntFunction<? super T> mapper;
+
+    AsyncMapToInt(AsyncEnumerable<T> source, ToIntFunction<? super T> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IntAsyncEnumerator enumerator() {
+        return new MapToIntEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToIntEnumerator<T> implements IntAsyncEnumerator {
+
+        final AsyncEnumerator<T> source;
+
+        final ToIntFunction<? super T> mapper;
+
+        MapToIntEnumerator(AsyncEnumerator<T> source, ToIntFunction<? super T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            return source.moveNext();
+        }
+
+        @Override
+        public int currentInt() {
+            return mapper.applyAsInt(source.current());
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
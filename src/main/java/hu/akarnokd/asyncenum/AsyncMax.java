@@ -81,7 +81,7 @@ final class AsyncMax<T> implements AsyncEnumerable<T> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
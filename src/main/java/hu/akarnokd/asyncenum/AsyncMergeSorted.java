@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.Comparator;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class AsyncMergeSorted<T> implements AsyncEnumerable<T> {
+
+    final AsyncEnumerable<? extends T>[] sources;
+
+    final Comparator<? super T> comparator;
+
+    final int prefetch;
+
+    AsyncMergeSorted(AsyncEnumerable<? extends T>[] sources, Comparator<? super T> comparator, int prefetch) {
+        this.sources = sources;
+        this.comparator = comparator;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        return new MergeSortedEnumerator<>(sources, comparator, prefetch);
+    }
+
+    /**
+     * Keeps the head item of each source in a binary min-heap; the smallest head can be
+     * emitted once every source that hasn't ended has a head available.
+     * @param <T> the value type
+     */
+    static final class MergeSortedEnumerator<T> extends AtomicInteger implements AsyncEnumerator<T> {
+
+        final MergeSortedInner<T>[] inners;
+
+        final Comparator<? super T> comparator;
+
+        /** The head item of each source, valid if the source's index is in the heap. */
+        final Object[] heads;
+
+        /** Source indexes ordered by their head item, the first {@code heapSize} are valid. */
+        final int[] heap;
+
+        int heapSize;
+
+        /** Indexes of the sources whose head has to be taken from their queue before emitting. */
+        final int[] needs;
+
+        int needsSize;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        T result;
+
+        boolean started;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        MergeSortedEnumerator(AsyncEnumerable<? extends T>[] sources, Comparator<? super T> comparator, int prefetch) {
+            int n = sources.length;
+            this.inners = new MergeSortedInner[n];
+            this.comparator = comparator;
+            this.heads = new Object[n];
+            this.heap = new int[n];
+            this.needs = new int[n];
+            for (int i = 0; i < n; i++) {
+                inners[i] = new MergeSortedInner<>(sources[i].enumerator(), this, prefetch);
+                needs[i] = n - 1 - i;
+            }
+            this.needsSize = n;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                for (MergeSortedInner<T> inner : inners) {
+                    inner.nextSource();
+                }
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelAll();
+        }
+
+        void cancelAll() {
+            for (MergeSortedInner<T> inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        void innerError(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error;
+                    if (ex != null) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+
+                    try {
+                        while (needsSize != 0) {
+                            int i = needs[needsSize - 1];
+                            MergeSortedInner<T> inner = inners[i];
+                            boolean d = inner.done;
+                            if (!inner.isEmpty()) {
+                                Object v = inner.poll();
+                                heads[i] = v == PrefetchQueue.NULL_ITEM ? null : v;
+                                needsSize--;
+                                offer(i);
+                            } else if (d) {
+                                needsSize--;
+                            } else {
+                                break;
+                            }
+                        }
+
+                        if (needsSize == 0) {
+                            if (heapSize == 0) {
+                                completable = null;
+                                cancelled = true;
+                                cf.complete(false);
+                                return;
+                            }
+                            int i = poll();
+                            result = (T)heads[i];
+                            heads[i] = null;
+                            needs[needsSize++] = i;
+                            completable = null;
+                            cf.complete(true);
+                        }
+                    } catch (Throwable exc) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.completeExceptionally(exc);
+                        return;
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+
+        /** Orders the heads by the comparator, then by source index to keep ties stable. */
+        @SuppressWarnings("unchecked")
+        boolean less(int i, int j) {
+            int c = comparator.compare((T)heads[i], (T)heads[j]);
+            return c < 0 || (c == 0 && i < j);
+        }
+
+        void offer(int index) {
+            int[] h = heap;
+            int k = heapSize++;
+            while (k > 0) {
+                int parent = (k - 1) >> 1;
+                int p = h[parent];
+                if (!less(index, p)) {
+                    break;
+                }
+                h[k] = p;
+                k = parent;
+            }
+            h[k] = index;
+        }
+
+        int poll() {
+            int[] h = heap;
+            int first = h[0];
+            int n = --heapSize;
+            if (n != 0) {
+                int last = h[n];
+                int k = 0;
+                for (;;) {
+                    int child = (k << 1) + 1;
+                    if (child >= n) {
+                        break;
+                    }
+                    int c = h[child];
+                    int right = child + 1;
+                    if (right < n && less(h[right], c)) {
+                        child = right;
+                        c = h[right];
+                    }
+                    if (!less(c, last)) {
+                        break;
+                    }
+                    h[k] = c;
+                    k = child;
+                }
+                h[k] = last;
+            }
+            return first;
+        }
+    }
+
+    static final class MergeSortedInner<T> extends PrefetchQueue<T> {
+
+        final MergeSortedEnumerator<T> parent;
+
+        MergeSortedInner(AsyncEnumerator<? extends T> source, MergeSortedEnumerator<T> parent, int prefetch) {
+            super(source, prefetch);
+            this.parent = parent;
+        }
+
+        @Override
+        void onSignal() {
+            parent.drain();
+        }
+
+        @Override
+        void onError(Throwable ex) {
+            parent.innerError(ex);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncMoveNextBatch {
+
+    /** The number of items the batch-aware consumers ask for at once. */
+    static final int BATCH_SIZE = 128;
+
+    private AsyncMoveNextBatch() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    static <T> CompletionStage<Boolean> moveNextBatch(
+            AsyncEnumerator<T> source, int max, Consumer<? super T> sink) {
+        for (int i = 0; i < max; i++) {
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == AsyncEnumerable.TRUE) {
+                sink.accept(source.current());
+            } else if (stage == AsyncEnumerable.FALSE) {
+                return AsyncEnumerable.FALSE;
+            } else {
+                MoveNextBatchTrampoline<T> trampoline = new MoveNextBatchTrampoline<>(source, max - i, sink);
+                AsyncEnumeratorHelper.whenComplete(stage, trampoline);
+                return trampoline.completable;
+            }
+        }
+        return AsyncEnumerable.TRUE;
+    }
+
+    static final class MoveNextBatchTrampoline<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+        final AsyncEnumerator<T> source;
+
+        final Consumer<? super T> sink;
+
+        final CompletableFuture<Boolean> completable;
+
+        int remaining;
+
+        MoveNextBatchTrampoline(AsyncEnumerator<T> source, int remaining, Consumer<? super T> sink) {
+            this.source = source;
+            this.remaining = remaining;
+            this.sink = sink;
+            this.completable = new CompletableFuture<>();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                completable.completeExceptionally(throwable);
+                return;
+            }
+            if (aBoolean) {
+                try {
+                    sink.accept(source.current());
+                } catch (Throwable ex) {
+                    source.cancel();
+                    completable.completeExceptionally(ex);
+                    return;
+                }
+                if (--remaining == 0) {
+                    completable.complete(true);
+                } else {
+                    moveNext();
+                }
+            } else {
+                completable.complete(false);
+            }
+        }
+
+        void moveNext() {
+            if (getAndIncrement() == 0) {
+                do {
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+    }
+}
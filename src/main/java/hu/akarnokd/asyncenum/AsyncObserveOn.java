@@ -17,6 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 
 final class AsyncObserveOn<T> implements AsyncEnumerable<T> {
 
@@ -34,21 +35,28 @@ final class AsyncObserveOn<T> implements AsyncEnumerable<T> {
         return new ObserveOnEnumerator<>(source.enumerator(), executor);
     }
 
-    static final class ObserveOnEnumerator<T> implements AsyncEnumerator<T> {
+    static final class ObserveOnEnumerator<T> implements AsyncEnumerator<T>, BiConsumer<Boolean, Throwable>, Runnable {
 
         final AsyncEnumerator<T> source;
 
         final Executor executor;
 
+        final ReusableCompletionStage completion;
+
+        Boolean value;
+
+        Throwable error;
+
         ObserveOnEnumerator(AsyncEnumerator<T> source, Executor executor) {
             this.source = source;
             this.executor = executor;
+            this.completion = new ReusableCompletionStage();
         }
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            AsyncCompletableFuture<Boolean> cf = new AsyncCompletableFuture<>();
-            source.moveNext().whenCompleteAsync(cf, executor);
+            ReusableCompletionStage cf = completion.reset();
+            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
             return cf;
         }
 
@@ -61,6 +69,23 @@ final class AsyncObserveOn<T> implements AsyncEnumerable<T> {
         public void cancel() {
             source.cancel();
         }
-    }
 
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            value = aBoolean;
+            error = throwable;
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            Throwable ex = error;
+            if (ex != null) {
+                error = null;
+                completion.completeExceptionally(ex);
+            } else {
+                completion.complete(value);
+            }
+        }
+    }
 }
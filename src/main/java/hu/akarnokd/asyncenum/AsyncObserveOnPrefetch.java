@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class AsyncObserveOnPrefetch<T> implements AsyncEnumerable<T> {
+
+    final AsyncEnumerable<T> source;
+
+    final Executor executor;
+
+    final int prefetch;
+
+    AsyncObserveOnPrefetch(AsyncEnumerable<T> source, Executor executor, int prefetch) {
+        this.source = source;
+        this.executor = executor;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        return new ObserveOnPrefetchEnumerator<>(source.enumerator(), executor, prefetch);
+    }
+
+    /**
+     * Pulls the source into a {@link PrefetchQueue} and completes the downstream
+     * {@code moveNext} calls from a drain task on the executor; a {@code moveNext}
+     * issued from within that task is served by the same task as long as there are items
+     * available. The drain is serialized by the AtomicInteger this class extends.
+     * @param <T> the element type
+     */
+    static final class ObserveOnPrefetchEnumerator<T> extends AtomicInteger
+            implements AsyncEnumerator<T>, Runnable {
+
+        final PrefetchQueue<T> queue;
+
+        final Executor executor;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        T current;
+
+        boolean started;
+
+        ObserveOnPrefetchEnumerator(AsyncEnumerator<T> source, Executor executor, int prefetch) {
+            this.queue = new ObserveOnQueue<>(source, prefetch, this);
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                queue.nextSource();
+            }
+            schedule();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            queue.cancel();
+        }
+
+        void schedule() {
+            if (getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            PrefetchQueue<T> q = queue;
+            do {
+                if (q.cancelled) {
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    boolean d = q.done;
+                    Object v = q.poll();
+                    if (v != null) {
+                        current = v == PrefetchQueue.NULL_ITEM ? null : (T)v;
+                        completable = null;
+                        cf.complete(true);
+                    } else if (d) {
+                        completable = null;
+                        Throwable ex = q.error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class ObserveOnQueue<T> extends PrefetchQueue<T> {
+
+        final ObserveOnPrefetchEnumerator<T> parent;
+
+        ObserveOnQueue(AsyncEnumerator<T> source, int prefetch, ObserveOnPrefetchEnumerator<T> parent) {
+            super(source, prefetch);
+            this.parent = parent;
+        }
+
+        @Override
+        void onSignal() {
+            parent.schedule();
+        }
+
+        @Override
+        void onError(Throwable ex) {
+            parent.schedule();
+        }
+    }
+}
@@ -44,7 +44,9 @@ final class AsyncOnErrorResume<T> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         boolean inFallback;
 
@@ -55,9 +57,9 @@ final class AsyncOnErrorResume<T> implements AsyncEnumerable<T> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.getPlain().moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(source.getPlain().moveNext(), this);
             return cf;
         }
 
@@ -69,7 +71,7 @@ final class AsyncOnErrorResume<T> implements AsyncEnumerable<T> {
         @Override
         @SuppressWarnings("unchecked")
         public void accept(Boolean aBoolean, Throwable throwable) {
-            CompletableFuture<Boolean> cf = completable;
+            ReusableCompletionStage cf = completable;
             if (inFallback) {
                 if (throwable != null) {
                     result = null;
@@ -81,7 +83,7 @@ final class AsyncOnErrorResume<T> implements AsyncEnumerable<T> {
                     inFallback = true;
                     result = null;
                     if (AsyncEnumeratorHelper.replace(source, (AsyncEnumerator<T>)resumeMapper.apply(throwable).enumerator())) {
-                        source.getPlain().moveNext().whenComplete(this);
+                        AsyncEnumeratorHelper.whenComplete(source.getPlain().moveNext(), this);
                     }
                     return;
                 }
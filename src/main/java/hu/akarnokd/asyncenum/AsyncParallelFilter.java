@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncParallelFilter<T> implements ParallelAsyncEnumerable<T> {
+
+    final ParallelAsyncEnumerable<T> source;
+
+    final Predicate<? super T> predicate;
+
+    AsyncParallelFilter(ParallelAsyncEnumerable<T> source, Predicate<? super T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    @Override
+    public List<ParallelAsyncEnumerator<T>> enumerators() {
+        List<ParallelAsyncEnumerator<T>> rails = source.enumerators();
+        List<ParallelAsyncEnumerator<T>> result = new ArrayList<>(rails.size());
+        for (ParallelAsyncEnumerator<T> rail : rails) {
+            result.add(new ParallelFilterEnumerator<>(rail, predicate));
+        }
+        return result;
+    }
+
+    static final class ParallelFilterEnumerator<T> extends AtomicInteger
+            implements ParallelAsyncEnumerator<T>, BiConsumer<Boolean, Throwable> {
+
+        final ParallelAsyncEnumerator<T> source;
+
+        final Predicate<? super T> predicate;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        ReusableCompletionStage completable;
+
+        T current;
+
+        ParallelFilterEnumerator(ParallelAsyncEnumerator<T> source, Predicate<? super T> predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            completable = completion.reset();
+            moveNextSource();
+            return completable;
+        }
+
+        void moveNextSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public long index() {
+            return source.index();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            ReusableCompletionStage cf = completable;
+            if (throwable != null) {
+                cf.completeExceptionally(throwable);
+                return;
+            }
+            if (aBoolean) {
+                T v = source.current();
+                boolean pass;
+                try {
+                    pass = predicate.test(v);
+                } catch (Throwable ex) {
+                    source.cancel();
+                    cf.completeExceptionally(ex);
+                    return;
+                }
+                if (pass) {
+                    current = v;
+                    cf.complete(true);
+                } else {
+                    moveNextSource();
+                }
+            } else {
+                cf.complete(false);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
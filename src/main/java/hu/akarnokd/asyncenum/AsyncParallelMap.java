@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.function.*;
+
+final class AsyncParallelMap<T, R> implements ParallelAsyncEnumerable<R> {
+
+    final ParallelAsyncEnumerable<T> source;
+
+    final Function<? super T, ? extends R> mapper;
+
+    AsyncParallelMap(ParallelAsyncEnumerable<T> source, Function<? super T, ? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    @Override
+    public List<ParallelAsyncEnumerator<R>> enumerators() {
+        List<ParallelAsyncEnumerator<T>> rails = source.enumerators();
+        List<ParallelAsyncEnumerator<R>> result = new ArrayList<>(rails.size());
+        for (ParallelAsyncEnumerator<T> rail : rails) {
+            result.add(new ParallelMapEnumerator<>(rail, mapper));
+        }
+        return result;
+    }
+
+    static final class ParallelMapEnumerator<T, R>
+            implements ParallelAsyncEnumerator<R>, BiConsumer<Boolean, Throwable> {
+
+        final ParallelAsyncEnumerator<T> source;
+
+        final Function<? super T, ? extends R> mapper;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        ReusableCompletionStage completable;
+
+        R current;
+
+        ParallelMapEnumerator(ParallelAsyncEnumerator<T> source, Function<? super T, ? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+            return cf;
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+
+        @Override
+        public long index() {
+            return source.index();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            ReusableCompletionStage cf = completable;
+            if (throwable != null) {
+                cf.completeExceptionally(throwable);
+                return;
+            }
+            if (aBoolean) {
+                // mapped on the rail's thread as the item arrives, not by whoever reads current()
+                try {
+                    current = mapper.apply(source.current());
+                } catch (Throwable ex) {
+                    source.cancel();
+                    cf.completeExceptionally(ex);
+                    return;
+                }
+                cf.complete(true);
+            } else {
+                cf.complete(false);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+
+/**
+ * Exposes the rails of a ParallelAsyncEnumerable as a sequence of AsyncEnumerables,
+ * each of which can be enumerated only once.
+ * @param <T> the value type
+ */
+final class AsyncParallelRails<T> implements AsyncEnumerable<AsyncEnumerable<T>> {
+
+    final ParallelAsyncEnumerable<T> source;
+
+    AsyncParallelRails(ParallelAsyncEnumerable<T> source) {
+        this.source = source;
+    }
+
+    @Override
+    public AsyncEnumerator<AsyncEnumerable<T>> enumerator() {
+        List<ParallelAsyncEnumerator<T>> rails = source.enumerators();
+        List<AsyncEnumerable<T>> result = new ArrayList<>(rails.size());
+        for (ParallelAsyncEnumerator<T> rail : rails) {
+            result.add(() -> rail);
+        }
+        return AsyncEnumerable.fromIterable(result).enumerator();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+final class AsyncParallelRunOn<T> implements ParallelAsyncEnumerable<T> {
+
+    final ParallelAsyncEnumerable<T> source;
+
+    final Executor executor;
+
+    AsyncParallelRunOn(ParallelAsyncEnumerable<T> source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    @Override
+    public List<ParallelAsyncEnumerator<T>> enumerators() {
+        List<ParallelAsyncEnumerator<T>> rails = source.enumerators();
+        List<ParallelAsyncEnumerator<T>> result = new ArrayList<>(rails.size());
+        for (ParallelAsyncEnumerator<T> rail : rails) {
+            result.add(new RunOnEnumerator<>(rail, executor));
+        }
+        return result;
+    }
+
+    static final class RunOnEnumerator<T> implements ParallelAsyncEnumerator<T>, BiConsumer<Boolean, Throwable>, Runnable {
+
+        final ParallelAsyncEnumerator<T> source;
+
+        final Executor executor;
+
+        final ReusableCompletionStage completion;
+
+        Boolean value;
+
+        Throwable error;
+
+        RunOnEnumerator(ParallelAsyncEnumerator<T> source, Executor executor) {
+            this.source = source;
+            this.executor = executor;
+            this.completion = new ReusableCompletionStage();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            ReusableCompletionStage cf = completion.reset();
+            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return source.current();
+        }
+
+        @Override
+        public long index() {
+            return source.index();
+        }
+
+        @Override
+        public void cancel() {
+            source.cancel();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            value = aBoolean;
+            error = throwable;
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            Throwable ex = error;
+            if (ex != null) {
+                error = null;
+                completion.completeExceptionally(ex);
+            } else {
+                completion.complete(value);
+            }
+        }
+    }
+}
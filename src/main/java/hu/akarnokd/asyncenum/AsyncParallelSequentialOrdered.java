@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
+
+final class AsyncParallelSequentialOrdered<T> implements AsyncEnumerable<T> {
+
+    final ParallelAsyncEnumerable<T> source;
+
+    final int prefetch;
+
+    AsyncParallelSequentialOrdered(ParallelAsyncEnumerable<T> source, int prefetch) {
+        this.source = source;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        return new SequentialOrderedEnumerator<>(source.enumerators(), prefetch);
+    }
+
+    static final class SequentialOrderedEnumerator<T> extends AtomicInteger implements AsyncEnumerator<T> {
+
+        final RailInner<T>[] inners;
+
+        final int prefetch;
+
+        final AtomicReference<Throwable> error;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        ReusableCompletionStage completable;
+
+        T current;
+
+        boolean started;
+
+        @SuppressWarnings("unchecked")
+        SequentialOrderedEnumerator(List<ParallelAsyncEnumerator<T>> rails, int prefetch) {
+            this.prefetch = prefetch;
+            this.error = new AtomicReference<>();
+            int n = rails.size();
+            this.inners = new RailInner[n];
+            for (int i = 0; i < n; i++) {
+                inners[i] = new RailInner<>(rails.get(i), this, prefetch);
+            }
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                for (RailInner<T> inner : inners) {
+                    inner.request(prefetch);
+                }
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            for (RailInner<T> inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        void innerError(Throwable ex) {
+            if (error.compareAndSet(null, ex)) {
+                cancel();
+            }
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            RailInner<T>[] a = inners;
+            do {
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        completable = null;
+                        cf.completeExceptionally(ex);
+                        continue;
+                    }
+
+                    RailInner<T> min = null;
+                    long minIndex = Long.MAX_VALUE;
+                    boolean waiting = false;
+                    for (RailInner<T> inner : a) {
+                        boolean d = inner.done;
+                        if (inner.queue.isEmpty()) {
+                            if (!d) {
+                                waiting = true;
+                            }
+                        } else {
+                            long idx = inner.queue.peekIndex();
+                            if (idx < minIndex) {
+                                minIndex = idx;
+                                min = inner;
+                            }
+                        }
+                    }
+
+                    if (waiting) {
+                        // the missing item may be stuck behind the buffered ones of another rail,
+                        // which may run at most prefetch items beyond its regular window
+                        if (min != null) {
+                            for (RailInner<T> inner : a) {
+                                if (!inner.queue.isEmpty() && inner.requested.get() - inner.taken < 2L * prefetch) {
+                                    inner.request(1);
+                                }
+                            }
+                        }
+                    } else if (min == null) {
+                        completable = null;
+                        cf.complete(false);
+                    } else {
+                        current = min.queue.poll();
+                        completable = null;
+                        min.consumed();
+                        cf.complete(true);
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class RailInner<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+        final ParallelAsyncEnumerator<T> source;
+
+        final SequentialOrderedEnumerator<T> parent;
+
+        final SpscIndexedQueue<T> queue;
+
+        final AtomicLong requested;
+
+        final int limit;
+
+        long produced;
+
+        int consumed;
+
+        /** The number of items taken by the merge, only accessed from its drain loop. */
+        long taken;
+
+        /** Cleared only after the item was queued, so the source isn't pulled before that. */
+        volatile boolean outstanding;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        RailInner(ParallelAsyncEnumerator<T> source, SequentialOrderedEnumerator<T> parent, int prefetch) {
+            this.source = source;
+            this.parent = parent;
+            this.queue = new SpscIndexedQueue<>(prefetch);
+            this.requested = new AtomicLong();
+            this.limit = prefetch - (prefetch >> 2);
+        }
+
+        void request(long n) {
+            requested.getAndAdd(n);
+            moveNext();
+        }
+
+        void consumed() {
+            taken++;
+            int c = consumed + 1;
+            if (c == limit) {
+                consumed = 0;
+                request(c);
+            } else {
+                consumed = c;
+            }
+        }
+
+        void moveNext() {
+            if (getAndIncrement() == 0) {
+                do {
+                    if (!outstanding && !done && !cancelled && produced != requested.get()) {
+                        outstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                    }
+                } while (decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean hasMore, Throwable throwable) {
+            if (throwable != null) {
+                done = true;
+                outstanding = false;
+                parent.innerError(throwable);
+                return;
+            }
+            if (hasMore) {
+                produced++;
+                queue.offer(source.current(), source.index());
+                outstanding = false;
+                parent.drain();
+                moveNext();
+            } else {
+                done = true;
+                outstanding = false;
+                parent.drain();
+            }
+        }
+
+        void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                source.cancel();
+            }
+        }
+    }
+}
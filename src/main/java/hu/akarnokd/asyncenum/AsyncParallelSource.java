@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncParallelSource<T> implements ParallelAsyncEnumerable<T> {
+
+    /** The number of items buffered per rail and prefetched by the merging operators. */
+    static final int DEFAULT_PREFETCH = 32;
+
+    final AsyncEnumerable<T> source;
+
+    final int rails;
+
+    final Function<? super T, ?> keySelector;
+
+    AsyncParallelSource(AsyncEnumerable<T> source, int rails, Function<? super T, ?> keySelector) {
+        this.source = source;
+        this.rails = rails;
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public int parallelism() {
+        return rails;
+    }
+
+    @Override
+    public List<ParallelAsyncEnumerator<T>> enumerators() {
+        return new DispatcherEnumerator<>(source.enumerator(), rails, keySelector, DEFAULT_PREFETCH).rails();
+    }
+
+    static final class DispatcherEnumerator<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable> {
+
+        final AsyncEnumerator<T> source;
+
+        final RailEnumerator<T>[] rails;
+
+        final Function<? super T, ?> keySelector;
+
+        final int prefetch;
+
+        final AtomicInteger cancelledRails;
+
+        volatile boolean outstanding;
+
+        boolean hasPending;
+
+        T pending;
+
+        long pendingIndex;
+
+        int pendingRail;
+
+        long index;
+
+        int railIndex;
+
+        Throwable error;
+
+        volatile boolean done;
+
+        @SuppressWarnings("unchecked")
+        DispatcherEnumerator(AsyncEnumerator<T> source, int n, Function<? super T, ?> keySelector, int prefetch) {
+            this.source = source;
+            this.keySelector = keySelector;
+            this.prefetch = prefetch;
+            this.cancelledRails = new AtomicInteger();
+            this.rails = new RailEnumerator[n];
+            for (int i = 0; i < n; i++) {
+                rails[i] = new RailEnumerator<>(this, prefetch);
+            }
+        }
+
+        List<ParallelAsyncEnumerator<T>> rails() {
+            return List.of(rails);
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            RailEnumerator<T>[] a = rails;
+            int n = a.length;
+            do {
+                if (!outstanding) {
+                    if (hasPending) {
+                        dispatch(a, n);
+                    }
+                    if (!hasPending && !done && cancelledRails.get() != n
+                            && (keySelector != null || hasRoom(a))) {
+                        outstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+
+        void dispatch(RailEnumerator<T>[] a, int n) {
+            if (keySelector != null) {
+                RailEnumerator<T> rail = a[pendingRail];
+                if (!rail.cancelled) {
+                    if (rail.queue.size() >= prefetch) {
+                        return;
+                    }
+                    rail.queue.offer(pending, pendingIndex);
+                    rail.drain();
+                }
+            } else {
+                int j = railIndex;
+                for (int k = 0; k < n; k++) {
+                    RailEnumerator<T> rail = a[j];
+                    if (++j == n) {
+                        j = 0;
+                    }
+                    if (!rail.cancelled && rail.queue.size() < prefetch) {
+                        railIndex = j;
+                        rail.queue.offer(pending, pendingIndex);
+                        rail.drain();
+                        break;
+                    }
+                }
+            }
+            hasPending = false;
+            pending = null;
+        }
+
+        boolean hasRoom(RailEnumerator<T>[] a) {
+            for (RailEnumerator<T> rail : a) {
+                if (!rail.cancelled && rail.queue.size() < prefetch) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                error = throwable;
+                done = true;
+            } else if (aBoolean) {
+                T v = source.current();
+                if (keySelector != null) {
+                    try {
+                        pendingRail = Math.floorMod(Objects.hashCode(keySelector.apply(v)), rails.length);
+                    } catch (Throwable ex) {
+                        source.cancel();
+                        error = ex;
+                        done = true;
+                    }
+                }
+                if (!done) {
+                    pending = v;
+                    pendingIndex = index++;
+                    hasPending = true;
+                }
+            } else {
+                done = true;
+            }
+            outstanding = false;
+            if (done) {
+                for (RailEnumerator<T> rail : rails) {
+                    rail.drain();
+                }
+            }
+            drain();
+        }
+
+        void cancelRail() {
+            if (cancelledRails.incrementAndGet() == rails.length) {
+                source.cancel();
+            }
+            drain();
+        }
+    }
+
+    static final class RailEnumerator<T> extends AtomicInteger implements ParallelAsyncEnumerator<T> {
+
+        final DispatcherEnumerator<T> parent;
+
+        final SpscIndexedQueue<T> queue;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        ReusableCompletionStage completable;
+
+        T current;
+
+        long currentIndex;
+
+        volatile boolean cancelled;
+
+        RailEnumerator(DispatcherEnumerator<T> parent, int prefetch) {
+            this.parent = parent;
+            this.queue = new SpscIndexedQueue<>(prefetch);
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drain();
+            parent.drain();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public long index() {
+            return currentIndex;
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.cancelRail();
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    boolean d = parent.done;
+                    if (!queue.isEmpty()) {
+                        currentIndex = queue.peekIndex();
+                        current = queue.poll();
+                        completable = null;
+                        parent.drain();
+                        cf.complete(true);
+                    } else if (d) {
+                        completable = null;
+                        Throwable ex = parent.error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+}
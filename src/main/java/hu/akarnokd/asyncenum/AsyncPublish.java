@@ -26,20 +26,31 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
 
     final Function<? super AsyncEnumerable<T>, ? extends AsyncEnumerable<R>> handler;
 
-    AsyncPublish(AsyncEnumerable<T> source, Function<? super AsyncEnumerable<T>, ? extends AsyncEnumerable<R>> handler) {
+    final int prefetch;
+
+    AsyncPublish(AsyncEnumerable<T> source, Function<? super AsyncEnumerable<T>, ? extends AsyncEnumerable<R>> handler,
+                 int prefetch) {
         this.source = source;
         this.handler = handler;
+        this.prefetch = prefetch;
     }
 
     @Override
     public AsyncEnumerator<R> enumerator() {
-        PublishCoordinator<T, R> coordinator = new PublishCoordinator<>();
+        PublishCoordinator<T, R> coordinator = new PublishCoordinator<>(prefetch);
         coordinator.output = handler.apply(coordinator).enumerator();
         coordinator.source = source.enumerator();
         coordinator.enumeratorReady();
         return coordinator;
     }
 
+    /**
+     * Multicasts the source items through a ring buffer; each enumerator tracks its own
+     * position and the source is pulled while the slowest of them lags behind by less
+     * than the buffer size.
+     * @param <T> the source value type
+     * @param <R> the output value type
+     */
     static final class PublishCoordinator<T, R> implements BiConsumer<Boolean, Throwable>, AsyncEnumerable<T>, AsyncEnumerator<R> {
 
         volatile AsyncEnumerator<T> source;
@@ -60,15 +71,32 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
 
         volatile boolean cancelled;
 
-        volatile CompletableFuture<Boolean> outputCompletable;
+        volatile ReusableCompletionStage outputCompletable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         R outputResult;
 
         volatile boolean sourceDone;
         volatile Throwable sourceError;
 
+        final Object[] ring;
+
+        final int mask;
+
+        final int prefetch;
+
+        /** The number of items put into the ring so far. */
+        volatile long producerIndex;
+
+        volatile boolean sourceOutstanding;
+
         @SuppressWarnings("unchecked")
-        PublishCoordinator() {
+        PublishCoordinator(int prefetch) {
+            int c = 1 << (32 - Integer.numberOfLeadingZeros(prefetch - 1));
+            ring = new Object[c];
+            mask = c - 1;
+            this.prefetch = prefetch;
             enumerators = new AtomicReference<>(EMPTY);
             enumeratorWip = new AtomicInteger();
             sourceWip = new AtomicInteger();
@@ -130,20 +158,21 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
             if (enumeratorWip.getAndIncrement() == 0) {
                 do {
                     AsyncEnumerator<T> en = source;
-                    if (en != null) {
+                    if (en != null && !sourceOutstanding && !sourceDone) {
                         PublishEnumerator<T, R>[] ens = enumerators.getAcquire();
                         boolean canRequest = ens.length != 0;
+                        long p = producerIndex;
                         for (PublishEnumerator<T, R> pe : ens) {
-                            if (!pe.cancelled && pe.requested == pe.emitted) {
+                            // an enumerator may lag behind by prefetch - 1 items, plus the one it waits for
+                            long lag = p - pe.index;
+                            if (lag >= prefetch || (lag == prefetch - 1 && pe.completable == null)) {
                                 canRequest = false;
                                 break;
                             }
                         }
 
                         if (canRequest) {
-                            for (PublishEnumerator<T, R> pe : ens) {
-                                pe.emitted++;
-                            }
+                            sourceOutstanding = true;
                             nextSource(en);
                         }
                     }
@@ -157,7 +186,7 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
                     if (cancelled) {
                         return;
                     }
-                    en.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
                 } while (sourceWip.decrementAndGet() != 0);
             }
         }
@@ -165,17 +194,16 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
         @Override
         public AsyncEnumerator<T> enumerator() {
             PublishEnumerator<T, R> pe = new PublishEnumerator<>(this);
-            if (!add(pe)) {
-                pe.error = sourceError;
-                pe.done = sourceDone;
-            }
-            pe.drain();
+            // joins at the current position; until then the coordinator sees it as not lagging
+            pe.index = Long.MAX_VALUE;
+            add(pe);
+            pe.index = producerIndex;
             return pe;
         }
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             outputCompletable = cf;
             nextOutput();
             return cf;
@@ -191,24 +219,25 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
         public void accept(Boolean aBoolean, Throwable throwable) {
             if (throwable != null) {
                 sourceError = throwable;
+                sourceDone = true;
                 for (PublishEnumerator<T, R> en : enumerators.getAndSet(TERMINATED)) {
-                    en.error = throwable;
                     en.drain();
                 }
                 return;
             }
 
             if (aBoolean) {
-                T v = source.current();
+                long p = producerIndex;
+                ring[(int)p & mask] = source.current();
+                producerIndex = p + 1;
+                sourceOutstanding = false;
                 for (PublishEnumerator<T, R> en : enumerators.getAcquire()) {
-                    en.result = v;
-                    en.hasResult = true;
                     en.drain();
                 }
+                enumeratorReady();
             } else {
                 sourceDone = true;
                 for (PublishEnumerator<T, R> en : enumerators.getAndSet(TERMINATED)) {
-                    en.done = true;
                     en.drain();
                 }
             }
@@ -236,7 +265,7 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
                     if (cancelled) {
                         return;
                     }
-                    output.moveNext().whenComplete(this::acceptOutput);
+                    AsyncEnumeratorHelper.whenComplete(output.moveNext(), this::acceptOutput);
                 } while (outputWip.decrementAndGet() != 0);
             }
         }
@@ -252,19 +281,14 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
 
             final PublishCoordinator<T, R> parent;
 
-            volatile long requested;
-            long emitted;
-
-            volatile CompletableFuture<Boolean> completable;
+            /** The position of the next item to read from the ring. */
+            volatile long index;
 
-            T result;
-            volatile boolean hasResult;
-            volatile boolean done;
-            volatile Throwable error;
+            volatile ReusableCompletionStage completable;
 
-            volatile boolean cancelled;
+            final ReusableCompletionStage completion = new ReusableCompletionStage();
 
-            boolean once;
+            T result;
 
             PublishEnumerator(PublishCoordinator<T, R> parent) {
                 this.parent = parent;
@@ -272,17 +296,13 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
 
             @Override
             public CompletionStage<Boolean> moveNext() {
-                if (once) {
-                    result = null;
-                    hasResult = false;
-                } else {
-                    once = true;
-                }
-                CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                result = null;
+                ReusableCompletionStage cf = completion.reset();
                 completable = cf;
-                requested = requested + 1;
-                parent.enumeratorReady();
                 drain();
+                if (completable != null) {
+                    parent.enumeratorReady();
+                }
                 return cf;
             }
 
@@ -293,31 +313,35 @@ final class AsyncPublish<T, R> implements AsyncEnumerable<R> {
 
             @Override
             public void cancel() {
-                cancelled = true;
                 parent.remove(this);
                 parent.enumeratorReady();
             }
 
+            @SuppressWarnings("unchecked")
             void drain() {
                 if (getAndIncrement() == 0) {
                     do {
-                        CompletableFuture<Boolean> cf = completable;
+                        ReusableCompletionStage cf = completable;
                         if (cf != null) {
-                            Throwable ex = error;
-                            if (ex != null) {
+                            PublishCoordinator<T, R> p = parent;
+                            boolean d = p.sourceDone;
+                            long i = index;
+                            if (i != p.producerIndex) {
+                                result = (T)p.ring[(int)i & p.mask];
+                                index = i + 1;
                                 completable = null;
-                                cf.completeExceptionally(ex);
-                                return;
-                            }
-                            if (done) {
+                                p.enumeratorReady();
+                                cf.complete(true);
+                            } else if (d) {
                                 completable = null;
-                                cf.complete(false);
+                                Throwable ex = p.sourceError;
+                                if (ex != null) {
+                                    cf.completeExceptionally(ex);
+                                } else {
+                                    cf.complete(false);
+                                }
                                 return;
                             }
-                            if (hasResult) {
-                                completable = null;
-                                cf.complete(true);
-                            }
                         }
                     } while (decrementAndGet() != 0);
                 }
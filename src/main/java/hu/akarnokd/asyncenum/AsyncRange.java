@@ -60,6 +60,19 @@ final class AsyncRange implements AsyncEnumerable<Integer> {
             return TRUE;
         }
 
+        @Override
+        public CompletionStage<Boolean> moveNextBatch(int max, Consumer<? super Integer> sink) {
+            current = null;
+            int idx = index;
+            int e = end;
+            for (int i = 0; i < max && idx != e; i++) {
+                int v = idx;
+                index = ++idx;
+                sink.accept(v);
+            }
+            return idx == e ? FALSE : TRUE;
+        }
+
         @Override
         public Integer current() {
             return current;
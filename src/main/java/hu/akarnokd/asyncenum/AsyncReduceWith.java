@@ -82,7 +82,7 @@ final class AsyncReduceWith<T, R> implements AsyncEnumerable<R> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -53,7 +53,9 @@ final class AsyncRepeat<T> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         RepeatEnumerator(AsyncEnumerable<T> source, long times, BooleanSupplier stop) {
             this.source = source;
@@ -64,7 +66,7 @@ final class AsyncRepeat<T> implements AsyncEnumerable<T> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             nextItem();
             return cf;
@@ -83,7 +85,7 @@ final class AsyncRepeat<T> implements AsyncEnumerable<T> {
         void nextItem() {
             if (getAndIncrement() == 0) {
                 do {
-                    current.get().moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(current.get().moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
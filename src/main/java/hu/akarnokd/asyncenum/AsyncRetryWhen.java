@@ -53,7 +53,9 @@ public class AsyncRetryWhen<T, S> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         RetryWhenEnumerator(AsyncEnumerable<T> source, S state, BiFunction<? super S, ? super Throwable, ? extends CompletionStage<Boolean>> completer) {
             this.source = source;
@@ -64,7 +66,7 @@ public class AsyncRetryWhen<T, S> implements AsyncEnumerable<T> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             nextItem();
             return cf;
@@ -78,7 +80,7 @@ public class AsyncRetryWhen<T, S> implements AsyncEnumerable<T> {
         void nextItem() {
             if (getAndIncrement() == 0) {
                 do {
-                    current.get().moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(current.get().moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Shares a single enumeration of the source among the concurrently active enumerators,
+ * connecting on the first {@code enumerator()} call and disconnecting when the last
+ * enumerator cancels; a terminated connection is replaced upon the next {@code enumerator()} call.
+ * @param <T> the value type
+ */
+final class AsyncShare<T> implements AsyncEnumerable<T> {
+
+    final AsyncEnumerable<T> source;
+
+    final int replay;
+
+    final int prefetch;
+
+    final AtomicReference<ShareConnection<T>> connection;
+
+    AsyncShare(AsyncEnumerable<T> source, int replay, int prefetch) {
+        this.source = source;
+        this.replay = replay;
+        this.prefetch = prefetch;
+        this.connection = new AtomicReference<>();
+    }
+
+    @Override
+    public AsyncEnumerator<T> enumerator() {
+        ShareEnumerator<T> en = new ShareEnumerator<>();
+        for (;;) {
+            ShareConnection<T> conn = connection.getAcquire();
+            if (conn == null || conn.enumerators.getAcquire() == ShareConnection.TERMINATED) {
+                ShareConnection<T> next = new ShareConnection<>(this, replay, prefetch);
+                if (!connection.compareAndSet(conn, next)) {
+                    continue;
+                }
+                AsyncEnumerator<T> src = source.enumerator();
+                next.source = src;
+                if (next.cancelled) {
+                    src.cancel();
+                }
+                conn = next;
+            }
+            if (conn.join(en)) {
+                conn.enumeratorReady();
+                return en;
+            }
+        }
+    }
+
+    /**
+     * Buffers the source items in a ring; each enumerator tracks its own position and
+     * the source is pulled while every enumerator lags behind by less than {@code prefetch}.
+     * @param <T> the value type
+     */
+    static final class ShareConnection<T> implements BiConsumer<Boolean, Throwable> {
+
+        static final ShareEnumerator[] EMPTY = new ShareEnumerator[0];
+
+        static final ShareEnumerator[] TERMINATED = new ShareEnumerator[0];
+
+        final AsyncShare<T> parent;
+
+        final AtomicReference<ShareEnumerator<T>[]> enumerators;
+
+        final AtomicInteger wip;
+
+        final Object[] ring;
+
+        final int mask;
+
+        final int replay;
+
+        final int prefetch;
+
+        volatile AsyncEnumerator<T> source;
+
+        /** The number of items put into the ring so far. */
+        volatile long producerIndex;
+
+        volatile boolean sourceOutstanding;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        ShareConnection(AsyncShare<T> parent, int replay, int prefetch) {
+            this.parent = parent;
+            this.replay = replay;
+            this.prefetch = prefetch;
+            // a joining enumerator may miss one pull decision, hence the extra room beyond the replay
+            int n = replay + prefetch;
+            int c = 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
+            this.ring = new Object[c];
+            this.mask = c - 1;
+            this.enumerators = new AtomicReference<>(EMPTY);
+            this.wip = new AtomicInteger();
+        }
+
+        boolean join(ShareEnumerator<T> en) {
+            en.parent = this;
+            // not lagging until its starting position is known
+            en.index = Long.MAX_VALUE;
+            for (;;) {
+                ShareEnumerator<T>[] a = enumerators.getAcquire();
+                if (a == TERMINATED) {
+                    return false;
+                }
+                int n = a.length;
+                @SuppressWarnings("unchecked")
+                ShareEnumerator<T>[] b = new ShareEnumerator[n + 1];
+                System.arraycopy(a, 0, b, 0, n);
+                b[n] = en;
+                if (enumerators.compareAndSet(a, b)) {
+                    break;
+                }
+            }
+            en.index = Math.max(0L, producerIndex - replay);
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        void remove(ShareEnumerator<T> en) {
+            for (;;) {
+                ShareEnumerator<T>[] a = enumerators.getAcquire();
+                int n = a.length;
+                if (n == 0) {
+                    return;
+                }
+
+                int j = -1;
+                for (int i = 0; i < n; i++) {
+                    if (a[i] == en) {
+                        j = i;
+                        break;
+                    }
+                }
+
+                if (j < 0) {
+                    return;
+                }
+                ShareEnumerator<T>[] b;
+                if (n == 1) {
+                    b = TERMINATED;
+                } else {
+                    b = new ShareEnumerator[n - 1];
+                    System.arraycopy(a, 0, b, 0, j);
+                    System.arraycopy(a, j + 1, b, j, n - j - 1);
+                }
+                if (enumerators.compareAndSet(a, b)) {
+                    if (b == TERMINATED) {
+                        disconnect();
+                    } else {
+                        enumeratorReady();
+                    }
+                    return;
+                }
+            }
+        }
+
+        void disconnect() {
+            cancelled = true;
+            parent.connection.compareAndSet(this, null);
+            AsyncEnumerator<T> src = source;
+            if (src != null) {
+                src.cancel();
+            }
+        }
+
+        void enumeratorReady() {
+            if (wip.getAndIncrement() == 0) {
+                do {
+                    AsyncEnumerator<T> src = source;
+                    if (src != null && !sourceOutstanding && !done && !cancelled) {
+                        ShareEnumerator<T>[] ens = enumerators.getAcquire();
+                        boolean canRequest = ens.length != 0;
+                        long p = producerIndex;
+                        for (ShareEnumerator<T> en : ens) {
+                            if (p - en.index >= prefetch) {
+                                canRequest = false;
+                                break;
+                            }
+                        }
+
+                        if (canRequest) {
+                            sourceOutstanding = true;
+                            AsyncEnumeratorHelper.whenComplete(src.moveNext(), this);
+                        }
+                    }
+                } while (wip.decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (cancelled) {
+                return;
+            }
+            if (throwable != null) {
+                error = throwable;
+                terminate();
+            } else if (aBoolean) {
+                long p = producerIndex;
+                ring[(int)p & mask] = source.current();
+                producerIndex = p + 1;
+                sourceOutstanding = false;
+                for (ShareEnumerator<T> en : enumerators.getAcquire()) {
+                    en.drain();
+                }
+                enumeratorReady();
+            } else {
+                terminate();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void terminate() {
+            done = true;
+            parent.connection.compareAndSet(this, null);
+            for (ShareEnumerator<T> en : enumerators.getAndSet(TERMINATED)) {
+                en.drain();
+            }
+        }
+    }
+
+    static final class ShareEnumerator<T> extends AtomicInteger implements AsyncEnumerator<T> {
+
+        ShareConnection<T> parent;
+
+        /** The position of the next item to read from the ring. */
+        volatile long index;
+
+        volatile ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        T result;
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drain();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            parent.remove(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (getAndIncrement() == 0) {
+                do {
+                    ReusableCompletionStage cf = completable;
+                    if (cf != null) {
+                        ShareConnection<T> p = parent;
+                        boolean d = p.done;
+                        long i = index;
+                        if (i != Long.MAX_VALUE) {
+                            if (i != p.producerIndex) {
+                                result = (T)p.ring[(int)i & p.mask];
+                                index = i + 1;
+                                completable = null;
+                                p.enumeratorReady();
+                                cf.complete(true);
+                            } else if (d) {
+                                completable = null;
+                                Throwable ex = p.error;
+                                if (ex != null) {
+                                    cf.completeExceptionally(ex);
+                                } else {
+                                    cf.complete(false);
+                                }
+                                return;
+                            }
+                        }
+                    }
+                } while (decrementAndGet() != 0);
+            }
+        }
+    }
+}
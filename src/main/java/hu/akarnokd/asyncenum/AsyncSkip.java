@@ -54,17 +54,34 @@ final class AsyncSkip<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             if (n > 0L) {
-                CompletableFuture<Boolean> nx = cf;
-                if (getAndIncrement() == 0) {
-                    do {
-                        source.moveNext().whenComplete(this);
-                    } while (decrementAndGet() != 0);
+                for (;;) {
+                    CompletionStage<Boolean> stage = source.moveNext();
+                    if (stage == TRUE) {
+                        if (--n <= 0L) {
+                            cf = null;
+                            return TRUE;
+                        }
+                    } else if (stage == FALSE) {
+                        cf = null;
+                        return FALSE;
+                    } else {
+                        CompletableFuture<Boolean> nx = cf;
+                        AsyncEnumeratorHelper.whenComplete(stage, this);
+                        return nx;
+                    }
                 }
-                return nx;
             }
             return source.moveNext();
         }
 
+        void moveNextSource() {
+            if (getAndIncrement() == 0) {
+                do {
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                } while (decrementAndGet() != 0);
+            }
+        }
+
         @Override
         public T current() {
             return source.current();
@@ -83,7 +100,7 @@ final class AsyncSkip<T> implements AsyncEnumerable<T> {
                     cf = null;
                     nx.complete(true);
                 } else {
-                    moveNext();
+                    moveNextSource();
                 }
             } else {
                 cf = null;
@@ -49,7 +49,9 @@ final class AsyncSkipLast<T> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         volatile boolean cancelled;
 
@@ -62,10 +64,26 @@ final class AsyncSkipLast<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
-            completable = cf;
-            nextSource();
-            return cf;
+            while (!cancelled) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    if (n == deque.size()) {
+                        result = deque.poll();
+                        deque.offer(source.current());
+                        return TRUE;
+                    }
+                    deque.offer(source.current());
+                } else if (stage == FALSE) {
+                    deque.clear();
+                    return FALSE;
+                } else {
+                    ReusableCompletionStage cf = completion.reset();
+                    completable = cf;
+                    AsyncEnumeratorHelper.whenComplete(stage, this);
+                    return cf;
+                }
+            }
+            return new CompletableFuture<>();
         }
 
         @Override
@@ -79,7 +97,7 @@ final class AsyncSkipLast<T> implements AsyncEnumerable<T> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
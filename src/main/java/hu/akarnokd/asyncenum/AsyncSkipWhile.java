@@ -46,7 +46,9 @@ final class AsyncSkipWhile<T> implements AsyncEnumerable<T> {
 
         boolean passThrough;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T current;
 
@@ -58,7 +60,21 @@ final class AsyncSkipWhile<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             current = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            if (passThrough) {
+                CompletionStage<Boolean> stage = source.moveNext();
+                if (stage == TRUE) {
+                    current = source.current();
+                    return TRUE;
+                }
+                if (stage == FALSE) {
+                    return FALSE;
+                }
+                ReusableCompletionStage cf = completion.reset();
+                completable = cf;
+                AsyncEnumeratorHelper.whenComplete(stage, this);
+                return cf;
+            }
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             nextSource();
             return cf;
@@ -67,7 +83,7 @@ final class AsyncSkipWhile<T> implements AsyncEnumerable<T> {
         void nextSource() {
             if (getAndIncrement() == 0) {
                 do {
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
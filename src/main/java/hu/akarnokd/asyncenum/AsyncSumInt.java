@@ -80,7 +80,7 @@ final class AsyncSumInt<T> implements AsyncEnumerable<Integer> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -80,7 +80,7 @@ final class AsyncSumLong<T> implements AsyncEnumerable<Long> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
@@ -43,7 +43,9 @@ final class AsyncSwitchIfEmpty<T> implements AsyncEnumerable<T> {
 
         AsyncEnumerable<T> fallback;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T result;
 
@@ -57,9 +59,9 @@ final class AsyncSwitchIfEmpty<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.getPlain().moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(source.getPlain().moveNext(), this);
             return cf;
         }
 
@@ -94,7 +96,7 @@ final class AsyncSwitchIfEmpty<T> implements AsyncEnumerable<T> {
                     AsyncEnumerator<T> fb = fallback.enumerator();
                     fallback = null;
                     if (AsyncEnumeratorHelper.replace(source, fb)) {
-                        fb.moveNext().whenComplete(this);
+                        AsyncEnumeratorHelper.whenComplete(fb.moveNext(), this);
                     }
                 }
             }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+final class AsyncSwitchMap<T, R> implements AsyncEnumerable<R> {
+
+    final AsyncEnumerable<T> source;
+
+    final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
+
+    AsyncSwitchMap(AsyncEnumerable<T> source, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new SwitchMapEnumerator<>(source.enumerator(), mapper);
+    }
+
+    /**
+     * Keeps pulling the upstream and, for each of its items, swaps in a new inner
+     * enumerator and cancels the previous one; results of a replaced inner are dropped.
+     * @param <T> the upstream value type
+     * @param <R> the result type
+     */
+    static final class SwitchMapEnumerator<T, R> extends AtomicInteger
+            implements AsyncEnumerator<R>, BiConsumer<Boolean, Throwable> {
+
+        @SuppressWarnings("rawtypes")
+        static final SwitchInner CANCELLED = new SwitchInner<>(null, null);
+
+        final AsyncEnumerator<T> upstream;
+
+        final Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper;
+
+        final AtomicReference<SwitchInner<R>> active;
+
+        final AtomicInteger upstreamWip;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        R result;
+
+        boolean started;
+
+        volatile boolean upstreamDone;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        SwitchMapEnumerator(AsyncEnumerator<T> upstream, Function<? super T, ? extends AsyncEnumerable<? extends R>> mapper) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+            this.active = new AtomicReference<>();
+            this.upstreamWip = new AtomicInteger();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                moveNextUpstream();
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public R current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            cancelActive();
+        }
+
+        @SuppressWarnings("unchecked")
+        void cancelActive() {
+            SwitchInner<R> inner = active.getAndSet(CANCELLED);
+            if (inner != null && inner != CANCELLED) {
+                inner.cancel();
+            }
+        }
+
+        /**
+         * Makes the given inner the active one and cancels the previous one, unless
+         * the enumerator has been cancelled, in which case the given inner is cancelled.
+         */
+        boolean switchTo(SwitchInner<R> next) {
+            for (;;) {
+                SwitchInner<R> current = active.getAcquire();
+                if (current == CANCELLED) {
+                    next.cancel();
+                    return false;
+                }
+                if (active.compareAndSet(current, next)) {
+                    if (current != null) {
+                        current.cancel();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        void moveNextUpstream() {
+            if (upstreamWip.getAndIncrement() == 0) {
+                do {
+                    if (!cancelled) {
+                        AsyncEnumeratorHelper.whenComplete(upstream.moveNext(), this);
+                    }
+                } while (upstreamWip.decrementAndGet() != 0);
+            }
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                innerError(throwable);
+                return;
+            }
+            if (aBoolean) {
+                AsyncEnumerator<? extends R> en;
+                try {
+                    en = mapper.apply(upstream.current()).enumerator();
+                } catch (Throwable ex) {
+                    upstream.cancel();
+                    innerError(ex);
+                    return;
+                }
+                if (switchTo(new SwitchInner<>(en, this))) {
+                    drain();
+                    moveNextUpstream();
+                }
+            } else {
+                upstreamDone = true;
+                drain();
+            }
+        }
+
+        void innerError(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error;
+                    if (ex != null) {
+                        completable = null;
+                        cancel();
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+
+                    boolean d = upstreamDone;
+                    SwitchInner<R> inner = active.get();
+                    if (inner == CANCELLED) {
+                        return;
+                    }
+                    int s = inner != null ? inner.state : SwitchInner.DONE;
+                    if (s == SwitchInner.VALUE) {
+                        result = inner.value;
+                        inner.value = null;
+                        inner.state = SwitchInner.IDLE;
+                        completable = null;
+                        cf.complete(true);
+                    } else if (s == SwitchInner.IDLE) {
+                        inner.state = SwitchInner.OUTSTANDING;
+                        AsyncEnumeratorHelper.whenComplete(inner.source.moveNext(), inner);
+                    } else if (s == SwitchInner.DONE && d) {
+                        completable = null;
+                        cancelled = true;
+                        cf.complete(false);
+                        return;
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class SwitchInner<R> implements BiConsumer<Boolean, Throwable> {
+
+        static final int IDLE = 0;
+        static final int OUTSTANDING = 1;
+        static final int VALUE = 2;
+        static final int DONE = 3;
+
+        final AsyncEnumerator<? extends R> source;
+
+        final SwitchMapEnumerator<?, R> parent;
+
+        /** Written by the drain loop and by this inner's moveNext completion, never concurrently. */
+        volatile int state;
+
+        R value;
+
+        SwitchInner(AsyncEnumerator<? extends R> source, SwitchMapEnumerator<?, R> parent) {
+            this.source = source;
+            this.parent = parent;
+        }
+
+        void cancel() {
+            source.cancel();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (parent.active.get() != this) {
+                return;
+            }
+            if (throwable != null) {
+                state = DONE;
+                parent.innerError(throwable);
+            } else if (aBoolean) {
+                value = source.current();
+                state = VALUE;
+                parent.drain();
+            } else {
+                state = DONE;
+                parent.drain();
+            }
+        }
+    }
+}
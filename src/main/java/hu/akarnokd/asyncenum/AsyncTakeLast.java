@@ -50,7 +50,9 @@ final class AsyncTakeLast<T> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         volatile boolean cancelled;
 
@@ -72,7 +74,7 @@ final class AsyncTakeLast<T> implements AsyncEnumerable<T> {
                 result = deque.poll();
                 return TRUE;
             } else {
-                CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                ReusableCompletionStage cf = completion.reset();
                 completable = cf;
                 nextSource();
                 return cf;
@@ -90,7 +92,7 @@ final class AsyncTakeLast<T> implements AsyncEnumerable<T> {
                     if (cancelled) {
                         return;
                     }
-                    source.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
                 } while (decrementAndGet() != 0);
             }
         }
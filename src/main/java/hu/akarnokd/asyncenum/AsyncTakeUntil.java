@@ -35,7 +35,7 @@ final class AsyncTakeUntil<T, U> implements AsyncEnumerable<T> {
     public AsyncEnumerator<T> enumerator() {
         AsyncEnumerator<U> otherEnum = other.enumerator();
         TakeUntilEnumerator<T, U> main = new TakeUntilEnumerator<>(otherEnum);
-        otherEnum.moveNext().whenComplete(main::acceptOther);
+        AsyncEnumeratorHelper.whenComplete(otherEnum.moveNext(), main::acceptOther);
         AsyncEnumeratorHelper.replace(main.source, source.enumerator());
         return main;
     }
@@ -68,7 +68,7 @@ final class AsyncTakeUntil<T, U> implements AsyncEnumerable<T> {
                 AsyncEnumerator<T> en = source.getAcquire();
                 if (compareAndSet(curr, next)) {
                     current = next;
-                    en.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
                     return next;
                 }
             }
@@ -41,7 +41,9 @@ final class AsyncTakeUntilPredicate<T> implements AsyncEnumerable<T> {
 
         final Predicate<? super T> stopPredicate;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T current;
 
@@ -59,9 +61,21 @@ final class AsyncTakeUntilPredicate<T> implements AsyncEnumerable<T> {
                 source.cancel();
                 return FALSE;
             }
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == TRUE) {
+                T v = source.current();
+                current = v;
+                if (stopPredicate.test(v)) {
+                    stop = true;
+                }
+                return TRUE;
+            }
+            if (stage == FALSE) {
+                return FALSE;
+            }
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(stage, this);
             return cf;
         }
 
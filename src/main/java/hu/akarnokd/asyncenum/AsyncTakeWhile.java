@@ -41,7 +41,9 @@ final class AsyncTakeWhile<T> implements AsyncEnumerable<T> {
 
         final Predicate<? super T> predicate;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T current;
 
@@ -53,9 +55,22 @@ final class AsyncTakeWhile<T> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             current = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            CompletionStage<Boolean> stage = source.moveNext();
+            if (stage == TRUE) {
+                T v = source.current();
+                if (predicate.test(v)) {
+                    current = v;
+                    return TRUE;
+                }
+                source.cancel();
+                return FALSE;
+            }
+            if (stage == FALSE) {
+                return FALSE;
+            }
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(stage, this);
             return cf;
         }
 
@@ -18,7 +18,7 @@ package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
-import java.util.function.BiConsumer;
+import java.util.function.*;
 
 final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
@@ -28,7 +28,7 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
     final TimeUnit unit;
 
-    final ScheduledExecutorService executor;
+    final TimedScheduler scheduler;
 
     final AsyncEnumerable<T> fallback;
 
@@ -36,23 +36,28 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
         this.source = source;
         this.timeout = timeout;
         this.unit = unit;
-        this.executor = executor;
+        this.scheduler = TimedScheduler.from(executor);
         this.fallback = fallback;
     }
 
     @Override
     public AsyncEnumerator<T> enumerator() {
-        return new TimeoutTimedEnumerator<>(source.enumerator(), timeout, unit, executor, fallback);
+        return new TimeoutTimedEnumerator<>(source.enumerator(), timeout, unit, scheduler, fallback);
     }
 
+    /**
+     * Arms the same timed handle for each {@code moveNext} call, tagged with the index
+     * of the call, so a late firing of a previous arming can be told apart.
+     * @param <T> the element type
+     */
     static final class TimeoutTimedEnumerator<T>
-            implements AsyncEnumerator<T>, BiConsumer<Boolean, Throwable> {
+            implements AsyncEnumerator<T>, BiConsumer<Boolean, Throwable>, LongConsumer {
 
         final long timeout;
 
         final TimeUnit unit;
 
-        final ScheduledExecutorService executor;
+        final TimedHandle handle;
 
         final AsyncEnumerable<T> fallback;
 
@@ -60,17 +65,17 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
         final AtomicReference<AsyncEnumerator<T>> source;
 
-        volatile CompletableFuture<Boolean> completable;
+        volatile ReusableCompletionStage completable;
 
-        Future<?> future;
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         T result;
 
-        TimeoutTimedEnumerator(AsyncEnumerator<T> source, long timeout, TimeUnit unit, ScheduledExecutorService executor, AsyncEnumerable<T> fallback) {
+        TimeoutTimedEnumerator(AsyncEnumerator<T> source, long timeout, TimeUnit unit, TimedScheduler scheduler, AsyncEnumerable<T> fallback) {
             this.source = new AtomicReference<>(source);
             this.timeout = timeout;
             this.unit = unit;
-            this.executor = executor;
+            this.handle = scheduler.handle(this);
             this.fallback = fallback;
             this.index = new AtomicLong();
         }
@@ -78,15 +83,15 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
         @Override
         public CompletionStage<Boolean> moveNext() {
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             AsyncEnumerator<T> en = source.getPlain();
             long idx = index.get();
             if (idx != Long.MAX_VALUE) {
-                future = executor.schedule(() -> timeout(idx), timeout, unit);
-                en.moveNext().whenComplete(this);
+                handle.schedule(timeout, unit, idx);
+                AsyncEnumeratorHelper.whenComplete(en.moveNext(), this);
             } else {
-                en.moveNext().whenComplete(this::acceptFallback);
+                AsyncEnumeratorHelper.whenComplete(en.moveNext(), this::acceptFallback);
             }
             return cf;
         }
@@ -98,7 +103,7 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
         @Override
         public void accept(Boolean aBoolean, Throwable throwable) {
-            future.cancel(false);
+            handle.cancel();
             long idx = index.get();
             if (idx != Long.MAX_VALUE && index.compareAndSet(idx, idx + 1)) {
                 acceptFallback(aBoolean, throwable);
@@ -106,7 +111,7 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
         }
 
         public void acceptFallback(Boolean aBoolean, Throwable throwable) {
-            CompletableFuture<Boolean> cf = completable;
+            ReusableCompletionStage cf = completable;
             if (throwable != null) {
                 cf.completeExceptionally(throwable);
                 return;
@@ -120,12 +125,13 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
             }
         }
 
-        void timeout(long index) {
+        @Override
+        public void accept(long index) {
             if (this.index.compareAndSet(index, Long.MAX_VALUE)) {
                 source.getPlain().cancel();
                 if (fallback != null) {
                     if (AsyncEnumeratorHelper.replace(source, fallback.enumerator())) {
-                        source.getPlain().moveNext().whenComplete(this::acceptFallback);
+                        AsyncEnumeratorHelper.whenComplete(source.getPlain().moveNext(), this::acceptFallback);
                     }
                 } else {
                     completable.completeExceptionally(new TimeoutException());
@@ -135,6 +141,7 @@ final class AsyncTimeoutTimed<T> implements AsyncEnumerable<T> {
 
         @Override
         public void cancel() {
+            handle.dispose();
             AsyncEnumeratorHelper.cancel(source);
         }
     }
@@ -17,6 +17,7 @@
 package hu.akarnokd.asyncenum;
 
 import java.util.concurrent.*;
+import java.util.function.LongConsumer;
 
 final class AsyncTimer implements AsyncEnumerable<Long> {
 
@@ -24,22 +25,23 @@ final class AsyncTimer implements AsyncEnumerable<Long> {
 
     final TimeUnit unit;
 
-    final ScheduledExecutorService executor;
+    final TimedScheduler scheduler;
 
     AsyncTimer(long time, TimeUnit unit, ScheduledExecutorService executor) {
         this.time = time;
         this.unit = unit;
-        this.executor = executor;
+        this.scheduler = TimedScheduler.from(executor);
     }
 
     @Override
     public AsyncEnumerator<Long> enumerator() {
         TimerEnumerator en = new TimerEnumerator();
-        en.task = executor.schedule(en, time, unit);
+        en.task = scheduler.handle(en);
+        en.task.schedule(time, unit, 0L);
         return en;
     }
 
-    static final class TimerEnumerator implements AsyncEnumerator<Long>, Callable<Void> {
+    static final class TimerEnumerator implements AsyncEnumerator<Long>, LongConsumer {
 
         final CompletableFuture<Boolean> single = new CompletableFuture<>();
 
@@ -47,7 +49,7 @@ final class AsyncTimer implements AsyncEnumerable<Long> {
 
         boolean once;
 
-        Future<?> task;
+        TimedHandle task;
 
         @Override
         public CompletionStage<Boolean> moveNext() {
@@ -65,15 +67,14 @@ final class AsyncTimer implements AsyncEnumerable<Long> {
         }
 
         @Override
-        public Void call() throws Exception {
+        public void accept(long tag) {
             result = 0L;
             single.complete(true);
-            return null;
         }
 
         @Override
         public void cancel() {
-            task.cancel(false);
+            task.dispose();
         }
     }
 }
@@ -177,7 +177,7 @@ final class AsyncToFlowPublisher<T> implements Flow.Publisher<T> {
         void moveNext() {
             if (mainWip.getAndIncrement() == 0) {
                 do {
-                    enumerator.moveNext().whenComplete(this);
+                    AsyncEnumeratorHelper.whenComplete(enumerator.moveNext(), this);
                 } while (mainWip.decrementAndGet() != 0);
             }
         }
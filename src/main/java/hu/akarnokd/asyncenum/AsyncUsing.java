@@ -52,7 +52,9 @@ final class AsyncUsing<T, U> implements AsyncEnumerable<T> {
 
         T result;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         UsingEnumerator(U resource, AsyncEnumerator<T> source, Consumer<? super U> release) {
             this.resource = resource;
@@ -63,9 +65,9 @@ final class AsyncUsing<T, U> implements AsyncEnumerable<T> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
-            source.moveNext().whenComplete(this);
+            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
             return cf;
         }
 
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
+
+final class AsyncWindow<T> implements AsyncEnumerable<AsyncEnumerable<T>> {
+
+    final AsyncEnumerable<T> source;
+
+    final int count;
+
+    final int skip;
+
+    final long time;
+
+    final TimeUnit unit;
+
+    final TimedScheduler scheduler;
+
+    AsyncWindow(AsyncEnumerable<T> source, int count, int skip, long time, TimeUnit unit, ScheduledExecutorService executor) {
+        this.source = source;
+        this.count = count;
+        this.skip = skip;
+        this.time = time;
+        this.unit = unit;
+        this.scheduler = executor != null ? TimedScheduler.from(executor) : null;
+    }
+
+    @Override
+    public AsyncEnumerator<AsyncEnumerable<T>> enumerator() {
+        WindowEnumerator<T> enumerator = new WindowEnumerator<>(source.enumerator(), count, skip);
+        if (scheduler != null) {
+            enumerator.task = scheduler.handle(t -> enumerator.run());
+            enumerator.task.schedulePeriodically(time, time, unit);
+        }
+        return enumerator;
+    }
+
+    /**
+     * Dispatches each source item to the open windows, each of which holds at most one
+     * item; the source is pulled once every open window has handed out its item.
+     * The dispatching is serialized by the AtomicInteger this class extends.
+     * @param <T> the element type
+     */
+    static final class WindowEnumerator<T> extends AtomicInteger
+            implements AsyncEnumerator<AsyncEnumerable<T>>, BiConsumer<Boolean, Throwable>, Runnable {
+
+        final AsyncEnumerator<T> source;
+
+        final int count;
+
+        final int skip;
+
+        /** The windows still receiving items, oldest first. */
+        final ArrayDeque<WindowItems<T>> open;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        TimedHandle task;
+
+        AsyncEnumerable<T> result;
+
+        /** The number of items dispatched since the start or the last timer tick. */
+        long index;
+
+        T item;
+
+        boolean hasItem;
+
+        volatile boolean sourceOutstanding;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        boolean terminated;
+
+        volatile boolean tick;
+
+        volatile boolean mainCancelled;
+
+        boolean sourceCancelled;
+
+        WindowEnumerator(AsyncEnumerator<T> source, int count, int skip) {
+            this.source = source;
+            this.count = count;
+            this.skip = skip;
+            this.open = new ArrayDeque<>();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drain();
+            return cf;
+        }
+
+        @Override
+        public AsyncEnumerable<T> current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            mainCancelled = true;
+            drain();
+        }
+
+        @Override
+        public void run() {
+            tick = true;
+            drain();
+        }
+
+        @Override
+        public void accept(Boolean aBoolean, Throwable throwable) {
+            if (throwable != null) {
+                error = throwable;
+                done = true;
+            } else if (aBoolean) {
+                item = source.current();
+                hasItem = true;
+            } else {
+                done = true;
+            }
+            sourceOutstanding = false;
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (!terminated) {
+                    if (tick) {
+                        tick = false;
+                        WindowItems<T> w;
+                        while ((w = open.poll()) != null) {
+                            w.done = true;
+                            w.drain();
+                        }
+                        index = 0L;
+                    }
+
+                    if (hasItem) {
+                        dispatch();
+                    }
+
+                    if (done && !hasItem) {
+                        terminate();
+                    } else if (!hasItem && !sourceOutstanding && !sourceCancelled) {
+                        boolean canPull = true;
+                        boolean active = false;
+                        for (WindowItems<T> w : open) {
+                            if (!w.cancelled) {
+                                active = true;
+                                if (w.hasValue) {
+                                    canPull = false;
+                                    break;
+                                }
+                            }
+                        }
+
+                        if (mainCancelled && !active) {
+                            sourceCancelled = true;
+                            if (task != null) {
+                                task.dispose();
+                            }
+                            source.cancel();
+                        } else if (canPull) {
+                            sourceOutstanding = true;
+                            AsyncEnumeratorHelper.whenComplete(source.moveNext(), this);
+                        }
+                    }
+                }
+
+                if (terminated) {
+                    ReusableCompletionStage cf = completable;
+                    if (cf != null) {
+                        completable = null;
+                        Throwable ex = error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+
+        void dispatch() {
+            if (index % skip == 0 && !mainCancelled) {
+                ReusableCompletionStage cf = completable;
+                if (cf == null) {
+                    // wait for the consumer to ask for the next window
+                    return;
+                }
+                WindowItems<T> w = new WindowItems<>(this);
+                open.offer(w);
+                result = w;
+                completable = null;
+                cf.complete(true);
+            }
+            T v = item;
+            item = null;
+            hasItem = false;
+            index++;
+
+            for (WindowItems<T> w : open) {
+                if (!w.cancelled) {
+                    w.result = v;
+                    w.hasValue = true;
+                }
+                w.produced++;
+            }
+
+            WindowItems<T> closed = open.peek();
+            if (closed != null && closed.produced == count) {
+                open.poll();
+                closed.done = true;
+            } else {
+                closed = null;
+            }
+
+            for (WindowItems<T> w : open) {
+                w.drain();
+            }
+            if (closed != null) {
+                closed.drain();
+            }
+        }
+
+        void terminate() {
+            terminated = true;
+            if (task != null) {
+                task.dispose();
+            }
+            Throwable ex = error;
+            WindowItems<T> w;
+            while ((w = open.poll()) != null) {
+                w.error = ex;
+                w.done = true;
+                w.drain();
+            }
+        }
+    }
+
+    static final class WindowItems<T> extends AtomicInteger implements AsyncEnumerable<T>, AsyncEnumerator<T> {
+
+        final WindowEnumerator<T> parent;
+
+        final AtomicBoolean once;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        /** The number of items dispatched to this window, accessed by the parent only. */
+        int produced;
+
+        T result;
+
+        volatile boolean hasValue;
+
+        T current;
+
+        volatile boolean done;
+
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        WindowItems(WindowEnumerator<T> parent) {
+            this.parent = parent;
+            this.once = new AtomicBoolean();
+        }
+
+        @Override
+        public AsyncEnumerator<T> enumerator() {
+            if (once.compareAndSet(false, true)) {
+                return this;
+            }
+            return new AsyncError<T>(new IllegalStateException("Only one AsyncEnumerator allowed"));
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            current = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            drain();
+            return cf;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                result = null;
+                hasValue = false;
+                parent.drain();
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    boolean d = done;
+                    if (hasValue) {
+                        current = result;
+                        result = null;
+                        hasValue = false;
+                        completable = null;
+                        parent.drain();
+                        cf.complete(true);
+                    } else if (d) {
+                        completable = null;
+                        Throwable ex = error;
+                        if (ex != null) {
+                            cf.completeExceptionally(ex);
+                        } else {
+                            cf.complete(false);
+                        }
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+}
@@ -47,7 +47,9 @@ final class AsyncZipArray<T, R> implements AsyncEnumerable<R> {
 
         final ZipInnerConsumer[] consumers;
 
-        CompletableFuture<Boolean> completable;
+        ReusableCompletionStage completable;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
 
         R result;
 
@@ -67,12 +69,12 @@ final class AsyncZipArray<T, R> implements AsyncEnumerable<R> {
         @Override
         public CompletionStage<Boolean> moveNext() {
             result = null;
-            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            ReusableCompletionStage cf = completion.reset();
             completable = cf;
             int n = results.length;
             set(n);
             for (int i = 0; i < n; i++) {
-                sources[i].moveNext().whenComplete(consumers[i]);
+                AsyncEnumeratorHelper.whenComplete(sources[i].moveNext(), consumers[i]);
             }
             return cf;
         }
@@ -83,7 +85,7 @@ final class AsyncZipArray<T, R> implements AsyncEnumerable<R> {
         }
 
         void acceptInner(int index, Boolean hasValue, Throwable throwable) {
-            CompletableFuture<Boolean> cf = completable;
+            ReusableCompletionStage cf = completable;
 
             if (throwable != null) {
                 completable = null;
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+final class AsyncZipArrayPrefetch<T, R> implements AsyncEnumerable<R> {
+
+    final AsyncEnumerable<? extends T>[] sources;
+
+    final Function<? super Object[], ? extends R> zipper;
+
+    final int prefetch;
+
+    final boolean reuseRow;
+
+    AsyncZipArrayPrefetch(AsyncEnumerable<? extends T>[] sources, Function<? super Object[], ? extends R> zipper,
+                          int prefetch, boolean reuseRow) {
+        this.sources = sources;
+        this.zipper = zipper;
+        this.prefetch = prefetch;
+        this.reuseRow = reuseRow;
+    }
+
+    @Override
+    public AsyncEnumerator<R> enumerator() {
+        return new ZipPrefetchEnumerator<>(sources, zipper, prefetch, reuseRow);
+    }
+
+    /**
+     * Lets each source run ahead into its own bounded queue and zips a row once every
+     * queue has an item; the zipping is serialized by the AtomicInteger this class extends.
+     * @param <T> the common source value type
+     * @param <R> the result type
+     */
+    static final class ZipPrefetchEnumerator<T, R> extends AtomicInteger implements AsyncEnumerator<R> {
+
+        final ZipPrefetchInner<T>[] inners;
+
+        final Function<? super Object[], ? extends R> zipper;
+
+        /** The row handed to the zipper each time if rows are reused, null otherwise. */
+        final Object[] row;
+
+        final ReusableCompletionStage completion = new ReusableCompletionStage();
+
+        volatile ReusableCompletionStage completable;
+
+        R result;
+
+        boolean started;
+
+        volatile Throwable error;
+
+        volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        ZipPrefetchEnumerator(AsyncEnumerable<? extends T>[] sources, Function<? super Object[], ? extends R> zipper,
+                              int prefetch, boolean reuseRow) {
+            int n = sources.length;
+            this.inners = new ZipPrefetchInner[n];
+            this.zipper = zipper;
+            this.row = reuseRow ? new Object[n] : null;
+            for (int i = 0; i < n; i++) {
+                inners[i] = new ZipPrefetchInner<>(sources[i].enumerator(), this, prefetch);
+            }
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            result = null;
+            ReusableCompletionStage cf = completion.reset();
+            completable = cf;
+            if (!started) {
+                started = true;
+                for (ZipPrefetchInner<T> inner : inners) {
+                    inner.nextSource();
+                }
+            }
+            drain();
+            return cf;
+        }
+
+        @Override
+        public R current() {
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelAll();
+        }
+
+        void cancelAll() {
+            for (ZipPrefetchInner<T> inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        void innerError(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (cancelled) {
+                    return;
+                }
+                ReusableCompletionStage cf = completable;
+                if (cf != null) {
+                    Throwable ex = error;
+                    if (ex != null) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.completeExceptionally(ex);
+                        return;
+                    }
+
+                    boolean full = true;
+                    boolean end = false;
+                    for (ZipPrefetchInner<T> inner : inners) {
+                        boolean d = inner.done;
+                        if (inner.isEmpty()) {
+                            full = false;
+                            end = d;
+                            break;
+                        }
+                    }
+
+                    if (end) {
+                        completable = null;
+                        cancelled = true;
+                        cancelAll();
+                        cf.complete(false);
+                        return;
+                    }
+
+                    if (full) {
+                        int n = inners.length;
+                        Object[] a = row != null ? row : new Object[n];
+                        for (int i = 0; i < n; i++) {
+                            Object v = inners[i].poll();
+                            a[i] = v == PrefetchQueue.NULL_ITEM ? null : v;
+                        }
+                        R r;
+                        try {
+                            r = zipper.apply(a);
+                        } catch (Throwable exc) {
+                            completable = null;
+                            cancelled = true;
+                            cancelAll();
+                            cf.completeExceptionally(exc);
+                            return;
+                        }
+                        result = r;
+                        completable = null;
+                        cf.complete(true);
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    static final class ZipPrefetchInner<T> extends PrefetchQueue<T> {
+
+        final ZipPrefetchEnumerator<T, ?> parent;
+
+        ZipPrefetchInner(AsyncEnumerator<? extends T> source, ZipPrefetchEnumerator<T, ?> parent, int prefetch) {
+            super(source, prefetch);
+            this.parent = parent;
+        }
+
+        @Override
+        void onSignal() {
+            parent.drain();
+        }
+
+        @Override
+        void onError(Throwable ex) {
+            parent.innerError(ex);
+        }
+    }
+}
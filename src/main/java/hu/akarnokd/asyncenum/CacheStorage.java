@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * An append-only store of the items of a {@link AsyncEnumerable#cache(CacheStorage)}
+ * which can be read sequentially by any number of readers.
+ * <p>
+ *     {@link #append(Object)} is called by one thread at a time. A {@link Reader}
+ *     is only asked for an item after that item has been appended.
+ * </p>
+ * @param <T> the value type
+ */
+public interface CacheStorage<T> extends AutoCloseable {
+
+    /**
+     * Appends an item to the end of the storage.
+     * @param item the item to store, may be null
+     */
+    void append(T item);
+
+    /**
+     * Returns a new reader positioned at the first item.
+     * @return the new Reader instance
+     */
+    Reader<T> reader();
+
+    /**
+     * Releases the resources of the storage; readers can't be used afterwards.
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates a CacheStorage writing the items into memory-mapped segment files
+     * of {@code segmentSize} bytes created in the given directory; the files are
+     * deleted when the storage is closed, or when the JVM exits if the platform
+     * doesn't allow deleting them while they are still mapped.
+     * @param <T> the value type
+     * @param directory the directory to create the segment files in
+     * @param segmentSize the size of each segment file, at least the size of the largest item plus 4
+     * @param serializer the serializer of the items
+     * @return the new CacheStorage instance
+     */
+    static <T> CacheStorage<T> mapped(Path directory, int segmentSize, Serializer<T> serializer) {
+        if (segmentSize < 8) {
+            throw new IllegalArgumentException("segmentSize >= 8 required but it was " + segmentSize);
+        }
+        return new MappedCacheStorage<>(directory, segmentSize, serializer);
+    }
+
+    /**
+     * Reads the items of a CacheStorage in order.
+     * @param <T> the value type
+     */
+    interface Reader<T> {
+
+        /**
+         * Returns the next item.
+         * @return the next item, may be null
+         */
+        T read();
+    }
+
+    /**
+     * Converts items to and from their binary form.
+     * @param <T> the value type
+     */
+    interface Serializer<T> {
+
+        /**
+         * Returns the number of bytes {@link #write(Object, ByteBuffer)} will write for the item.
+         * @param item the item, not null
+         * @return the number of bytes
+         */
+        int size(T item);
+
+        /**
+         * Writes exactly {@link #size(Object)} bytes of the item into the buffer.
+         * @param item the item, not null
+         * @param buffer the buffer, positioned at the start of the item
+         * @throws IOException if the item can't be serialized
+         */
+        void write(T item, ByteBuffer buffer) throws IOException;
+
+        /**
+         * Reads an item from the buffer, which is limited to the bytes of the item.
+         * @param buffer the buffer, positioned at the start of the item
+         * @return the item
+         * @throws IOException if the item can't be deserialized
+         */
+        T read(ByteBuffer buffer) throws IOException;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.*;
+
+/**
+ * Represents a possibly asynchronous, cold-deferred, source of zero or more
+ * primitive {@code double} items optionally followed by a Throwable.
+ * <p>
+ *     Use {@link #boxed()} or {@link #mapToObj(DoubleFunction)} to convert it
+ *     back to a regular {@link AsyncEnumerable}.
+ * </p>
+ */
+@FunctionalInterface
+public interface DoubleAsyncEnumerable {
+
+    /**
+     * Returns an DoubleAsyncEnumerator that can be iterated over to receive
+     * the next item, the end-of-sequence indicator or a Throwable.
+     * @return the new DoubleAsyncEnumerator instance
+     */
+    DoubleAsyncEnumerator enumerator();
+
+    // -------------------------------------------------------------------------------------
+    // Static factories
+
+    static DoubleAsyncEnumerable fromArray(double... array) {
+        return new AsyncDoubleFromArray(array);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance transformations
+
+    default DoubleAsyncEnumerable map(DoubleUnaryOperator mapper) {
+        return new AsyncDoubleMap(this, mapper);
+    }
+
+    default DoubleAsyncEnumerable filter(DoublePredicate predicate) {
+        return new AsyncDoubleFilter(this, predicate);
+    }
+
+    default <R> AsyncEnumerable<R> mapToObj(DoubleFunction<? extends R> mapper) {
+        return new AsyncDoubleMapToObj<>(this, mapper);
+    }
+
+    default AsyncEnumerable<Double> boxed() {
+        return this::enumerator;
+    }
+
+    default DoubleAsyncEnumerable reduce(DoubleBinaryOperator reducer) {
+        return new AsyncDoubleReduce(this, reducer);
+    }
+
+    default DoubleAsyncEnumerable sum() {
+        return reduce(Double::sum);
+    }
+
+    default DoubleAsyncEnumerable min() {
+        return reduce(Math::min);
+    }
+
+    default DoubleAsyncEnumerable max() {
+        return reduce(Math::max);
+    }
+
+    default AsyncEnumerable<double[]> toDoubleArray() {
+        return new AsyncDoubleToArray(this);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance consumers
+
+    default CompletionStage<Boolean> forEach(DoubleConsumer consumer) {
+        return AsyncForEach.forEachCurrent(enumerator(), en -> consumer.accept(en.currentDouble()));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Adapts a ScheduledExecutorService by scheduling a task for each arming of a handle.
+ */
+final class ExecutorTimedScheduler implements TimedScheduler {
+
+    final ScheduledExecutorService executor;
+
+    ExecutorTimedScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public TimedHandle handle(LongConsumer action) {
+        return new ExecutorTimedHandle(action, executor);
+    }
+
+    static final class ExecutorTimedHandle extends TimedHandle {
+
+        final ScheduledExecutorService executor;
+
+        volatile Future<?> future;
+
+        ExecutorTimedHandle(LongConsumer action, ScheduledExecutorService executor) {
+            super(action);
+            this.executor = executor;
+        }
+
+        @Override
+        void arm(long stamp) {
+            Future<?> f = executor.schedule(() -> fire(stamp), deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            future = f;
+            // a cancel() between arming and storing the future couldn't see it
+            if (get() != stamp) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        void disarm() {
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+}
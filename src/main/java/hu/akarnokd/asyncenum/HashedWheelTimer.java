@@ -0,0 +1,357 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * A ScheduledExecutorService backed by a hashed timing wheel, advanced by a single
+ * worker thread that also runs the tasks.
+ * <p>
+ *     The time-based operators of this library recognize this timer and arm and
+ *     disarm their timeouts in O(1) without allocating per item, which makes it
+ *     suitable for many concurrent enumerators with per-item timeouts. Tasks fire
+ *     at the end of the tick their due time falls into, thus the timing precision
+ *     is the tick duration. The tasks should be short as they delay the ticking.
+ * </p>
+ * <p>
+ *     Shutting down the timer drops the tasks not yet run.
+ * </p>
+ */
+public final class HashedWheelTimer extends AbstractExecutorService implements ScheduledExecutorService {
+
+    final long tickNanos;
+
+    final WheelNode[] wheel;
+
+    final int mask;
+
+    final ConcurrentLinkedQueue<WheelNode> submissions;
+
+    final Thread worker;
+
+    final CountDownLatch terminated;
+
+    final TimedScheduler scheduler;
+
+    final long startTime;
+
+    volatile boolean shutdown;
+
+    /** The number of ticks processed, accessed by the worker only. */
+    long tick;
+
+    /**
+     * Creates a timer with 1 millisecond ticks, 512 buckets and a daemon worker thread.
+     */
+    public HashedWheelTimer() {
+        this(1, TimeUnit.MILLISECONDS, 512, r -> {
+            Thread t = new Thread(r, "AsyncEnumerableHashedWheelTimer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Creates a timer and starts its worker thread.
+     * @param tickDuration the duration of a tick, positive
+     * @param unit the time unit of the tick duration
+     * @param wheelSize the number of buckets, rounded up to a power of 2, positive
+     * @param threadFactory the factory creating the worker thread
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, ThreadFactory threadFactory) {
+        if (tickDuration <= 0L) {
+            throw new IllegalArgumentException("tickDuration > 0 required but it was " + tickDuration);
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize > 0 required but it was " + wheelSize);
+        }
+        int c = 1 << (32 - Integer.numberOfLeadingZeros(wheelSize - 1));
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new WheelNode[c];
+        this.mask = c - 1;
+        this.submissions = new ConcurrentLinkedQueue<>();
+        this.terminated = new CountDownLatch(1);
+        this.scheduler = action -> new WheelNode(this, action);
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(this::work);
+        worker.start();
+    }
+
+    void submit(WheelNode node) {
+        submissions.offer(node);
+    }
+
+    void work() {
+        try {
+            while (!shutdown) {
+                long tickDeadline = startTime + (tick + 1) * tickNanos;
+                for (;;) {
+                    long delay = tickDeadline - System.nanoTime();
+                    if (delay <= 0L || shutdown) {
+                        break;
+                    }
+                    LockSupport.parkNanos(this, delay);
+                }
+                if (shutdown) {
+                    break;
+                }
+
+                WheelNode n;
+                while ((n = submissions.poll()) != null) {
+                    // cleared first so that an arming after this point queues the node again
+                    n.queued.set(false);
+                    place(n);
+                }
+
+                expire((int)tick & mask, tickDeadline);
+                tick++;
+            }
+        } finally {
+            submissions.clear();
+            Arrays.fill(wheel, null);
+            terminated.countDown();
+        }
+    }
+
+    void place(WheelNode n) {
+        long s = n.get();
+        if ((s & 1L) == 0L) {
+            unlink(n);
+            return;
+        }
+        long target = (n.deadline - startTime + tickNanos - 1) / tickNanos - 1;
+        if (target < tick) {
+            target = tick;
+        }
+        n.targetTick = target;
+        int bucket = (int)target & mask;
+        if (n.bucket != bucket || !n.linked) {
+            unlink(n);
+            link(n, bucket);
+        }
+    }
+
+    void expire(int bucket, long tickDeadline) {
+        WheelNode n = wheel[bucket];
+        while (n != null) {
+            WheelNode next = n.next;
+            long s = n.get();
+            if ((s & 1L) == 0L) {
+                unlink(n);
+            } else if (n.deadline <= tickDeadline) {
+                unlink(n);
+                try {
+                    n.fire(s);
+                } catch (Throwable ex) {
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+                }
+            } else {
+                // re-armed since placed or due in a later round
+                place(n);
+            }
+            n = next;
+        }
+    }
+
+    void link(WheelNode n, int bucket) {
+        WheelNode head = wheel[bucket];
+        n.next = head;
+        n.prev = null;
+        if (head != null) {
+            head.prev = n;
+        }
+        wheel[bucket] = n;
+        n.bucket = bucket;
+        n.linked = true;
+    }
+
+    void unlink(WheelNode n) {
+        if (!n.linked) {
+            return;
+        }
+        WheelNode p = n.prev;
+        WheelNode x = n.next;
+        if (p != null) {
+            p.next = x;
+        } else {
+            wheel[n.bucket] = x;
+        }
+        if (x != null) {
+            x.prev = p;
+        }
+        n.prev = null;
+        n.next = null;
+        n.linked = false;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        WheelFuture<V> f = new WheelFuture<>(this, callable);
+        checkShutdown();
+        f.node.schedule(delay, unit, 0L);
+        return f;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0L) {
+            throw new IllegalArgumentException("period > 0 required but it was " + period);
+        }
+        WheelFuture<Void> f = new WheelFuture<>(this, Executors.callable(command, null));
+        f.period = unit.toNanos(period);
+        checkShutdown();
+        f.node.schedule(initialDelay, unit, 0L);
+        return f;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0L) {
+            throw new IllegalArgumentException("delay > 0 required but it was " + delay);
+        }
+        WheelFuture<Void> f = new WheelFuture<>(this, Executors.callable(command, null));
+        f.period = -unit.toNanos(delay);
+        checkShutdown();
+        f.node.schedule(initialDelay, unit, 0L);
+        return f;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    void checkShutdown() {
+        if (shutdown) {
+            throw new RejectedExecutionException("The timer has been shut down");
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0L;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    static final class WheelNode extends TimedHandle {
+
+        final HashedWheelTimer parent;
+
+        /** The tick this node is due in, accessed by the worker only. */
+        long targetTick;
+
+        int bucket;
+
+        boolean linked;
+
+        WheelNode prev;
+
+        WheelNode next;
+
+        /** Set while the node sits in the submission queue, so re-arming doesn't queue it again. */
+        final AtomicBoolean queued;
+
+        WheelNode(HashedWheelTimer parent, LongConsumer action) {
+            super(action);
+            this.parent = parent;
+            this.queued = new AtomicBoolean();
+        }
+
+        @Override
+        void arm(long stamp) {
+            if (!queued.get() && queued.compareAndSet(false, true)) {
+                parent.submit(this);
+            }
+        }
+    }
+
+    static final class WheelFuture<V> extends FutureTask<V> implements ScheduledFuture<V>, LongConsumer {
+
+        final WheelNode node;
+
+        /** Positive for fixed rate, negative for fixed delay, zero for one-shot tasks. */
+        long period;
+
+        WheelFuture(HashedWheelTimer parent, Callable<V> callable) {
+            super(callable);
+            this.node = new WheelNode(parent, this);
+        }
+
+        @Override
+        public void accept(long tag) {
+            long p = period;
+            if (p == 0L) {
+                run();
+            } else if (runAndReset()) {
+                if (p > 0L) {
+                    node.scheduleAt(node.deadline + p, 0L);
+                } else {
+                    node.scheduleAt(System.nanoTime() - p, 0L);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean b = super.cancel(mayInterruptIfRunning);
+            node.dispose();
+            return b;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(node.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
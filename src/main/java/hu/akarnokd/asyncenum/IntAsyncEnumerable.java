@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.*;
+
+/**
+ * Represents a possibly asynchronous, cold-deferred, source of zero or more
+ * primitive {@code int} items optionally followed by a Throwable.
+ * <p>
+ *     Use {@link #boxed()} or {@link #mapToObj(IntFunction)} to convert it
+ *     back to a regular {@link AsyncEnumerable}.
+ * </p>
+ */
+@FunctionalInterface
+public interface IntAsyncEnumerable {
+
+    /**
+     * Returns an IntAsyncEnumerator that can be iterated over to receive
+     * the next item, the end-of-sequence indicator or a Throwable.
+     * @return the new IntAsyncEnumerator instance
+     */
+    IntAsyncEnumerator enumerator();
+
+    // -------------------------------------------------------------------------------------
+    // Static factories
+
+    static IntAsyncEnumerable range(int start, int count) {
+        return new AsyncIntRange(start, count);
+    }
+
+    static IntAsyncEnumerable fromArray(int... array) {
+        return new AsyncIntFromArray(array);
+    }
+
+    static IntAsyncEnumerable characters(CharSequence chars) {
+        return () -> new AsyncFromCharSequence.FromCharSequenceEnumerator(chars);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance transformations
+
+    default IntAsyncEnumerable map(IntUnaryOperator mapper) {
+        return new AsyncIntMap(this, mapper);
+    }
+
+    default IntAsyncEnumerable filter(IntPredicate predicate) {
+        return new AsyncIntFilter(this, predicate);
+    }
+
+    default <R> AsyncEnumerable<R> mapToObj(IntFunction<? extends R> mapper) {
+        return new AsyncIntMapToObj<>(this, mapper);
+    }
+
+    default AsyncEnumerable<Integer> boxed() {
+        return this::enumerator;
+    }
+
+    default IntAsyncEnumerable reduce(IntBinaryOperator reducer) {
+        return new AsyncIntReduce(this, reducer);
+    }
+
+    default IntAsyncEnumerable sum() {
+        return reduce(Integer::sum);
+    }
+
+    default IntAsyncEnumerable min() {
+        return reduce(Math::min);
+    }
+
+    default IntAsyncEnumerable max() {
+        return reduce(Math::max);
+    }
+
+    default AsyncEnumerable<int[]> toIntArray() {
+        return new AsyncIntToArray(this);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance consumers
+
+    default CompletionStage<Boolean> forEach(IntConsumer consumer) {
+        return AsyncForEach.forEachCurrent(enumerator(), en -> consumer.accept(en.currentInt()));
+    }
+}
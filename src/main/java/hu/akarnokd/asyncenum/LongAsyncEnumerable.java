@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.*;
+
+/**
+ * Represents a possibly asynchronous, cold-deferred, source of zero or more
+ * primitive {@code long} items optionally followed by a Throwable.
+ * <p>
+ *     Use {@link #boxed()} or {@link #mapToObj(LongFunction)} to convert it
+ *     back to a regular {@link AsyncEnumerable}.
+ * </p>
+ */
+@FunctionalInterface
+public interface LongAsyncEnumerable {
+
+    /**
+     * Returns an LongAsyncEnumerator that can be iterated over to receive
+     * the next item, the end-of-sequence indicator or a Throwable.
+     * @return the new LongAsyncEnumerator instance
+     */
+    LongAsyncEnumerator enumerator();
+
+    // -------------------------------------------------------------------------------------
+    // Static factories
+
+    static LongAsyncEnumerable range(long start, long count) {
+        return new AsyncLongRange(start, count);
+    }
+
+    static LongAsyncEnumerable fromArray(long... array) {
+        return new AsyncLongFromArray(array);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance transformations
+
+    default LongAsyncEnumerable map(LongUnaryOperator mapper) {
+        return new AsyncLongMap(this, mapper);
+    }
+
+    default LongAsyncEnumerable filter(LongPredicate predicate) {
+        return new AsyncLongFilter(this, predicate);
+    }
+
+    default <R> AsyncEnumerable<R> mapToObj(LongFunction<? extends R> mapper) {
+        return new AsyncLongMapToObj<>(this, mapper);
+    }
+
+    default AsyncEnumerable<Long> boxed() {
+        return this::enumerator;
+    }
+
+    default LongAsyncEnumerable reduce(LongBinaryOperator reducer) {
+        return new AsyncLongReduce(this, reducer);
+    }
+
+    default LongAsyncEnumerable sum() {
+        return reduce(Long::sum);
+    }
+
+    default LongAsyncEnumerable min() {
+        return reduce(Math::min);
+    }
+
+    default LongAsyncEnumerable max() {
+        return reduce(Math::max);
+    }
+
+    default AsyncEnumerable<long[]> toLongArray() {
+        return new AsyncLongToArray(this);
+    }
+
+    // -------------------------------------------------------------------------------------
+    // Instance consumers
+
+    default CompletionStage<Boolean> forEach(LongConsumer consumer) {
+        return AsyncForEach.forEachCurrent(enumerator(), en -> consumer.accept(en.currentLong()));
+    }
+}
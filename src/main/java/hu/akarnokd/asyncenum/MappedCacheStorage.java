@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Stores items in memory-mapped, append-only segment files, each item
+ * prefixed by its length.
+ * <p>
+ *     Readers decode directly from their own view of the mapped segments,
+ *     so replaying doesn't copy the bytes onto the heap first.
+ * </p>
+ * <p>
+ *     Java can't unmap a buffer explicitly; closing drops the storage's and the
+ *     readers' references so the mappings are released once they are garbage
+ *     collected. A segment file that can't be deleted while still mapped, which
+ *     is the case on Windows, is deleted when the JVM exits instead.
+ * </p>
+ * @param <T> the value type
+ */
+final class MappedCacheStorage<T> implements CacheStorage<T> {
+
+    /** Marks the end of the items in a segment. */
+    static final int END = -1;
+
+    /** Stands in for the length of a {@code null} item. */
+    static final int NULL_ITEM = -2;
+
+    final Path directory;
+
+    final int segmentSize;
+
+    final Serializer<T> serializer;
+
+    /** The mapped segments, replaced by a longer copy when a segment is added. */
+    volatile MappedByteBuffer[] segments;
+
+    final List<FileChannel> channels;
+
+    final List<Path> files;
+
+    /** The segment being appended to. */
+    ByteBuffer tail;
+
+    volatile boolean closed;
+
+    MappedCacheStorage(Path directory, int segmentSize, Serializer<T> serializer) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.serializer = serializer;
+        this.segments = new MappedByteBuffer[0];
+        this.channels = new ArrayList<>();
+        this.files = new ArrayList<>();
+    }
+
+    @Override
+    public void append(T item) {
+        int len = item == null ? 0 : serializer.size(item);
+        if (len > segmentSize - 4) {
+            throw new IllegalArgumentException("The item of " + len + " bytes doesn't fit into a segment of " + segmentSize + " bytes");
+        }
+        ByteBuffer b = tail;
+        if (b == null || b.remaining() < len + 4) {
+            if (b != null && b.remaining() >= 4) {
+                b.putInt(END);
+            }
+            b = addSegment();
+        }
+        if (item == null) {
+            b.putInt(NULL_ITEM);
+        } else {
+            b.putInt(len);
+            int start = b.position();
+            int limit = b.limit();
+            b.limit(start + len);
+            try {
+                serializer.write(item, b);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            b.limit(limit);
+            b.position(start + len);
+        }
+    }
+
+    ByteBuffer addSegment() {
+        MappedByteBuffer segment;
+        try {
+            Path file = Files.createTempFile(directory, "asyncenum-cache-", ".segment");
+            files.add(file);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channels.add(channel);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        MappedByteBuffer[] a = segments;
+        MappedByteBuffer[] b = Arrays.copyOf(a, a.length + 1);
+        b[a.length] = segment;
+        segments = b;
+        ByteBuffer t = segment.duplicate();
+        tail = t;
+        return t;
+    }
+
+    @Override
+    public Reader<T> reader() {
+        return new MappedReader<>(this);
+    }
+
+    @Override
+    public void close() {
+        // readers drop their view of the segments the next time they are used
+        closed = true;
+        segments = new MappedByteBuffer[0];
+        tail = null;
+        IOException error = null;
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                error = ex;
+            }
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                // the platform refuses to delete a file that is still mapped
+                file.toFile().deleteOnExit();
+            }
+        }
+        channels.clear();
+        files.clear();
+        if (error != null) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    static final class MappedReader<T> implements Reader<T> {
+
+        final MappedCacheStorage<T> parent;
+
+        ByteBuffer buffer;
+
+        int segmentIndex;
+
+        MappedReader(MappedCacheStorage<T> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public T read() {
+            if (parent.closed) {
+                buffer = null;
+                throw new IllegalStateException("The storage has been closed");
+            }
+            for (;;) {
+                ByteBuffer b = buffer;
+                if (b == null) {
+                    b = parent.segments[segmentIndex].duplicate();
+                    buffer = b;
+                }
+                int len = b.remaining() >= 4 ? b.getInt() : END;
+                if (len == END) {
+                    segmentIndex++;
+                    buffer = null;
+                    continue;
+                }
+                if (len == NULL_ITEM) {
+                    return null;
+                }
+                int start = b.position();
+                int limit = b.limit();
+                b.limit(start + len);
+                T v;
+                try {
+                    v = parent.serializer.read(b);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                } finally {
+                    b.limit(limit);
+                    b.position(start + len);
+                }
+                return v;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.*;
+
+/**
+ * Represents a source split into a fixed number of rails which can be
+ * enumerated independently and concurrently.
+ * @param <T> the value type
+ */
+public interface ParallelAsyncEnumerable<T> {
+
+    /**
+     * Returns the number of rails.
+     * @return the number of rails
+     */
+    int parallelism();
+
+    /**
+     * Returns a new set of rail enumerators sharing the same upstream enumeration.
+     * @return the list of {@link #parallelism()} rail enumerators
+     */
+    List<ParallelAsyncEnumerator<T>> enumerators();
+
+    default <R> ParallelAsyncEnumerable<R> map(Function<? super T, ? extends R> mapper) {
+        return new AsyncParallelMap<>(this, mapper);
+    }
+
+    default ParallelAsyncEnumerable<T> filter(Predicate<? super T> predicate) {
+        return new AsyncParallelFilter<>(this, predicate);
+    }
+
+    /**
+     * Signals the outcome of each rail's {@code moveNext} on the given executor, so that
+     * the rail operators after it run there, concurrently with the other rails if the
+     * executor has multiple threads.
+     * @param executor the executor to run the rails on
+     * @return the new ParallelAsyncEnumerable instance
+     */
+    default ParallelAsyncEnumerable<T> runOn(Executor executor) {
+        return new AsyncParallelRunOn<>(this, executor);
+    }
+
+    /**
+     * Reduces each rail into a single value and then reduces those values
+     * into the final result.
+     * @param reducer the function combining two values
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> reduce(BiFunction<T, T, T> reducer) {
+        return new AsyncParallelRails<>(this)
+                .flatMap(rail -> rail.reduce(reducer), parallelism(), 1)
+                .reduce(reducer);
+    }
+
+    /**
+     * Merges the rails back into a single sequence in the order the items
+     * become available.
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> sequential() {
+        return new AsyncParallelRails<>(this)
+                .flatMap(rail -> rail, parallelism(), AsyncParallelSource.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Merges the rails back into a single sequence in the original order of the
+     * items; filtered items are skipped.
+     * <p>
+     * While waiting for the next item in order, the other rails keep being
+     * consumed and buffered, each at most 32 items beyond its regular prefetch
+     * of 32 items. A source partitioned by {@link AsyncEnumerable#parallelBy}
+     * stalls the merge if a rail has to run further ahead than that, for example
+     * because another rail receives no keys at all.
+     * @return the new AsyncEnumerable instance
+     */
+    default AsyncEnumerable<T> sequentialOrdered() {
+        return new AsyncParallelSequentialOrdered<>(this, AsyncParallelSource.DEFAULT_PREFETCH);
+    }
+}
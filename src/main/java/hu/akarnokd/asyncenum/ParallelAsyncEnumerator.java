@@ -16,18 +16,16 @@
 
 package hu.akarnokd.asyncenum;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.function.BiConsumer;
-
-final class AsyncCompletableFuture<T> extends CompletableFuture<T>
-implements BiConsumer<T, Throwable> {
+/**
+ * An AsyncEnumerator representing one rail of a {@link ParallelAsyncEnumerable}.
+ * @param <T> the value type
+ */
+public interface ParallelAsyncEnumerator<T> extends AsyncEnumerator<T> {
 
-    @Override
-    public void accept(T t, Throwable throwable) {
-        if (throwable != null) {
-            completeExceptionally(throwable);
-        } else {
-            complete(t);
-        }
-    }
+    /**
+     * Returns the zero-based position of the current item in the original,
+     * sequential source.
+     * @return the position of the current item
+     */
+    long index();
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+/**
+ * Pulls a source via {@code moveNextBatch} into a bounded queue, keeping at most
+ * {@code prefetch} items buffered and pulling again once 75% of them were taken.
+ * <p>
+ *     The queue is filled by the source side and emptied via {@link #poll()} by a
+ *     single consumer; the subclass is notified of new items and termination via
+ *     {@link #onSignal()} and {@link #onError(Throwable)}.
+ * </p>
+ * @param <T> the element type
+ */
+abstract class PrefetchQueue<T> extends AtomicInteger implements BiConsumer<Boolean, Throwable>, Consumer<T> {
+
+    /** Stands in for {@code null} items in the queue. */
+    static final Object NULL_ITEM = new Object();
+
+    final AsyncEnumerator<? extends T> source;
+
+    final int prefetch;
+
+    final int limit;
+
+    final SpscArrayQueue<Object> queue;
+
+    /** The number of items put into the queue, accessed by the source side only. */
+    long produced;
+
+    /** The number of items taken from the queue, updated every {@code limit} items. */
+    volatile long consumedIndex;
+
+    int consumed;
+
+    /** Set when a batch completed, allowing the next batch to fill any remaining room. */
+    volatile boolean refill;
+
+    volatile boolean sourceOutstanding;
+
+    /** Set after the last item was queued; {@link #error} is written before it. */
+    volatile boolean done;
+
+    Throwable error;
+
+    volatile boolean cancelled;
+
+    PrefetchQueue(AsyncEnumerator<? extends T> source, int prefetch) {
+        this.source = source;
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.queue = new SpscArrayQueue<>(prefetch);
+    }
+
+    /**
+     * Called after an item was queued or the source completed normally.
+     */
+    abstract void onSignal();
+
+    /**
+     * Called after the source failed, with {@link #error} and {@link #done} already set.
+     * @param ex the failure
+     */
+    abstract void onError(Throwable ex);
+
+    /**
+     * Pulls the source if there is no outstanding batch and enough room in the queue.
+     */
+    final void nextSource() {
+        if (getAndIncrement() == 0) {
+            do {
+                if (!sourceOutstanding && !done && !cancelled) {
+                    long free = prefetch - (produced - consumedIndex);
+                    if (free >= limit || (refill && free > 0L)) {
+                        refill = false;
+                        sourceOutstanding = true;
+                        AsyncEnumeratorHelper.whenComplete(source.moveNextBatch((int)free, this), this);
+                    }
+                }
+            } while (decrementAndGet() != 0);
+        }
+    }
+
+    @Override
+    public final void accept(T t) {
+        produced++;
+        queue.offer(t == null ? NULL_ITEM : t);
+        onSignal();
+    }
+
+    @Override
+    public final void accept(Boolean aBoolean, Throwable throwable) {
+        if (throwable != null) {
+            error = throwable;
+            done = true;
+            onError(throwable);
+        } else if (aBoolean) {
+            refill = true;
+            sourceOutstanding = false;
+            nextSource();
+        } else {
+            done = true;
+            onSignal();
+        }
+    }
+
+    final boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * Takes the next entry, pulling the source again every {@code limit} entries.
+     * @return the entry, {@link #NULL_ITEM} for a {@code null} item or {@code null} if the queue is empty
+     */
+    final Object poll() {
+        Object v = queue.poll();
+        if (v != null && ++consumed == limit) {
+            consumed = 0;
+            consumedIndex += limit;
+            nextSource();
+        }
+        return v;
+    }
+
+    final void cancel() {
+        cancelled = true;
+        source.cancel();
+    }
+}
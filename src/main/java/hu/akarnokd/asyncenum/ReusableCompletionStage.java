@@ -0,0 +1,331 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.*;
+
+/**
+ * A lightweight, single-consumer {@code CompletionStage<Boolean>} an enumerator
+ * owns and {@link #reset() resets} in each {@code moveNext()} call instead of
+ * allocating a new {@code CompletableFuture}.
+ * <p>
+ *     Operators register their continuation via
+ *     {@link AsyncEnumeratorHelper#whenComplete(CompletionStage, BiConsumer)}, which
+ *     doesn't allocate. The standard {@code CompletionStage} methods work
+ *     through {@link #toCompletableFuture()} and should only be used by a
+ *     consumer before it calls {@code moveNext()} again.
+ * </p>
+ */
+final class ReusableCompletionStage extends AtomicReference<Object> implements CompletionStage<Boolean> {
+
+    /** The stage was reset and waits for a result. */
+    static final Object PENDING = new Object();
+
+    /** The stage hasn't been reset yet. */
+    static final Object FRESH = new Object();
+
+    ReusableCompletionStage() {
+        lazySet(FRESH);
+    }
+
+    /**
+     * Prepares this stage for a new result.
+     * @return this
+     * @throws IllegalStateException if the previous result hasn't been delivered yet
+     */
+    ReusableCompletionStage reset() {
+        Object s = get();
+        if (s != FRESH && !isDone(s)) {
+            throw new IllegalStateException("moveNext() called before the previous stage completed");
+        }
+        set(PENDING);
+        return this;
+    }
+
+    boolean complete(boolean value) {
+        return terminate(value);
+    }
+
+    boolean completeExceptionally(Throwable error) {
+        return terminate(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    boolean terminate(Object result) {
+        for (;;) {
+            Object s = get();
+            if (s == FRESH || isDone(s)) {
+                return false;
+            }
+            if (compareAndSet(s, result)) {
+                if (s != PENDING) {
+                    signal((BiConsumer<? super Boolean, ? super Throwable>)s, result);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Registers the continuation or calls it if the stage has already completed.
+     * @param consumer the continuation receiving the value or the error
+     */
+    @SuppressWarnings("unchecked")
+    void onComplete(BiConsumer<? super Boolean, ? super Throwable> consumer) {
+        for (;;) {
+            Object s = get();
+            if (isDone(s)) {
+                signal(consumer, s);
+                return;
+            }
+            if (s == FRESH) {
+                throw new IllegalStateException("The stage hasn't been reset");
+            }
+            BiConsumer<? super Boolean, ? super Throwable> next;
+            if (s == PENDING) {
+                next = consumer;
+            } else {
+                BiConsumer<? super Boolean, ? super Throwable> prev = (BiConsumer<? super Boolean, ? super Throwable>)s;
+                next = (v, e) -> {
+                    prev.accept(v, e);
+                    consumer.accept(v, e);
+                };
+            }
+            if (compareAndSet(s, next)) {
+                return;
+            }
+        }
+    }
+
+    static boolean isDone(Object s) {
+        return s == Boolean.TRUE || s == Boolean.FALSE || s instanceof Throwable;
+    }
+
+    static void signal(BiConsumer<? super Boolean, ? super Throwable> consumer, Object result) {
+        if (result instanceof Throwable) {
+            consumer.accept(null, (Throwable)result);
+        } else {
+            consumer.accept((Boolean)result, null);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> toCompletableFuture() {
+        CompletableFuture<Boolean> cf = new CompletableFuture<>();
+        onComplete((v, e) -> {
+            if (e != null) {
+                cf.completeExceptionally(e);
+            } else {
+                cf.complete(v);
+            }
+        });
+        return cf;
+    }
+
+    @Override
+    public String toString() {
+        Object s = get();
+        return "ReusableCompletionStage[" + (isDone(s) ? s : "Incomplete") + "]";
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenApply(Function<? super Boolean, ? extends U> fn) {
+        return toCompletableFuture().thenApply(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenApplyAsync(Function<? super Boolean, ? extends U> fn) {
+        return toCompletableFuture().thenApplyAsync(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenApplyAsync(Function<? super Boolean, ? extends U> fn, Executor executor) {
+        return toCompletableFuture().thenApplyAsync(fn, executor);
+    }
+
+    @Override
+    public CompletionStage<Void> thenAccept(Consumer<? super Boolean> action) {
+        return toCompletableFuture().thenAccept(action);
+    }
+
+    @Override
+    public CompletionStage<Void> thenAcceptAsync(Consumer<? super Boolean> action) {
+        return toCompletableFuture().thenAcceptAsync(action);
+    }
+
+    @Override
+    public CompletionStage<Void> thenAcceptAsync(Consumer<? super Boolean> action, Executor executor) {
+        return toCompletableFuture().thenAcceptAsync(action, executor);
+    }
+
+    @Override
+    public CompletionStage<Void> thenRun(Runnable action) {
+        return toCompletableFuture().thenRun(action);
+    }
+
+    @Override
+    public CompletionStage<Void> thenRunAsync(Runnable action) {
+        return toCompletableFuture().thenRunAsync(action);
+    }
+
+    @Override
+    public CompletionStage<Void> thenRunAsync(Runnable action, Executor executor) {
+        return toCompletableFuture().thenRunAsync(action, executor);
+    }
+
+    @Override
+    public <U, V> CompletionStage<V> thenCombine(CompletionStage<? extends U> other, BiFunction<? super Boolean, ? super U, ? extends V> fn) {
+        return toCompletableFuture().thenCombine(other, fn);
+    }
+
+    @Override
+    public <U, V> CompletionStage<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super Boolean, ? super U, ? extends V> fn) {
+        return toCompletableFuture().thenCombineAsync(other, fn);
+    }
+
+    @Override
+    public <U, V> CompletionStage<V> thenCombineAsync(CompletionStage<? extends U> other, BiFunction<? super Boolean, ? super U, ? extends V> fn, Executor executor) {
+        return toCompletableFuture().thenCombineAsync(other, fn, executor);
+    }
+
+    @Override
+    public <U> CompletionStage<Void> thenAcceptBoth(CompletionStage<? extends U> other, BiConsumer<? super Boolean, ? super U> action) {
+        return toCompletableFuture().thenAcceptBoth(other, action);
+    }
+
+    @Override
+    public <U> CompletionStage<Void> thenAcceptBothAsync(CompletionStage<? extends U> other, BiConsumer<? super Boolean, ? super U> action) {
+        return toCompletableFuture().thenAcceptBothAsync(other, action);
+    }
+
+    @Override
+    public <U> CompletionStage<Void> thenAcceptBothAsync(CompletionStage<? extends U> other, BiConsumer<? super Boolean, ? super U> action, Executor executor) {
+        return toCompletableFuture().thenAcceptBothAsync(other, action, executor);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterBoth(CompletionStage<?> other, Runnable action) {
+        return toCompletableFuture().runAfterBoth(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action) {
+        return toCompletableFuture().runAfterBothAsync(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return toCompletableFuture().runAfterBothAsync(other, action, executor);
+    }
+
+    @Override
+    public <U> CompletionStage<U> applyToEither(CompletionStage<? extends Boolean> other, Function<? super Boolean, U> fn) {
+        return toCompletableFuture().applyToEither(other, fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> applyToEitherAsync(CompletionStage<? extends Boolean> other, Function<? super Boolean, U> fn) {
+        return toCompletableFuture().applyToEitherAsync(other, fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> applyToEitherAsync(CompletionStage<? extends Boolean> other, Function<? super Boolean, U> fn, Executor executor) {
+        return toCompletableFuture().applyToEitherAsync(other, fn, executor);
+    }
+
+    @Override
+    public CompletionStage<Void> acceptEither(CompletionStage<? extends Boolean> other, Consumer<? super Boolean> action) {
+        return toCompletableFuture().acceptEither(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> acceptEitherAsync(CompletionStage<? extends Boolean> other, Consumer<? super Boolean> action) {
+        return toCompletableFuture().acceptEitherAsync(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> acceptEitherAsync(CompletionStage<? extends Boolean> other, Consumer<? super Boolean> action, Executor executor) {
+        return toCompletableFuture().acceptEitherAsync(other, action, executor);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterEither(CompletionStage<?> other, Runnable action) {
+        return toCompletableFuture().runAfterEither(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action) {
+        return toCompletableFuture().runAfterEitherAsync(other, action);
+    }
+
+    @Override
+    public CompletionStage<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return toCompletableFuture().runAfterEitherAsync(other, action, executor);
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenCompose(Function<? super Boolean, ? extends CompletionStage<U>> fn) {
+        return toCompletableFuture().thenCompose(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenComposeAsync(Function<? super Boolean, ? extends CompletionStage<U>> fn) {
+        return toCompletableFuture().thenComposeAsync(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> thenComposeAsync(Function<? super Boolean, ? extends CompletionStage<U>> fn, Executor executor) {
+        return toCompletableFuture().thenComposeAsync(fn, executor);
+    }
+
+    @Override
+    public <U> CompletionStage<U> handle(BiFunction<? super Boolean, Throwable, ? extends U> fn) {
+        return toCompletableFuture().handle(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> handleAsync(BiFunction<? super Boolean, Throwable, ? extends U> fn) {
+        return toCompletableFuture().handleAsync(fn);
+    }
+
+    @Override
+    public <U> CompletionStage<U> handleAsync(BiFunction<? super Boolean, Throwable, ? extends U> fn, Executor executor) {
+        return toCompletableFuture().handleAsync(fn, executor);
+    }
+
+    @Override
+    public CompletionStage<Boolean> whenComplete(BiConsumer<? super Boolean, ? super Throwable> action) {
+        return toCompletableFuture().whenComplete(action);
+    }
+
+    @Override
+    public CompletionStage<Boolean> whenCompleteAsync(BiConsumer<? super Boolean, ? super Throwable> action) {
+        return toCompletableFuture().whenCompleteAsync(action);
+    }
+
+    @Override
+    public CompletionStage<Boolean> whenCompleteAsync(BiConsumer<? super Boolean, ? super Throwable> action, Executor executor) {
+        return toCompletableFuture().whenCompleteAsync(action, executor);
+    }
+
+    @Override
+    public CompletionStage<Boolean> exceptionally(Function<Throwable, ? extends Boolean> fn) {
+        return toCompletableFuture().exceptionally(fn);
+    }
+}
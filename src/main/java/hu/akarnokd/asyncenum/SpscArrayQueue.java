@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A bounded, array-backed queue for a single producer and a single consumer
+ * thread.
+ * <p>
+ *     The capacity is rounded up to the next power of two. The queue doesn't
+ *     accept {@code null} items.
+ * </p>
+ * @param <T> the element type
+ */
+final class SpscArrayQueue<T> {
+
+    final AtomicReferenceArray<T> array;
+
+    final int mask;
+
+    final AtomicLong producerIndex;
+
+    final AtomicLong consumerIndex;
+
+    SpscArrayQueue(int capacity) {
+        int c = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1));
+        this.array = new AtomicReferenceArray<>(c);
+        this.mask = c - 1;
+        this.producerIndex = new AtomicLong();
+        this.consumerIndex = new AtomicLong();
+    }
+
+    boolean offer(T item) {
+        long pi = producerIndex.getPlain();
+        int offset = (int)pi & mask;
+        if (array.getAcquire(offset) != null) {
+            return false;
+        }
+        array.setRelease(offset, item);
+        producerIndex.setRelease(pi + 1);
+        return true;
+    }
+
+    T poll() {
+        long ci = consumerIndex.getPlain();
+        int offset = (int)ci & mask;
+        T v = array.getAcquire(offset);
+        if (v != null) {
+            array.setRelease(offset, null);
+            consumerIndex.setRelease(ci + 1);
+        }
+        return v;
+    }
+
+    T peek() {
+        return array.getAcquire((int)consumerIndex.getPlain() & mask);
+    }
+
+    boolean isEmpty() {
+        return producerIndex.getAcquire() == consumerIndex.getAcquire();
+    }
+
+    int size() {
+        for (;;) {
+            long ci = consumerIndex.getAcquire();
+            long pi = producerIndex.getAcquire();
+            if (ci == consumerIndex.getAcquire()) {
+                return (int)(pi - ci);
+            }
+        }
+    }
+
+    void clear() {
+        while (poll() != null) {
+            // drop items
+        }
+    }
+}
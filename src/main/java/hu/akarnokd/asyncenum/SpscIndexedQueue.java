@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An unbounded queue for a single producer and a single consumer thread which
+ * stores a {@code long} index along with each item in linked array chunks.
+ * <p>
+ *     The queue accepts {@code null} items. {@link #peekIndex()} and {@link #poll()}
+ *     may only be called if {@link #isEmpty()} returned false.
+ * </p>
+ * @param <T> the element type
+ */
+final class SpscIndexedQueue<T> {
+
+    final int chunkSize;
+
+    final AtomicLong producerIndex;
+
+    final AtomicLong consumerIndex;
+
+    Chunk producerChunk;
+
+    int producerOffset;
+
+    Chunk consumerChunk;
+
+    int consumerOffset;
+
+    SpscIndexedQueue(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.producerIndex = new AtomicLong();
+        this.consumerIndex = new AtomicLong();
+        Chunk c = new Chunk(chunkSize);
+        this.producerChunk = c;
+        this.consumerChunk = c;
+    }
+
+    void offer(T item, long index) {
+        Chunk c = producerChunk;
+        int offset = producerOffset;
+        if (offset == chunkSize) {
+            Chunk n = new Chunk(chunkSize);
+            c.next = n;
+            producerChunk = n;
+            c = n;
+            offset = 0;
+        }
+        c.items[offset] = item;
+        c.indexes[offset] = index;
+        producerOffset = offset + 1;
+        producerIndex.setRelease(producerIndex.getPlain() + 1);
+    }
+
+    boolean isEmpty() {
+        return consumerIndex.getPlain() == producerIndex.getAcquire();
+    }
+
+    long size() {
+        return producerIndex.getAcquire() - consumerIndex.getAcquire();
+    }
+
+    long peekIndex() {
+        return consumerChunk().indexes[consumerOffset];
+    }
+
+    @SuppressWarnings("unchecked")
+    T poll() {
+        Chunk c = consumerChunk();
+        int offset = consumerOffset;
+        T v = (T)c.items[offset];
+        c.items[offset] = null;
+        consumerOffset = offset + 1;
+        consumerIndex.setRelease(consumerIndex.getPlain() + 1);
+        return v;
+    }
+
+    Chunk consumerChunk() {
+        Chunk c = consumerChunk;
+        if (consumerOffset == chunkSize) {
+            c = c.next;
+            consumerChunk = c;
+            consumerOffset = 0;
+        }
+        return c;
+    }
+
+    static final class Chunk {
+
+        final Object[] items;
+
+        final long[] indexes;
+
+        Chunk next;
+
+        Chunk(int size) {
+            this.items = new Object[size];
+            this.indexes = new long[size];
+        }
+    }
+}
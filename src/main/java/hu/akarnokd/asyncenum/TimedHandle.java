@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * A timer handle that can be armed again after it fired or got cancelled.
+ * <p>
+ *     The stamp this class extends is odd while the handle is armed; firing and
+ *     cancelling race for moving it to the next even value so that exactly one
+ *     of them wins. The owner must not arm the handle while it is armed.
+ * </p>
+ */
+abstract class TimedHandle extends AtomicLong {
+
+    final LongConsumer action;
+
+    /** The System.nanoTime() based due time of the current arming. */
+    volatile long deadline;
+
+    volatile long tag;
+
+    /** The period in nanoseconds after which the handle re-arms itself, zero if one-shot. */
+    long period;
+
+    volatile boolean disposed;
+
+    TimedHandle(LongConsumer action) {
+        this.action = action;
+    }
+
+    final void schedule(long delay, TimeUnit unit, long tag) {
+        scheduleAt(System.nanoTime() + unit.toNanos(delay), tag);
+    }
+
+    final void schedulePeriodically(long initialDelay, long period, TimeUnit unit) {
+        this.period = unit.toNanos(period);
+        scheduleAt(System.nanoTime() + unit.toNanos(initialDelay), 0L);
+    }
+
+    final void scheduleAt(long deadline, long tag) {
+        this.deadline = deadline;
+        this.tag = tag;
+        arm(incrementAndGet());
+    }
+
+    /**
+     * Disarms the handle.
+     * @return true if the handle was armed and won't fire
+     */
+    final boolean cancel() {
+        long s = get();
+        if ((s & 1L) != 0L && compareAndSet(s, s + 1)) {
+            disarm();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Disarms the handle and stops a periodic handle from re-arming itself.
+     */
+    final void dispose() {
+        disposed = true;
+        cancel();
+    }
+
+    /**
+     * Runs the action if the handle is still armed with the given stamp.
+     * @param stamp the stamp of the arming being fired
+     */
+    final void fire(long stamp) {
+        long t = tag;
+        if (compareAndSet(stamp, stamp + 1)) {
+            action.accept(t);
+            long p = period;
+            if (p != 0L && !disposed) {
+                scheduleAt(deadline + p, t);
+                if (disposed) {
+                    cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called after the handle got armed.
+     * @param stamp the stamp of this arming, to be passed to {@link #fire(long)}
+     */
+    abstract void arm(long stamp);
+
+    /**
+     * Called after a successful {@link #cancel()}.
+     */
+    void disarm() {
+        // by default, the firing is ignored
+    }
+}
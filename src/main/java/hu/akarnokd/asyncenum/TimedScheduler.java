@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongConsumer;
+
+/**
+ * Creates re-armable timed handles for the time-based operators.
+ * <p>
+ *     A {@link HashedWheelTimer} provides handles that are armed and disarmed in O(1)
+ *     without allocating per arming, any other ScheduledExecutorService is adapted
+ *     by scheduling a task per arming.
+ * </p>
+ */
+interface TimedScheduler {
+
+    /**
+     * Creates a handle that calls the action with the tag given when it was armed.
+     * @param action the action to call when the handle fires
+     * @return the new handle, initially disarmed
+     */
+    TimedHandle handle(LongConsumer action);
+
+    static TimedScheduler from(ScheduledExecutorService executor) {
+        if (executor instanceof HashedWheelTimer) {
+            return ((HashedWheelTimer)executor).scheduler;
+        }
+        return new ExecutorTimedScheduler(executor);
+    }
+}
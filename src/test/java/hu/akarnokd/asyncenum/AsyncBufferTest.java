@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class AsyncBufferTest {
+
+    @Test
+    public void exact() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5).buffer(2),
+                Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+    }
+
+    @Test
+    public void exactFits() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 4).buffer(2),
+                Arrays.asList(1, 2), Arrays.asList(3, 4));
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(AsyncEnumerable.<Integer>empty().buffer(2));
+    }
+
+    @Test
+    public void skip() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 8).buffer(2, 3),
+                Arrays.asList(1, 2), Arrays.asList(4, 5), Arrays.asList(7, 8));
+    }
+
+    @Test
+    public void skipPartial() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 7).buffer(2, 3),
+                Arrays.asList(1, 2), Arrays.asList(4, 5), Arrays.asList(7));
+    }
+
+    @Test
+    public void overlap() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5).buffer(3, 1),
+                Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4), Arrays.asList(3, 4, 5),
+                Arrays.asList(4, 5), Arrays.asList(5));
+    }
+
+    @Test
+    public void overlapTwo() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5).buffer(3, 2),
+                Arrays.asList(1, 2, 3), Arrays.asList(3, 4, 5), Arrays.asList(5));
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.range(1, 5)
+                .concatWith(AsyncEnumerable.error(new IOException()))
+                .buffer(2), IOException.class);
+    }
+
+    @Test
+    public void take() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 1000).buffer(2).take(2),
+                Arrays.asList(1, 2), Arrays.asList(3, 4));
+    }
+
+    @Test
+    public void async() {
+        TestHelper.withExecutor(executor -> {
+            List<List<Integer>> list = AsyncEnumerable.range(1, 1000)
+                    .observeOn(executor)
+                    .buffer(7, 5)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(200, list.size());
+            for (int i = 0; i < 200; i++) {
+                List<Integer> b = list.get(i);
+                assertEquals(i * 5 + 1, b.get(0).intValue());
+                assertEquals(Math.min(7, 1000 - i * 5), b.size());
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countInvalid() {
+        AsyncEnumerable.range(1, 5).buffer(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void skipInvalid() {
+        AsyncEnumerable.range(1, 5).buffer(1, 0);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncBufferTimedTest {
+
+    @Test
+    public void completesBeforeTimer() {
+        TestHelper.withScheduler(executor -> {
+            TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                    .buffer(1, TimeUnit.MINUTES, executor),
+                    Arrays.asList(1, 2, 3, 4, 5));
+        });
+    }
+
+    @Test
+    public void countFirst() {
+        TestHelper.withScheduler(executor -> {
+            TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                    .buffer(2, 1, TimeUnit.MINUTES, executor),
+                    Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+        });
+    }
+
+    @Test
+    public void timerFirst() {
+        TestHelper.withScheduler(executor -> {
+            List<List<Long>> list = AsyncEnumerable.interval(10, TimeUnit.MILLISECONDS, executor)
+                    .take(5)
+                    .concatWith(AsyncEnumerable.timer(600, TimeUnit.MILLISECONDS, executor).filter(v -> false))
+                    .buffer(100, 300, TimeUnit.MILLISECONDS, executor)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(Arrays.asList(Arrays.asList(0L, 1L, 2L, 3L, 4L)), list);
+        });
+    }
+
+    @Test
+    public void emitsWhileSourceIsIdle() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AsyncEnumerator<List<Integer>> en = AsyncEnumerable.just(1)
+                    .concatWith(AsyncEnumerable.never())
+                    .buffer(10, 50, TimeUnit.MILLISECONDS, executor)
+                    .enumerator();
+
+            assertTrue(en.moveNext().toCompletableFuture().get(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(1), en.current());
+
+            en.cancel();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void error() {
+        TestHelper.withScheduler(executor -> {
+            TestHelper.assertFailure(AsyncEnumerable.range(1, 5)
+                    .concatWith(AsyncEnumerable.error(new IOException()))
+                    .buffer(2, 1, TimeUnit.MINUTES, executor), IOException.class);
+        });
+    }
+
+    @Test
+    public void async() {
+        TestHelper.withExecutor(exec -> {
+            TestHelper.withScheduler(executor -> {
+                List<Integer> list = AsyncEnumerable.range(1, 1000)
+                        .observeOn(exec)
+                        .buffer(16, 1, TimeUnit.MILLISECONDS, executor)
+                        .flatMap(AsyncEnumerable::fromIterable)
+                        .toList()
+                        .blockingFirst();
+
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 1; i <= 1000; i++) {
+                    expected.add(i);
+                }
+                assertEquals(expected, list);
+            });
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countInvalid() {
+        AsyncEnumerable.range(1, 5).buffer(0, 1, TimeUnit.SECONDS, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timeInvalid() {
+        AsyncEnumerable.range(1, 5).buffer(1, 0, TimeUnit.SECONDS, null);
+    }
+}
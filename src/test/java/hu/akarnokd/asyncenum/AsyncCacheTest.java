@@ -19,9 +19,12 @@ package hu.akarnokd.asyncenum;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.*;
+
 public class AsyncCacheTest {
 
     @Test
@@ -111,4 +114,119 @@ public class AsyncCacheTest {
             }
         });
     }
+
+    @Test
+    public void segmentBoundaries() {
+        for (int n : new int[] { 127, 128, 129, 256, 1000 }) {
+            AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, n).cache();
+
+            List<Integer> expected = AsyncEnumerable.range(1, n).toList().blockingFirst();
+            assertEquals(expected, ae.toList().blockingFirst());
+            assertEquals(expected, ae.toList().blockingFirst());
+        }
+    }
+
+    @Test
+    public void nullItems() {
+        AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 300)
+                .map(v -> v % 2 == 0 ? null : v)
+                .cache();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            expected.add(i % 2 == 0 ? null : i);
+        }
+
+        List<Integer> list = new ArrayList<>();
+        ae.forEach(list::add).toCompletableFuture().join();
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void lateEnumeratorAsync() {
+        TestHelper.withExecutor(executor -> {
+            AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 1000)
+                    .subscribeOn(executor)
+                    .cache();
+
+            AsyncEnumerator<Integer> early = ae.enumerator();
+            List<Integer> expected = AsyncEnumerable.range(1, 1000).toList().blockingFirst();
+
+            assertEquals(expected, ae.toList().blockingFirst());
+            assertEquals(expected, ((AsyncEnumerable<Integer>)() -> early).toList().blockingFirst());
+        });
+    }
+
+    @Test
+    public void maxItems() {
+        AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 10).cache(3);
+
+        // the first enumerator started before the trimming and sees every item
+        TestHelper.assertResult(ae, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        TestHelper.assertResult(ae, 8, 9, 10);
+        TestHelper.assertResult(ae, 8, 9, 10);
+    }
+
+    @Test
+    public void maxItemsReleasesSegments() {
+        AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 1000).cache(200);
+
+        assertEquals(1000, ae.toList().blockingFirst().size());
+
+        List<Integer> expected = AsyncEnumerable.range(801, 200).toList().blockingFirst();
+        assertEquals(expected, ae.toList().blockingFirst());
+
+        AsyncCache<Integer> cache = (AsyncCache<Integer>)ae;
+        assertEquals(800L, cache.headIndex);
+        assertTrue(cache.headSegment.start > 0L);
+    }
+
+    @Test
+    public void maxAge() {
+        TestHelper.withScheduler(executor -> {
+            AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 5).cache(100, TimeUnit.MILLISECONDS, executor);
+
+            TestHelper.assertResult(ae, 1, 2, 3, 4, 5);
+            TestHelper.assertResult(ae, 1, 2, 3, 4, 5);
+
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+
+            // trimmed by the scheduled task, without new items or enumerators
+            assertEquals(5L, ((AsyncCache<Integer>)ae).headIndex);
+
+            TestHelper.assertResult(ae);
+        });
+    }
+
+    @Test
+    public void maxItemsAndAge() {
+        TestHelper.withScheduler(executor -> {
+            AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 10).cache(3, 100, TimeUnit.MILLISECONDS, executor);
+
+            TestHelper.assertResult(ae, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            TestHelper.assertResult(ae, 8, 9, 10);
+
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+
+            TestHelper.assertResult(ae);
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxItemsInvalid() {
+        AsyncEnumerable.range(1, 5).cache(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxAgeInvalid() {
+        AsyncEnumerable.range(1, 5).cache(0, TimeUnit.SECONDS, null);
+    }
 }
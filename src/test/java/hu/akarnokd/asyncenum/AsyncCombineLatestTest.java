@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncCombineLatestTest {
+
+    @Test
+    public void simple() {
+        List<Integer> list = AsyncEnumerable.combineLatest(
+                a -> (Integer)a[0] + (Integer)a[1],
+                AsyncEnumerable.range(1, 3),
+                AsyncEnumerable.range(10, 3))
+                .toList()
+                .blockingFirst();
+
+        // the first source runs to completion before the second produces its first value
+        assertEquals(3 + 10, list.get(0).intValue());
+        assertEquals(3 + 12, list.get(list.size() - 1).intValue());
+    }
+
+    @Test
+    public void noSources() {
+        TestHelper.assertResult(AsyncEnumerable.combineLatest(a -> a.length));
+    }
+
+    @Test
+    public void oneEmpty() {
+        TestHelper.assertResult(AsyncEnumerable.combineLatest(
+                a -> a[0],
+                AsyncEnumerable.range(1, 3),
+                AsyncEnumerable.empty()));
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.assertResult(AsyncEnumerable.combineLatest(
+                a -> Objects.toString(a[0]) + a[1],
+                AsyncEnumerable.just(1).map(v -> (Integer)null),
+                AsyncEnumerable.range(1, 2)),
+                "null1", "null2");
+    }
+
+    @Test
+    public void interleaved() {
+        TestHelper.ManualSource s1 = new TestHelper.ManualSource();
+        TestHelper.ManualSource s2 = new TestHelper.ManualSource();
+
+        AsyncEnumerator<String> en = AsyncEnumerable.combineLatest(a -> a[0] + "-" + a[1], s1, s2)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+
+        s1.emit(1);
+        assertFalse(f.isDone());
+        s2.emit(10);
+        assertTrue(f.join());
+        assertEquals("1-10", en.current());
+
+        f = en.moveNext().toCompletableFuture();
+        s1.emit(2);
+        assertTrue(f.join());
+        assertEquals("2-10", en.current());
+
+        f = en.moveNext().toCompletableFuture();
+        s1.complete();
+        assertFalse(f.isDone());
+        s2.emit(11);
+        assertTrue(f.join());
+        assertEquals("2-11", en.current());
+
+        f = en.moveNext().toCompletableFuture();
+        s2.complete();
+        assertFalse(f.join());
+    }
+
+    @Test
+    public void conflatesForSlowConsumer() {
+        TestHelper.ManualSource s1 = new TestHelper.ManualSource();
+        TestHelper.ManualSource s2 = new TestHelper.ManualSource();
+
+        AsyncEnumerator<String> en = AsyncEnumerable.combineLatest(a -> a[0] + "-" + a[1], s1, s2)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        s1.emit(1);
+        s2.emit(10);
+        assertTrue(f.join());
+        assertEquals("1-10", en.current());
+
+        s1.emit(2);
+        s2.emit(11);
+        s1.emit(3);
+        s2.emit(12);
+
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals("3-12", en.current());
+
+        s1.complete();
+        s2.complete();
+
+        assertFalse(en.moveNext().toCompletableFuture().join());
+    }
+
+    @Test
+    public void asyncSources() {
+        TestHelper.withExecutor(exec1 -> {
+            TestHelper.withExecutor(exec2 -> {
+                List<Integer> list = AsyncEnumerable.combineLatest(
+                        a -> (Integer)a[0] + (Integer)a[1],
+                        AsyncEnumerable.range(1, 1000).subscribeOn(exec1),
+                        AsyncEnumerable.range(1, 1000).subscribeOn(exec2))
+                        .toList()
+                        .blockingFirst();
+
+                assertFalse(list.isEmpty());
+                assertEquals(2000, list.get(list.size() - 1).intValue());
+            });
+        });
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.combineLatest(
+                a -> a[0],
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.error(new IOException())),
+                IOException.class);
+    }
+
+    @Test
+    public void errorCancelsOthers() {
+        TestHelper.ManualSource s1 = new TestHelper.ManualSource();
+        TestHelper.ManualSource s2 = new TestHelper.ManualSource();
+
+        AsyncEnumerator<Object> en = AsyncEnumerable.combineLatest(a -> a[0], s1, s2)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        s1.emit(1);
+        s2.fail(new IOException());
+
+        assertTrue(f.isCompletedExceptionally());
+        assertEquals(1, s1.cancelled.get());
+    }
+
+    @Test
+    public void combinerCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.combineLatest(
+                a -> {
+                    throw new IllegalStateException("forced failure");
+                },
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 5)),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void cancelRace() {
+        TestHelper.cancelRace(f -> AsyncEnumerable.combineLatest(a -> a[0], f, AsyncEnumerable.just(1)));
+    }
+}
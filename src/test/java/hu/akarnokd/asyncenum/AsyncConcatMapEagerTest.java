@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncConcatMapEagerTest {
+
+    @Test
+    public void synchronous() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                .concatMapEager(v -> AsyncEnumerable.range(v * 10, 3), 2, 2),
+                10, 11, 12, 20, 21, 22, 30, 31, 32);
+    }
+
+    @Test
+    public void emptyInners() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                .concatMapEager(v -> v % 2 == 0 ? AsyncEnumerable.just(v) : AsyncEnumerable.<Integer>empty(), 3, 1),
+                2, 4);
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(AsyncEnumerable.<Integer>empty()
+                .concatMapEager(v -> AsyncEnumerable.range(v, 3), 2, 2));
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 2)
+                .concatMapEager(v -> AsyncEnumerable.just(v).map(w -> (Integer)null), 2, 2),
+                null, null);
+    }
+
+    @Test
+    public void keepsUpstreamOrder() {
+        TestHelper.withScheduler(exec -> {
+            List<Integer> list = AsyncEnumerable.range(1, 5)
+                    .concatMapEager(v -> AsyncEnumerable.timer(60 - v * 10, TimeUnit.MILLISECONDS, exec)
+                            .map(t -> v), 5, 1)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+        });
+    }
+
+    @Test
+    public void innersRunConcurrently() {
+        List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .concatMapEager(v -> () -> new AsyncEnumerator<Integer>() {
+                    @Override
+                    public CompletionStage<Boolean> moveNext() {
+                        CompletableFuture<Boolean> cf = new CompletableFuture<>();
+                        pending.add(cf);
+                        return cf;
+                    }
+
+                    @Override
+                    public Integer current() {
+                        return v;
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                }, 3, 1)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+
+        assertEquals(3, pending.size());
+        assertFalse(f.isDone());
+
+        pending.get(1).complete(true);
+        assertFalse(f.isDone());
+
+        pending.get(0).complete(true);
+        assertTrue(f.join());
+        assertEquals(1, en.current().intValue());
+
+        // the first inner was asked for its next item when its first one was taken
+        assertEquals(4, pending.size());
+
+        f = en.moveNext().toCompletableFuture();
+        assertFalse(f.isDone());
+
+        // ending the first inner emits the item the second one already prefetched
+        // and starts the fourth inner
+        pending.get(3).complete(false);
+        assertTrue(f.join());
+        assertEquals(2, en.current().intValue());
+        assertEquals(6, pending.size());
+
+        en.cancel();
+    }
+
+    @Test
+    public void maxConcurrencyLimitsActiveInners() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Integer> list = AsyncEnumerable.range(1, 10)
+                .concatMapEager(v -> () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    return AsyncEnumerable.range(v, 3)
+                            .doFinally(active::decrementAndGet)
+                            .enumerator();
+                }, 2, 2)
+                .toList()
+                .blockingFirst();
+
+        assertEquals(30, list.size());
+
+        assertTrue(maxActive.get() <= 2);
+    }
+
+    @Test
+    public void asynchronous() {
+        TestHelper.withExecutor(exec -> {
+            List<Integer> list = AsyncEnumerable.range(0, 100)
+                    .concatMapEager(v -> AsyncEnumerable.range(v * 100, 100).subscribeOn(exec), 8, 16)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(10_000, list.size());
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+        });
+    }
+
+    @Test
+    public void lazyUpstream() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .doOnNext(v -> calls.getAndIncrement())
+                .concatMapEager(v -> AsyncEnumerable.just(v), 2, 1)
+                .enumerator();
+
+        assertEquals(0, calls.get());
+
+        en.moveNext();
+
+        assertTrue(calls.get() > 0);
+        en.cancel();
+    }
+
+    @Test
+    public void mainError() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .concatMapEager(v -> AsyncEnumerable.range(v, 3), 2, 2),
+                IOException.class);
+    }
+
+    @Test
+    public void innerError() {
+        TestHelper.assertFailure(AsyncEnumerable.range(1, 3)
+                .concatMapEager(v -> v == 2 ? AsyncEnumerable.<Integer>error(new IOException()) : AsyncEnumerable.just(v), 2, 2),
+                IOException.class);
+    }
+
+    @Test
+    public void mapperCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.just(1)
+                .concatMapEager(v -> {
+                    throw new IllegalStateException("forced failure");
+                }, 2, 2),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxConcurrencyInvalid() {
+        AsyncEnumerable.range(1, 5).concatMapEager(v -> AsyncEnumerable.just(v), 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.range(1, 5).concatMapEager(v -> AsyncEnumerable.just(v), 1, 0);
+    }
+
+    @Test
+    public void cancelRace() {
+        TestHelper.cancelRace(f -> f.concatMapEager(v -> AsyncEnumerable.range(v, 2), 4, 4));
+    }
+
+    @Test
+    public void innerNotPulledBeforeCurrentRead() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.just(1)
+                .concatMapEager(v -> source, 1, 4)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        source.emit(0);
+        assertTrue(f.join());
+        assertEquals(0, en.current().intValue());
+        source.emit(1);
+        source.emit(2);
+
+        Thread t = source.emitBlockingCurrent(3);
+
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(1, en.current().intValue());
+        // taking the third item of the batch replenishes the inner
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(2, en.current().intValue());
+
+        source.releaseCurrent();
+        t.join();
+
+        assertEquals(0, source.moveNextDuringCurrent.get());
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(3, en.current().intValue());
+        en.cancel();
+    }
+
+    @Test
+    public void upstreamNotPulledBeforeCurrentRead() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerator<Integer> en = source
+                .concatMapEager(v -> AsyncEnumerable.just(v), 2, 1)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        source.emit(0);
+        assertTrue(f.join());
+        assertEquals(0, en.current().intValue());
+
+        Thread t = source.emitBlockingCurrent(1);
+
+        // removing the finished first inner pulls the upstream again
+        f = en.moveNext().toCompletableFuture();
+
+        source.releaseCurrent();
+        t.join();
+
+        assertEquals(0, source.moveNextDuringCurrent.get());
+        assertTrue(f.join());
+        assertEquals(1, en.current().intValue());
+        en.cancel();
+    }
+}
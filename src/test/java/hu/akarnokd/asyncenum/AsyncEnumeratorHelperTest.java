@@ -18,6 +18,7 @@ package hu.akarnokd.asyncenum;
 
 import org.junit.Test;
 
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -82,4 +83,22 @@ public class AsyncEnumeratorHelperTest {
     public void cancelledCancel() {
         AsyncEnumeratorHelper.CANCELLED.cancel();
     }
+
+    @Test
+    public void whenCompleteConstants() {
+        List<Boolean> list = new ArrayList<>();
+        AsyncEnumeratorHelper.whenComplete(AsyncEnumerable.TRUE, (b, e) -> list.add(b));
+        AsyncEnumeratorHelper.whenComplete(AsyncEnumerable.FALSE, (b, e) -> list.add(b));
+        AsyncEnumeratorHelper.whenComplete(CompletableFuture.completedFuture(true), (b, e) -> list.add(b));
+
+        assertEquals(Arrays.asList(true, false, true), list);
+    }
+
+    @Test
+    public void whenCompleteError() {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AsyncEnumeratorHelper.whenComplete(AsyncEnumerable.CANCELLED, (b, e) -> error.set(e));
+
+        assertTrue(error.get() instanceof CancelledEnumeratorException);
+    }
 }
@@ -20,7 +20,7 @@ import org.junit.Test;
 
 import java.util.*;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class AsyncFilterTest {
 
@@ -42,6 +42,17 @@ public class AsyncFilterTest {
                 RuntimeException.class, "forced failure"
         );
     }
-}
 
+    @Test
+    public void synchronousFastPath() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .filter(v -> v % 2 == 0)
+                .enumerator();
 
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(2, en.current().intValue());
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(4, en.current().intValue());
+        assertSame(AsyncEnumerable.FALSE, en.moveNext());
+    }
+}
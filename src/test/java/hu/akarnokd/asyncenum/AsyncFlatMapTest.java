@@ -19,8 +19,10 @@ package hu.akarnokd.asyncenum;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class AsyncFlatMapTest {
 
@@ -68,4 +70,147 @@ public class AsyncFlatMapTest {
                 RuntimeException.class, "forced failure"
         );
     }
+
+    @Test
+    public void maxConcurrencyOne() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 5)
+                        .flatMap(v -> AsyncEnumerable.range(v, 2), 1, 1),
+                1, 2, 2, 3, 3, 4, 4, 5, 5, 6
+        );
+    }
+
+    @Test
+    public void maxConcurrencyLimitsActiveInners() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Integer> list = AsyncEnumerable.range(1, 10)
+                .flatMap(v -> () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    return AsyncEnumerable.range(v, 3)
+                            .doFinally(active::decrementAndGet)
+                            .enumerator();
+                }, 2, 2)
+                .toList()
+                .blockingFirst();
+
+        assertEquals(30, list.size());
+
+        assertEquals(2, maxActive.get());
+    }
+
+    @Test
+    public void prefetchLarge() {
+        List<Integer> list = AsyncEnumerable.range(1, 3)
+                .flatMap(v -> AsyncEnumerable.range(v * 100, 100), 3, 16)
+                .toList()
+                .blockingFirst();
+
+        assertEquals(300, list.size());
+        assertEquals(300, new HashSet<>(list).size());
+    }
+
+    @Test
+    public void lazyUpstream() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .doOnNext(v -> calls.getAndIncrement())
+                .flatMap(v -> AsyncEnumerable.just(v), 2, 1)
+                .enumerator();
+
+        assertEquals(0, calls.get());
+
+        en.moveNext();
+
+        assertTrue(calls.get() > 0);
+        en.cancel();
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 3)
+                        .flatMap(v -> AsyncEnumerable.fromArray(null, v), 1, 4),
+                null, 1, null, 2, null, 3
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxConcurrencyInvalid() {
+        AsyncEnumerable.range(1, 5).flatMap(v -> AsyncEnumerable.just(v), 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.range(1, 5).flatMap(v -> AsyncEnumerable.just(v), 1, 0);
+    }
+
+    @Test
+    public void asynchronous() {
+        TestHelper.withExecutor(executor ->
+                assertEquals(1000, AsyncEnumerable.range(1, 1000)
+                        .flatMap(v -> AsyncEnumerable.just(v).subscribeOn(executor), 4, 2)
+                        .toList()
+                        .blockingFirst()
+                        .size())
+        );
+    }
+
+    @Test
+    public void innerNotPulledBeforeCurrentRead() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.just(1)
+                .flatMap(v -> source, 1, 4)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        source.emit(0);
+        assertTrue(f.join());
+        assertEquals(0, en.current().intValue());
+        source.emit(1);
+        source.emit(2);
+
+        Thread t = source.emitBlockingCurrent(3);
+
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(1, en.current().intValue());
+        // taking the third item of the batch replenishes the inner
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(2, en.current().intValue());
+
+        source.releaseCurrent();
+        t.join();
+
+        assertEquals(0, source.moveNextDuringCurrent.get());
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(3, en.current().intValue());
+        en.cancel();
+    }
+
+    @Test
+    public void upstreamNotPulledBeforeCurrentRead() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerator<Integer> en = source
+                .flatMap(v -> AsyncEnumerable.just(v), 2, 1)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        source.emit(0);
+        assertTrue(f.join());
+        assertEquals(0, en.current().intValue());
+
+        Thread t = source.emitBlockingCurrent(1);
+
+        // removing the finished first inner pulls the upstream again
+        f = en.moveNext().toCompletableFuture();
+
+        source.releaseCurrent();
+        t.join();
+
+        assertEquals(0, source.moveNextDuringCurrent.get());
+        assertTrue(f.join());
+        assertEquals(1, en.current().intValue());
+        en.cancel();
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncFromBlockingIteratorTest {
+
+    static final ThreadFactory DAEMON = r -> {
+        Thread t = new Thread(r, "BlockingProducer");
+        t.setDaemon(true);
+        return t;
+    };
+
+    static List<Integer> list(int count) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @Test
+    public void simple() {
+        TestHelper.assertResult(
+                AsyncEnumerable.fromBlockingIterator(() -> list(5).iterator(), DAEMON),
+                1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(
+                AsyncEnumerable.<Integer>fromBlockingIterator(Collections::emptyIterator, DAEMON));
+    }
+
+    @Test
+    public void manyItemsSmallBuffer() {
+        for (int b = 1; b <= 8; b++) {
+            assertEquals(list(1000),
+                    AsyncEnumerable.fromBlockingIterator(() -> list(1000).iterator(), DAEMON, b)
+                            .toList()
+                            .blockingFirst());
+        }
+    }
+
+    @Test
+    public void batch() throws Exception {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromBlockingIterator(() -> list(1000).iterator(), DAEMON, 16)
+                .enumerator();
+
+        List<Integer> result = new ArrayList<>();
+        while (en.moveNextBatch(10, result::add).toCompletableFuture().get()) {
+            // collects the batches
+        }
+
+        assertEquals(list(1000), result);
+    }
+
+    @Test
+    public void runsOnFactoryThread() {
+        List<String> names = new ArrayList<>();
+        TestHelper.assertResult(
+                AsyncEnumerable.fromBlockingIterator(() -> new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        names.add(Thread.currentThread().getName());
+                        return false;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        throw new NoSuchElementException();
+                    }
+                }, DAEMON));
+
+        assertEquals(Collections.singletonList("BlockingProducer"), names);
+    }
+
+    @Test
+    public void lazy() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromBlockingIterator(() -> {
+            calls.getAndIncrement();
+            return list(5).iterator();
+        }, DAEMON).enumerator();
+
+        assertEquals(0, calls.get());
+        en.cancel();
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.fromBlockingIterator(() -> new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        throw new IllegalStateException("forced failure");
+                    }
+
+                    @Override
+                    public Integer next() {
+                        throw new NoSuchElementException();
+                    }
+                }, DAEMON),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void nullItem() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.fromBlockingIterator(() -> Arrays.asList(1, null).iterator(), DAEMON)
+                        .skip(1),
+                NullPointerException.class);
+    }
+
+    @Test
+    public void cancelInterruptsProducer() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromBlockingIterator(() -> new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return false;
+            }
+
+            @Override
+            public Integer next() {
+                throw new NoSuchElementException();
+            }
+        }, DAEMON).enumerator();
+
+        en.moveNext();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        en.cancel();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void takeStopsProducer() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        TestHelper.assertResult(
+                AsyncEnumerable.fromBlockingIterator(() -> new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        return produced.incrementAndGet();
+                    }
+                }, DAEMON, 8).take(3),
+                1, 2, 3);
+
+        Thread.sleep(100);
+        int p = produced.get();
+        Thread.sleep(100);
+        assertEquals(p, produced.get());
+        assertTrue("" + p, p <= 3 + 8 + 1);
+    }
+
+    @Test
+    public void forEachConsumerCrash() throws Exception {
+        CompletionStage<Boolean> stage = AsyncEnumerable.fromBlockingIterator(() -> new Iterator<Integer>() {
+            int count;
+
+            @Override
+            public boolean hasNext() {
+                return count < 5;
+            }
+
+            @Override
+            public Integer next() {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ex) {
+                    throw new NoSuchElementException();
+                }
+                return ++count;
+            }
+        }, DAEMON).forEach(v -> {
+            throw new IllegalStateException("forced failure");
+        });
+
+        try {
+            stage.toCompletableFuture().get(5, TimeUnit.SECONDS);
+            fail("Should have thrown");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause().toString(), ex.getCause() instanceof IllegalStateException);
+            assertEquals("forced failure", ex.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferSizeInvalid() {
+        AsyncEnumerable.fromBlockingIterator(() -> list(5).iterator(), DAEMON, 0);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncFromBlockingQueueTest {
+
+    @Test
+    public void take() {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        for (int i = 1; i <= 10; i++) {
+            queue.offer(i);
+        }
+
+        TestHelper.assertResult(
+                AsyncEnumerable.fromBlockingQueue(queue, AsyncFromBlockingIteratorTest.DAEMON).take(5),
+                1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void waitsForItems() throws Exception {
+        BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(2);
+        TestHelper.withExecutor(executor -> {
+            executor.execute(() -> {
+                for (int i = 1; i <= 100; i++) {
+                    try {
+                        queue.put(i);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            });
+
+            assertEquals(5050, AsyncEnumerable.fromBlockingQueue(queue, AsyncFromBlockingIteratorTest.DAEMON, 4)
+                    .take(100)
+                    .sumInt(v -> v)
+                    .blockingFirst().intValue());
+        });
+    }
+
+    @Test
+    public void cancelInterruptsProducer() throws Exception {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch ended = new CountDownLatch(1);
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromBlockingQueue(queue, r -> {
+            Thread t = new Thread(() -> {
+                started.countDown();
+                r.run();
+                ended.countDown();
+            });
+            t.setDaemon(true);
+            return t;
+        }).enumerator();
+
+        en.moveNext();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        en.cancel();
+
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferSizeInvalid() {
+        AsyncEnumerable.fromBlockingQueue(new LinkedBlockingQueue<Integer>(), AsyncFromBlockingIteratorTest.DAEMON, -1);
+    }
+}
@@ -151,6 +151,108 @@ public class AsyncFromFlowPublisherTest {
         });
     }
 
+    @Test
+    public void prefetchBatches() {
+        List<Long> requests = Collections.synchronizedList(new ArrayList<>());
+        SubmissionPublisher<Integer> sp = new SubmissionPublisher<>();
+
+        Flow.Publisher<Integer> source = subscriber -> sp.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                        requests.add(n);
+                        subscription.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        subscription.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+
+        TestHelper.withExecutor(executor -> {
+            executor.submit(() -> {
+                while (sp.getNumberOfSubscribers() == 0) {
+                    Thread.sleep(1);
+                }
+                for (int i = 0; i < 100; i++) {
+                    sp.submit(i);
+                }
+                sp.close();
+                return null;
+            });
+
+            List<Integer> list = AsyncEnumerable.fromFlowPublisher(source, 16)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(100, list.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+        });
+
+        assertEquals(16L, requests.get(0).longValue());
+        for (int i = 1; i < requests.size(); i++) {
+            assertEquals(12L, requests.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void prefetchOne() {
+        TestHelper.assertResult(
+                AsyncEnumerable.fromFlowPublisher(AsyncEnumerable.range(1, 5).toFlowPublisher(), 1),
+                1, 2, 3, 4, 5
+        );
+    }
+
+    @Test
+    public void prefetchLarge() {
+        List<Integer> list = AsyncEnumerable.fromFlowPublisher(AsyncEnumerable.range(1, 1000).toFlowPublisher(), 64)
+                .toList()
+                .blockingFirst();
+
+        assertEquals(1000, list.size());
+    }
+
+    @Test
+    public void overflow() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.fromFlowPublisher(subscriber -> {
+                    subscriber.onSubscribe(new BooleanSubscription());
+                    subscriber.onNext(1);
+                    subscriber.onNext(2);
+                    subscriber.onNext(3);
+                    subscriber.onComplete();
+                }, 2),
+                IllegalStateException.class
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.fromFlowPublisher(AsyncEnumerable.range(1, 5).toFlowPublisher(), 0);
+    }
+
     static final class BooleanSubscription extends AtomicBoolean implements Flow.Subscription {
 
         @Override
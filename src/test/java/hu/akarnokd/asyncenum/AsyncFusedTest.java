@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncFusedTest {
+
+    @Test
+    public void singleStageNotFused() {
+        assertTrue(AsyncEnumerable.range(1, 5).map(v -> v) instanceof AsyncMap);
+    }
+
+    @Test
+    public void consecutiveStagesFused() {
+        AsyncEnumerable<Integer> source = AsyncEnumerable.range(1, 5)
+                .filter(v -> true)
+                .map(v -> v)
+                .skip(1)
+                .take(3)
+                .doOnNext(v -> { })
+                .takeWhile(v -> true)
+                .skipWhile(v -> false);
+
+        assertTrue(source instanceof AsyncFused);
+        assertEquals(7, ((AsyncFused<Integer>)source).stages.length);
+    }
+
+    @Test
+    public void chain() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 20)
+                        .filter(v -> v % 2 == 0)
+                        .map(v -> v * 10)
+                        .skip(2)
+                        .take(4),
+                60, 80, 100, 120
+        );
+    }
+
+    @Test
+    public void chainAsync() {
+        TestHelper.withExecutor(executor ->
+                TestHelper.assertResult(
+                        AsyncEnumerable.range(1, 20)
+                                .subscribeOn(executor)
+                                .filter(v -> v % 2 == 0)
+                                .map(v -> v * 10)
+                                .skip(2)
+                                .take(4),
+                        60, 80, 100, 120
+                )
+        );
+    }
+
+    @Test
+    public void mapperCalledOncePerItem() {
+        AtomicInteger calls = new AtomicInteger();
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 5)
+                        .map(v -> {
+                            calls.getAndIncrement();
+                            return v + 1;
+                        })
+                        .filter(v -> v > 2)
+                        .map(v -> v * 2),
+                6, 8, 10, 12
+        );
+
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void mapCurrentMemoized() {
+        AtomicInteger calls = new AtomicInteger();
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .map(v -> {
+                    calls.getAndIncrement();
+                    return v + 1;
+                })
+                .enumerator();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(2, en.current().intValue());
+        assertEquals(2, en.current().intValue());
+        assertEquals(1, calls.get());
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(3, en.current().intValue());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void takeWhileSkipWhile() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 10)
+                        .skipWhile(v -> v < 3)
+                        .takeWhile(v -> v < 7)
+                        .map(v -> -v),
+                -3, -4, -5, -6
+        );
+    }
+
+    @Test
+    public void takeZero() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 10)
+                        .map(v -> v)
+                        .take(0)
+        );
+    }
+
+    @Test
+    public void takeThenFilterStops() {
+        AtomicInteger pulled = new AtomicInteger();
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 10)
+                        .doOnNext(v -> pulled.getAndIncrement())
+                        .take(3)
+                        .filter(v -> v == 1),
+                1
+        );
+
+        assertEquals(3, pulled.get());
+    }
+
+    @Test
+    public void doOnOrder() {
+        List<String> list = new ArrayList<>();
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 2)
+                        .doOnNext(v -> list.add("a" + v))
+                        .doOnComplete(() -> list.add("a-complete"))
+                        .map(v -> v * 2)
+                        .doOnNext(v -> list.add("b" + v))
+                        .doOnComplete(() -> list.add("b-complete")),
+                2, 4
+        );
+
+        assertEquals(Arrays.asList("a1", "b2", "a2", "b4", "a-complete", "b-complete"), list);
+    }
+
+    @Test
+    public void doOnCompleteAfterTake() {
+        List<String> list = new ArrayList<>();
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 5)
+                        .doOnComplete(() -> list.add("before"))
+                        .take(2)
+                        .doOnComplete(() -> list.add("after")),
+                1, 2
+        );
+
+        assertEquals(Collections.singletonList("after"), list);
+    }
+
+    @Test
+    public void doOnError() {
+        List<Throwable> list = new ArrayList<>();
+        TestHelper.assertFailure(
+                AsyncEnumerable.<Integer>error(new IOException())
+                        .map(v -> v + 1)
+                        .doOnError(list::add),
+                IOException.class
+        );
+
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void mapperCrash() {
+        List<Throwable> list = new ArrayList<>();
+        TestHelper.assertFailure(
+                AsyncEnumerable.range(1, 5)
+                        .doOnError(list::add)
+                        .map(v -> {
+                            if (v == 3) {
+                                throw new IllegalArgumentException();
+                            }
+                            return v;
+                        })
+                        .doOnError(list::add),
+                IllegalArgumentException.class
+        );
+
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void mapperCrashAsync() {
+        TestHelper.withExecutor(executor ->
+                TestHelper.assertFailure(
+                        AsyncEnumerable.range(1, 5)
+                                .subscribeOn(executor)
+                                .filter(v -> true)
+                                .map(v -> {
+                                    if (v == 3) {
+                                        throw new IllegalArgumentException();
+                                    }
+                                    return v;
+                                }),
+                        IllegalArgumentException.class
+                )
+        );
+    }
+
+    @Test
+    public void longChainAsync() {
+        TestHelper.withExecutor(executor -> {
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .subscribeOn(executor)
+                    .filter(v -> v % 3 != 0)
+                    .map(v -> v + 1)
+                    .skip(10)
+                    .filter(v -> v % 2 == 0)
+                    .take(100)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(100, list.size());
+        });
+    }
+
+    @Test
+    public void batchFused() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 20)
+                .skip(2)
+                .filter(v -> v % 2 == 0)
+                .skipWhile(v -> v < 6)
+                .map(v -> v * 10)
+                .enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(10, list::add));
+        assertEquals(Arrays.asList(60, 80, 100), list);
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(10, list::add));
+        assertEquals(Arrays.asList(60, 80, 100, 120, 140, 160, 180, 200), list);
+    }
+
+    @Test
+    public void batchWithTake() throws Exception {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 20)
+                .map(v -> v + 1)
+                .take(3)
+                .enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertFalse(en.moveNextBatch(10, list::add).toCompletableFuture().get());
+        assertEquals(Arrays.asList(2, 3, 4), list);
+    }
+}
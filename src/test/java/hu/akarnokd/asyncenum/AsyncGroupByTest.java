@@ -23,8 +23,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class AsyncGroupByTest {
 
@@ -188,4 +187,238 @@ public class AsyncGroupByTest {
             }
         }
     }
+
+    @Test
+    public void boundedGroups() {
+        Map<Integer, List<Integer>> map = new HashMap<>();
+        AsyncEnumerable.range(1, 10)
+                .groupBy(v -> v & 1, v -> v * 10, 2, 16)
+                .flatMap(g -> g.toList().map(list -> {
+                    map.put(g.key(), list);
+                    return list;
+                }))
+                .blockingLast();
+
+        assertEquals(Arrays.asList(10, 30, 50, 70, 90), map.get(1));
+        assertEquals(Arrays.asList(20, 40, 60, 80, 100), map.get(0));
+    }
+
+    @Test
+    public void boundedGroupsConsumedOutOfOrder() throws Exception {
+        AsyncEnumerator<GroupedAsyncEnumerable<Integer, Integer>> main = AsyncEnumerable.range(1, 10)
+                .groupBy(v -> v & 1, v -> v, 5, 16)
+                .enumerator();
+
+        assertTrue(main.moveNext().toCompletableFuture().get());
+        AsyncEnumerator<Integer> odd = main.current().enumerator();
+        assertTrue(main.moveNext().toCompletableFuture().get());
+        AsyncEnumerator<Integer> even = main.current().enumerator();
+
+        for (int i = 2; i <= 10; i += 2) {
+            assertTrue(even.moveNext().toCompletableFuture().get());
+            assertEquals(i, even.current().intValue());
+        }
+        assertFalse(even.moveNext().toCompletableFuture().get());
+
+        for (int i = 1; i <= 9; i += 2) {
+            assertTrue(odd.moveNext().toCompletableFuture().get());
+            assertEquals(i, odd.current().intValue());
+        }
+        assertFalse(odd.moveNext().toCompletableFuture().get());
+        assertFalse(main.moveNext().toCompletableFuture().get());
+    }
+
+    @Test
+    public void boundedFullGroupHoldsUpstream() throws Exception {
+        AsyncEnumerator<GroupedAsyncEnumerable<Integer, Integer>> main = AsyncEnumerable.range(1, 10)
+                .groupBy(v -> v & 1, v -> v, 2, 16)
+                .enumerator();
+
+        assertTrue(main.moveNext().toCompletableFuture().get());
+        AsyncEnumerator<Integer> odd = main.current().enumerator();
+        assertTrue(main.moveNext().toCompletableFuture().get());
+        AsyncEnumerator<Integer> even = main.current().enumerator();
+
+        assertTrue(even.moveNext().toCompletableFuture().get());
+        assertEquals(2, even.current().intValue());
+        assertTrue(even.moveNext().toCompletableFuture().get());
+        assertEquals(4, even.current().intValue());
+
+        // 5 waits for room in the odd group
+        CompletableFuture<Boolean> cf = even.moveNext().toCompletableFuture();
+        assertFalse(cf.isDone());
+
+        assertTrue(odd.moveNext().toCompletableFuture().get());
+        assertEquals(1, odd.current().intValue());
+
+        assertTrue(cf.get());
+        assertEquals(6, even.current().intValue());
+    }
+
+    @Test
+    public void boundedMaxGroupsEvictsLeastRecent() {
+        List<List<Integer>> lists = AsyncEnumerable.range(1, 6)
+                .groupBy(v -> v % 3, v -> v, 4, 2)
+                .flatMap(g -> g.toList())
+                .toList()
+                .blockingFirst();
+
+        lists.sort(Comparator.comparing(list -> list.get(0)));
+
+        assertEquals(Arrays.asList(Arrays.asList(1), Arrays.asList(2), Arrays.asList(3),
+                Arrays.asList(4), Arrays.asList(5), Arrays.asList(6)), lists);
+    }
+
+    @Test
+    public void boundedMaxGroupsNotReached() {
+        List<List<Integer>> lists = AsyncEnumerable.range(1, 6)
+                .groupBy(v -> v % 3, v -> v, 4, 3)
+                .flatMap(g -> g.toList())
+                .toList()
+                .blockingFirst();
+
+        lists.sort(Comparator.comparing(list -> list.get(0)));
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 4), Arrays.asList(2, 5), Arrays.asList(3, 6)), lists);
+    }
+
+    @Test
+    public void boundedIdleGroupCompleted() {
+        TestHelper.withScheduler(executor -> {
+            List<Integer> list = AsyncEnumerable.just(1)
+                    .concatWith(AsyncEnumerable.never())
+                    .groupBy(v -> v, v -> v, 4, 16, 50, TimeUnit.MILLISECONDS, executor)
+                    .take(1)
+                    .flatMap(g -> g.toList())
+                    .blockingFirst();
+
+            assertEquals(Collections.singletonList(1), list);
+        });
+    }
+
+    @Test
+    public void boundedIdleGroupBehindFullGroupEvicted() throws Exception {
+        List<Runnable> timerTasks = new ArrayList<>();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                timerTasks.add(command);
+                return null;
+            }
+        };
+        try {
+            TestHelper.ManualSource source = new TestHelper.ManualSource();
+            AsyncEnumerator<GroupedAsyncEnumerable<Integer, Integer>> main = source
+                    .groupBy(v -> v & 1, v -> v, 1, 16, 200, TimeUnit.MILLISECONDS, executor)
+                    .enumerator();
+
+            CompletableFuture<Boolean> cf = main.moveNext().toCompletableFuture();
+            source.emit(0);
+            assertTrue(cf.get());
+            AsyncEnumerator<Integer> even = main.current().enumerator();
+
+            Thread.sleep(250);
+
+            cf = main.moveNext().toCompletableFuture();
+            source.emit(1);
+            assertTrue(cf.get());
+            // the even group is full, looking it up must not make it the most recent one
+            source.emit(2);
+
+            timerTasks.get(0).run();
+
+            assertTrue(even.moveNext().toCompletableFuture().get());
+            assertEquals(0, even.current().intValue());
+            assertFalse(even.moveNext().toCompletableFuture().get());
+            main.cancel();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void boundedError() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .groupBy(v -> v, v -> v, 4, 16)
+                .flatMap(g -> g), IOException.class);
+    }
+
+    @Test
+    public void boundedErrorInGroup() {
+        TestHelper.assertFailure(AsyncEnumerable.range(1, 5)
+                .concatWith(AsyncEnumerable.error(new IOException()))
+                .groupBy(v -> 1, v -> v, 4, 16)
+                .flatMap(g -> g), IOException.class);
+    }
+
+    @Test
+    public void boundedKeySelectorCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.range(1, 5)
+                .groupBy(v -> {
+                    if (v == 3) {
+                        throw new IllegalArgumentException();
+                    }
+                    return v;
+                }, v -> v, 4, 16)
+                .flatMap(g -> g), IllegalArgumentException.class);
+    }
+
+    @Test
+    public void boundedCancelGroup() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 10)
+                .groupBy(v -> 1, v -> v, 2, 16)
+                .take(1)
+                .flatMap(g -> g.take(3)), 1, 2, 3);
+    }
+
+    @Test
+    public void boundedNullValues() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                .groupBy(v -> 1, v -> (Integer)null, 2, 16)
+                .flatMap(g -> g.toList().map(List::size)), 3);
+    }
+
+    @Test
+    public void boundedGroupsAsync() {
+        TestHelper.withExecutor(executor -> {
+            for (int i = 0; i < 10; i++) {
+                List<Integer> list = AsyncEnumerable.range(1, 1000)
+                        .groupBy(v -> v % 8, v -> v, 4, 6)
+                        .flatMap(g -> g.observeOn(executor))
+                        .toList()
+                        .blockingFirst();
+
+                assertEquals(1000, list.size());
+                assertEquals(1000, new HashSet<>(list).size());
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedInvalidPrefetch() {
+        AsyncEnumerable.range(1, 5).groupBy(v -> v, v -> v, 0, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedInvalidMaxGroups() {
+        AsyncEnumerable.range(1, 5).groupBy(v -> v, v -> v, 16, 0);
+    }
+
+    @Test
+    public void boundedOneEnumerablePerGroup() throws Exception {
+        AsyncEnumerator<GroupedAsyncEnumerable<Integer, Integer>> main = AsyncEnumerable.just(1)
+                .groupBy(v -> v, v -> v, 4, 16)
+                .enumerator();
+
+        assertTrue(main.moveNext().toCompletableFuture().get());
+        main.current().enumerator();
+        try {
+            main.current().enumerator().moveNext().toCompletableFuture().get();
+            fail("Should have thrown");
+        } catch (ExecutionException ex) {
+            if (!(ex.getCause() instanceof IllegalStateException)) {
+                throw new AssertionError(ex);
+            }
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncMergeSortedTest {
+
+    @Test
+    public void simple() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(),
+                AsyncEnumerable.fromArray(1, 4, 7),
+                AsyncEnumerable.fromArray(2, 5, 8),
+                AsyncEnumerable.fromArray(3, 6, 9)),
+                1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    public void differentLengths() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(), 1,
+                AsyncEnumerable.fromArray(1, 2, 3, 10, 11),
+                AsyncEnumerable.<Integer>empty(),
+                AsyncEnumerable.fromArray(4)),
+                1, 2, 3, 4, 10, 11);
+    }
+
+    @Test
+    public void noSources() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder()));
+    }
+
+    @Test
+    public void reverseOrder() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>reverseOrder(),
+                AsyncEnumerable.fromArray(9, 5, 1),
+                AsyncEnumerable.fromArray(8, 6, 2)),
+                9, 8, 6, 5, 2, 1);
+    }
+
+    @Test
+    public void tiesKeepSourceOrder() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.comparing((String s) -> s.charAt(0)), 2,
+                AsyncEnumerable.fromArray("a1", "b1"),
+                AsyncEnumerable.fromArray("a2", "b2"),
+                AsyncEnumerable.fromArray("a3", "b3")),
+                "a1", "a2", "a3", "b1", "b2", "b3");
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>nullsFirst(Comparator.naturalOrder()),
+                AsyncEnumerable.fromArray(null, 2),
+                AsyncEnumerable.fromArray(1, 3)),
+                null, 1, 2, 3);
+    }
+
+    @Test
+    public void manySourcesAsync() {
+        for (int prefetch : new int[] { 1, 2, 16 }) {
+            TestHelper.withExecutor(exec -> {
+                @SuppressWarnings("unchecked")
+                AsyncEnumerable<Integer>[] sources = new AsyncEnumerable[10];
+                for (int i = 0; i < sources.length; i++) {
+                    int k = i;
+                    sources[i] = AsyncEnumerable.range(0, 1000).map(v -> v * 10 + k).observeOn(exec);
+                }
+
+                List<Integer> list = AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(), prefetch, sources)
+                        .toList()
+                        .blockingFirst();
+
+                assertEquals(10_000, list.size());
+                for (int i = 0; i < 10_000; i++) {
+                    assertEquals(i, list.get(i).intValue());
+                }
+            });
+        }
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(),
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.<Integer>error(new IOException())),
+                IOException.class);
+    }
+
+    @Test
+    public void comparatorCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.mergeSorted((Integer a, Integer b) -> {
+                    throw new IllegalStateException("forced failure");
+                },
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 5)),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(), 0, AsyncEnumerable.range(1, 5));
+    }
+
+    @Test
+    public void take() {
+        TestHelper.assertResult(AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(),
+                AsyncEnumerable.range(0, 1_000_000_000),
+                AsyncEnumerable.range(0, 1_000_000_000))
+                .take(5),
+                0, 0, 1, 1, 2);
+    }
+
+    @Test
+    public void cancelRace() {
+        TestHelper.cancelRace(f -> AsyncEnumerable.mergeSorted(Comparator.<Integer>naturalOrder(), 16, f, f));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncMoveNextBatchTest {
+
+    @Test
+    public void utilityClass() {
+        TestHelper.checkUtility(AsyncMoveNextBatch.class);
+    }
+
+    @Test
+    public void range() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5).enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(3, list::add));
+        assertEquals(Arrays.asList(1, 2, 3), list);
+
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(3, list::add));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+    }
+
+    @Test
+    public void rangeExact() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 4).enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(4, list::add));
+        assertEquals(Arrays.asList(1, 2, 3, 4), list);
+    }
+
+    @Test
+    public void fromArray() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromArray(1, 2, 3, 4, 5).enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(2, list::add));
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(2, list::add));
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(2, list::add));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+    }
+
+    @Test
+    public void fromIterable() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.fromIterable(Arrays.asList(1, 2, 3)).enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(3, list::add));
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(3, list::add));
+        assertEquals(Arrays.asList(1, 2, 3), list);
+    }
+
+    @Test
+    public void characters() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.characters("abc").enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(5, list::add));
+        assertEquals(Arrays.asList((int)'a', (int)'b', (int)'c'), list);
+    }
+
+    @Test
+    public void mapFilter() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 10)
+                .filter(v -> v % 2 == 0)
+                .map(v -> v * 10)
+                .enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNextBatch(6, list::add));
+        assertEquals(Arrays.asList(20, 40, 60), list);
+        assertSame(AsyncEnumerable.FALSE, en.moveNextBatch(6, list::add));
+        assertEquals(Arrays.asList(20, 40, 60, 80, 100), list);
+    }
+
+    @Test
+    public void defaultSynchronous() throws Exception {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5).take(4).enumerator();
+        List<Integer> list = new ArrayList<>();
+
+        assertTrue(en.moveNextBatch(3, list::add).toCompletableFuture().get());
+        assertFalse(en.moveNextBatch(3, list::add).toCompletableFuture().get());
+        assertEquals(Arrays.asList(1, 2, 3, 4), list);
+    }
+
+    @Test
+    public void defaultAsync() {
+        TestHelper.withExecutor(executor -> {
+            AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                    .subscribeOn(executor)
+                    .enumerator();
+            List<Integer> list = new ArrayList<>();
+
+            try {
+                assertTrue(en.moveNextBatch(3, list::add).toCompletableFuture().get());
+                assertFalse(en.moveNextBatch(3, list::add).toCompletableFuture().get());
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new AssertionError(ex);
+            }
+            assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+        });
+    }
+
+    @Test
+    public void defaultError() {
+        AsyncEnumerator<Object> en = AsyncEnumerable.error(new IOException()).enumerator();
+
+        try {
+            en.moveNextBatch(3, v -> { }).toCompletableFuture().get();
+            fail("Should have thrown");
+        } catch (InterruptedException ex) {
+            throw new AssertionError(ex);
+        } catch (ExecutionException ex) {
+            assertTrue(ex.toString(), ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void collectorCrash() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.range(1, 5)
+                .collect(ArrayList::new, (a, b) -> { throw new IllegalStateException("forced failure"); }),
+                IllegalStateException.class, "forced failure"
+        );
+    }
+
+    @Test
+    public void longChain() {
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 1000)
+                .filter(v -> v % 100 == 0)
+                .map(v -> v / 100)
+                .skip(5),
+                6, 7, 8, 9, 10
+        );
+    }
+}
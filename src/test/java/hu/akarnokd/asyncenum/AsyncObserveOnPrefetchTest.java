@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncObserveOnPrefetchTest {
+
+    @Test
+    public void simple() {
+        ExecutorService exec = Executors.newSingleThreadExecutor(r -> new Thread(r, "CustomPool"));
+        try {
+            List<String> list = AsyncEnumerable.range(1, 5)
+                    .observeOn(exec, 2)
+                    .map(v -> v + " " + Thread.currentThread().getName())
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(5, list.size());
+            for (String s : list) {
+                assertTrue(s, s.contains("CustomPool"));
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void longSequence() {
+        for (int prefetch : new int[] { 1, 2, 16, 128 }) {
+            TestHelper.withExecutor(exec -> {
+                List<Integer> list = AsyncEnumerable.range(1, 10_000)
+                        .observeOn(exec, prefetch)
+                        .toList()
+                        .blockingFirst();
+
+                assertEquals(10_000, list.size());
+                for (int i = 0; i < 10_000; i++) {
+                    assertEquals(i + 1, list.get(i).intValue());
+                }
+            });
+        }
+    }
+
+    @Test
+    public void asyncSource() {
+        TestHelper.withExecutor(exec1 -> {
+            TestHelper.withExecutor(exec2 -> {
+                TestHelper.assertResult(AsyncEnumerable.range(1, 1000)
+                        .observeOn(exec1)
+                        .observeOn(exec2, 16)
+                        .sumInt(v -> v),
+                        500500);
+            });
+        });
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.withExecutor(exec -> {
+            TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                    .map(v -> (Integer)null)
+                    .observeOn(exec, 2),
+                    null, null, null);
+        });
+    }
+
+    @Test
+    public void error() {
+        TestHelper.withExecutor(exec -> {
+            TestHelper.assertFailure(
+                    AsyncEnumerable.range(1, 5)
+                            .concatWith(AsyncEnumerable.error(new IOException()))
+                            .observeOn(exec, 2),
+                    IOException.class);
+        });
+    }
+
+    @Test
+    public void take() {
+        TestHelper.withExecutor(exec -> {
+            TestHelper.assertResult(AsyncEnumerable.range(1, 1000)
+                    .observeOn(exec, 16)
+                    .take(3),
+                    1, 2, 3);
+        });
+    }
+
+    @Test
+    public void singleTaskPerBurst() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        CompletableFuture<List<Integer>> result = new CompletableFuture<>();
+
+        AsyncEnumerator<List<Integer>> en = AsyncEnumerable.range(1, 1000)
+                .observeOn(tasks::offer, 128)
+                .toList()
+                .enumerator();
+
+        en.moveNext().thenAccept(v -> result.complete(en.current()));
+
+        int executed = 0;
+        Runnable r;
+        while ((r = tasks.poll()) != null) {
+            executed++;
+            r.run();
+        }
+
+        assertEquals(1000, result.get().size());
+        assertTrue("" + executed, executed < 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.range(1, 5).observeOn(Runnable::run, 0);
+    }
+}
@@ -19,6 +19,10 @@ package hu.akarnokd.asyncenum;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
 
 public class AsyncPublishTest {
 
@@ -163,4 +167,82 @@ public class AsyncPublishTest {
                         })
         );
     }
+
+    @Test
+    public void prefetchFanOut() {
+        TestHelper.withExecutor(executor -> {
+            long sum = AsyncEnumerable.range(1, 1000)
+                    .publish(an -> AsyncEnumerable.mergeArray(
+                            an.observeOn(executor), an.observeOn(executor), an.observeOn(executor),
+                            an.observeOn(executor), an.observeOn(executor), an.observeOn(executor)), 64)
+                    .sumLong(v -> v)
+                    .blockingFirst();
+
+            assertEquals(6 * 500500L, sum);
+        });
+    }
+
+    @Test
+    public void fastEnumeratorRunsAhead() {
+        AtomicReference<AsyncEnumerable<Integer>> shared = new AtomicReference<>();
+        AsyncEnumerable.range(1, 100)
+                .publish(an -> {
+                    shared.set(an);
+                    return AsyncEnumerable.<Integer>never();
+                }, 8)
+                .enumerator();
+
+        AsyncEnumerator<Integer> fast = shared.get().enumerator();
+        AsyncEnumerator<Integer> slow = shared.get().enumerator();
+
+        for (int i = 1; i <= 7; i++) {
+            assertTrue(fast.moveNext().toCompletableFuture().isDone());
+            assertEquals(i, fast.current().intValue());
+        }
+
+        // the slow enumerator is 7 items behind and not waiting for an item
+        CompletionStage<Boolean> stage = fast.moveNext();
+        assertFalse(stage.toCompletableFuture().isDone());
+
+        assertTrue(slow.moveNext().toCompletableFuture().isDone());
+        assertEquals(1, slow.current().intValue());
+
+        assertTrue(stage.toCompletableFuture().isDone());
+        assertEquals(8, fast.current().intValue());
+    }
+
+    @Test
+    public void lockstepByDefault() {
+        AtomicReference<AsyncEnumerable<Integer>> shared = new AtomicReference<>();
+        AsyncEnumerable.range(1, 100)
+                .publish(an -> {
+                    shared.set(an);
+                    return AsyncEnumerable.<Integer>never();
+                })
+                .enumerator();
+
+        AsyncEnumerator<Integer> first = shared.get().enumerator();
+        AsyncEnumerator<Integer> second = shared.get().enumerator();
+
+        CompletionStage<Boolean> stage = first.moveNext();
+        assertFalse(stage.toCompletableFuture().isDone());
+
+        assertTrue(second.moveNext().toCompletableFuture().isDone());
+        assertTrue(stage.toCompletableFuture().isDone());
+        assertEquals(1, first.current().intValue());
+        assertEquals(1, second.current().intValue());
+    }
+
+    @Test
+    public void prefetchError() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.concatArray(AsyncEnumerable.range(1, 5), AsyncEnumerable.error(new IOException("forced failure")))
+                        .publish(an -> an.mergeWith(an).ignoreElements(), 16),
+                IOException.class, "forced failure");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefetchInvalid() {
+        AsyncEnumerable.range(1, 5).publish(v -> v, 0);
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncShareTest {
+
+    @Test
+    public void simple() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5).share(), 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.error(new IOException()).share(), IOException.class);
+    }
+
+    @Test
+    public void twoEnumeratorsOneUpstream() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerable<Integer> shared = source.share();
+
+        AsyncEnumerator<Integer> en1 = shared.enumerator();
+        AsyncEnumerator<Integer> en2 = shared.enumerator();
+
+        assertEquals(1, source.enumerators.get());
+
+        CompletableFuture<Boolean> cf1 = en1.moveNext().toCompletableFuture();
+        CompletableFuture<Boolean> cf2 = en2.moveNext().toCompletableFuture();
+
+        source.emit(1);
+
+        assertTrue(cf1.get());
+        assertEquals(1, en1.current().intValue());
+        assertTrue(cf2.get());
+        assertEquals(1, en2.current().intValue());
+
+        source.emit(2);
+        source.emit(3);
+
+        assertTrue(en1.moveNext().toCompletableFuture().get());
+        assertEquals(2, en1.current().intValue());
+        assertTrue(en1.moveNext().toCompletableFuture().get());
+        assertEquals(3, en1.current().intValue());
+
+        source.complete();
+
+        assertFalse(en1.moveNext().toCompletableFuture().get());
+
+        assertTrue(en2.moveNext().toCompletableFuture().get());
+        assertEquals(2, en2.current().intValue());
+        assertTrue(en2.moveNext().toCompletableFuture().get());
+        assertEquals(3, en2.current().intValue());
+        assertFalse(en2.moveNext().toCompletableFuture().get());
+
+        assertEquals(1, source.enumerators.get());
+    }
+
+    @Test
+    public void lateEnumeratorMissesItems() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerable<Integer> shared = source.share();
+
+        AsyncEnumerator<Integer> en1 = shared.enumerator();
+        source.emit(1);
+        source.emit(2);
+
+        AsyncEnumerator<Integer> en2 = shared.enumerator();
+        CompletableFuture<Boolean> cf2 = en2.moveNext().toCompletableFuture();
+        assertFalse(cf2.isDone());
+
+        source.emit(3);
+
+        assertTrue(cf2.get());
+        assertEquals(3, en2.current().intValue());
+
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(en1.moveNext().toCompletableFuture().get());
+            assertEquals(i, en1.current().intValue());
+        }
+    }
+
+    @Test
+    public void replayToLateEnumerator() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerable<Integer> shared = source.replay(2);
+
+        shared.enumerator();
+        source.emit(1);
+        source.emit(2);
+        source.emit(3);
+
+        AsyncEnumerator<Integer> en2 = shared.enumerator();
+        assertTrue(en2.moveNext().toCompletableFuture().get());
+        assertEquals(2, en2.current().intValue());
+        assertTrue(en2.moveNext().toCompletableFuture().get());
+        assertEquals(3, en2.current().intValue());
+
+        CompletableFuture<Boolean> cf2 = en2.moveNext().toCompletableFuture();
+        assertFalse(cf2.isDone());
+
+        source.emit(4);
+        assertTrue(cf2.get());
+        assertEquals(4, en2.current().intValue());
+    }
+
+    @Test
+    public void replayFewerThanCount() throws Exception {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerable<Integer> shared = source.replay(5);
+
+        shared.enumerator();
+        source.emit(1);
+
+        AsyncEnumerator<Integer> en2 = shared.enumerator();
+        assertTrue(en2.moveNext().toCompletableFuture().get());
+        assertEquals(1, en2.current().intValue());
+    }
+
+    @Test
+    public void lastCancelDisconnects() {
+        TestHelper.ManualSource source = new TestHelper.ManualSource();
+        AsyncEnumerable<Integer> shared = source.share();
+
+        AsyncEnumerator<Integer> en1 = shared.enumerator();
+        AsyncEnumerator<Integer> en2 = shared.enumerator();
+        en1.moveNext();
+
+        en1.cancel();
+        assertEquals(0, source.cancelled.get());
+
+        en2.cancel();
+        assertEquals(1, source.cancelled.get());
+
+        shared.enumerator();
+        assertEquals(2, source.enumerators.get());
+    }
+
+    @Test
+    public void reconnectAfterCompletion() {
+        AtomicInteger count = new AtomicInteger();
+        AsyncEnumerable<Integer> shared = AsyncEnumerable.defer(() -> {
+            count.getAndIncrement();
+            return AsyncEnumerable.range(1, 3);
+        }).replay(1);
+
+        TestHelper.assertResult(shared, 1, 2, 3);
+        TestHelper.assertResult(shared, 1, 2, 3);
+
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void take() {
+        AtomicInteger cancelled = new AtomicInteger();
+        TestHelper.assertResult(AsyncEnumerable.range(1, 1000)
+                .doOnCancel(cancelled::getAndIncrement)
+                .share()
+                .take(3), 1, 2, 3);
+
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    public void async() {
+        TestHelper.withExecutor(executor -> {
+            AsyncEnumerable<Integer> shared = AsyncEnumerable.range(1, 1000)
+                    .observeOn(executor)
+                    .share();
+
+            AsyncEnumerator<Integer> en1 = shared.enumerator();
+            AsyncEnumerator<Integer> en2 = shared.enumerator();
+            try {
+                // en2 may join after the first few items were produced
+                int last = 0;
+                boolean done2 = false;
+                for (int i = 1; i <= 1000; i++) {
+                    assertTrue(en1.moveNext().toCompletableFuture().get());
+                    assertEquals(i, en1.current().intValue());
+                    if (!done2) {
+                        if (en2.moveNext().toCompletableFuture().get()) {
+                            assertTrue(last < en2.current());
+                            last = en2.current();
+                        } else {
+                            done2 = true;
+                        }
+                    }
+                }
+                assertFalse(en1.moveNext().toCompletableFuture().get());
+                if (!done2) {
+                    assertFalse(en2.moveNext().toCompletableFuture().get());
+                }
+                assertEquals(1000, last);
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new AssertionError(ex);
+            }
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void joinCancelRace() {
+        TestHelper.withExecutor(executor -> {
+            for (int i = 0; i < 10000; i++) {
+                TestHelper.ManualSource source = new TestHelper.ManualSource();
+                AsyncEnumerable<Integer> shared = source.share();
+                AsyncEnumerator<Integer> en1 = shared.enumerator();
+                AsyncEnumerator<Integer>[] en2 = new AsyncEnumerator[1];
+
+                TestHelper.race(en1::cancel, () -> en2[0] = shared.enumerator(), executor);
+
+                // en2 joined either the first or a new connection
+                en2[0].cancel();
+                assertEquals(source.enumerators.get(), source.cancelled.get());
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replayInvalid() {
+        AsyncEnumerable.range(1, 5).replay(-1);
+    }
+}
@@ -22,7 +22,7 @@ import java.util.*;
 
 import static hu.akarnokd.asyncenum.TestHelper.assertFailure;
 import static hu.akarnokd.asyncenum.TestHelper.assertResult;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class AsyncSkipTest {
 
@@ -77,4 +77,26 @@ public class AsyncSkipTest {
                 2, 3, 4
         );
     }
+
+    @Test
+    public void synchronousFastPath() {
+        AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                .skip(3)
+                .enumerator();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(4, en.current().intValue());
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(5, en.current().intValue());
+        assertSame(AsyncEnumerable.FALSE, en.moveNext());
+    }
+
+    @Test
+    public void asyncSkip() {
+        TestHelper.withExecutor(executor ->
+                assertResult(AsyncEnumerable.range(1, 5)
+                        .observeOn(executor)
+                        .skip(3), 4, 5)
+        );
+    }
 }
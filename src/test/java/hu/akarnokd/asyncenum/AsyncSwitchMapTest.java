@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncSwitchMapTest {
+
+    @Test
+    public void single() {
+        TestHelper.assertResult(AsyncEnumerable.just(1)
+                .switchMap(v -> AsyncEnumerable.range(v, 3)),
+                1, 2, 3);
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(AsyncEnumerable.<Integer>empty()
+                .switchMap(v -> AsyncEnumerable.range(v, 3)));
+    }
+
+    @Test
+    public void emptyInners() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                .switchMap(v -> AsyncEnumerable.<Integer>empty()));
+    }
+
+    @Test
+    public void lastInnerWins() {
+        List<Integer> list = AsyncEnumerable.range(1, 5)
+                .switchMap(v -> AsyncEnumerable.range(v * 10, 3))
+                .toList()
+                .blockingFirst();
+
+        assertEquals(Arrays.asList(50, 51, 52), list.subList(list.size() - 3, list.size()));
+    }
+
+    @Test
+    public void switchCancelsPrevious() {
+        TestHelper.ManualSource main = new TestHelper.ManualSource();
+        TestHelper.ManualSource inner1 = new TestHelper.ManualSource();
+        TestHelper.ManualSource inner2 = new TestHelper.ManualSource();
+
+        AsyncEnumerator<Integer> en = main
+                .switchMap(v -> v == 1 ? inner1 : inner2)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        main.emit(1);
+        inner1.emit(10);
+        assertTrue(f.join());
+        assertEquals(10, en.current().intValue());
+
+        f = en.moveNext().toCompletableFuture();
+        main.emit(2);
+        assertEquals(1, inner1.cancelled.get());
+        assertFalse(f.isDone());
+
+        inner1.emit(11);
+        assertFalse(f.isDone());
+
+        inner2.emit(20);
+        assertTrue(f.join());
+        assertEquals(20, en.current().intValue());
+
+        f = en.moveNext().toCompletableFuture();
+        inner2.complete();
+        assertFalse(f.isDone());
+
+        main.complete();
+        assertFalse(f.join());
+        assertEquals(0, inner2.cancelled.get());
+    }
+
+    @Test
+    public void innerOutlivesMain() {
+        TestHelper.ManualSource main = new TestHelper.ManualSource();
+        TestHelper.ManualSource inner = new TestHelper.ManualSource();
+
+        AsyncEnumerator<Integer> en = main
+                .switchMap(v -> inner)
+                .enumerator();
+
+        CompletableFuture<Boolean> f = en.moveNext().toCompletableFuture();
+        main.emit(1);
+        main.complete();
+        inner.emit(10);
+        assertTrue(f.join());
+        assertEquals(10, en.current().intValue());
+
+        f = en.moveNext().toCompletableFuture();
+        inner.emit(11);
+        assertTrue(f.join());
+        assertEquals(11, en.current().intValue());
+
+        f = en.moveNext().toCompletableFuture();
+        inner.complete();
+        assertFalse(f.join());
+    }
+
+    @Test
+    public void async() {
+        TestHelper.withExecutor(exec -> {
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .subscribeOn(exec)
+                    .switchMap(v -> AsyncEnumerable.just(v))
+                    .toList()
+                    .blockingFirst();
+
+            assertFalse(list.isEmpty());
+            assertEquals(1000, list.get(list.size() - 1).intValue());
+            for (int i = 1; i < list.size(); i++) {
+                assertTrue(list.get(i - 1) < list.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void mainError() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .switchMap(v -> AsyncEnumerable.range(v, 3)),
+                IOException.class);
+    }
+
+    @Test
+    public void innerError() {
+        TestHelper.assertFailure(AsyncEnumerable.just(1)
+                .switchMap(v -> AsyncEnumerable.error(new IOException())),
+                IOException.class);
+    }
+
+    @Test
+    public void mapperCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.just(1)
+                .switchMap(v -> {
+                    throw new IllegalStateException("forced failure");
+                }),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void cancelRace() {
+        TestHelper.withExecutor(executor -> {
+            for (int i = 0; i < 10000; i++) {
+                AsyncEnumerator<Integer> en = AsyncEnumerable.just(1)
+                        .switchMap(v -> AsyncEnumerable.range(v, 1_000_000_000))
+                        .enumerator();
+
+                TestHelper.race(en::moveNext, en::cancel, executor);
+            }
+        });
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncWindowTest {
+
+    @Test
+    public void exact() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                .window(2)
+                .concatMap(AsyncEnumerable::toList),
+                Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+    }
+
+    @Test
+    public void exactFits() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 4)
+                .window(2)
+                .concatMap(AsyncEnumerable::toList),
+                Arrays.asList(1, 2), Arrays.asList(3, 4));
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(AsyncEnumerable.<Integer>empty()
+                .window(2)
+                .concatMap(AsyncEnumerable::toList));
+    }
+
+    @Test
+    public void skip() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 7)
+                .window(2, 3)
+                .concatMap(AsyncEnumerable::toList),
+                Arrays.asList(1, 2), Arrays.asList(4, 5), Arrays.asList(7));
+    }
+
+    @Test
+    public void overlap() {
+        Map<Integer, List<Integer>> map = new HashMap<>();
+        AtomicInteger index = new AtomicInteger();
+        AsyncEnumerable.range(1, 5)
+                .window(3, 1)
+                .flatMap(w -> {
+                    int i = index.getAndIncrement();
+                    return w.toList().map(list -> map.put(i, list));
+                })
+                .blockingLast();
+
+        assertEquals(5, map.size());
+        assertEquals(Arrays.asList(1, 2, 3), map.get(0));
+        assertEquals(Arrays.asList(2, 3, 4), map.get(1));
+        assertEquals(Arrays.asList(3, 4, 5), map.get(2));
+        assertEquals(Arrays.asList(4, 5), map.get(3));
+        assertEquals(Arrays.asList(5), map.get(4));
+    }
+
+    @Test
+    public void largeWindowAggregate() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 100_000)
+                .window(50_000)
+                .concatMap(w -> w.sumLong(v -> v)),
+                1_250_025_000L, 3_750_025_000L);
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.range(1, 5)
+                .concatWith(AsyncEnumerable.error(new IOException()))
+                .window(2)
+                .concatMap(AsyncEnumerable::toList), IOException.class);
+    }
+
+    @Test
+    public void takeWindows() {
+        AtomicInteger cancelled = new AtomicInteger();
+        TestHelper.assertResult(AsyncEnumerable.range(1, 1000)
+                .doOnCancel(cancelled::getAndIncrement)
+                .window(2)
+                .take(2)
+                .concatMap(AsyncEnumerable::toList),
+                Arrays.asList(1, 2), Arrays.asList(3, 4));
+
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    public void takeInner() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 9)
+                .window(3)
+                .concatMap(w -> w.take(1)),
+                1, 4, 7);
+    }
+
+    @Test
+    public void oneEnumeratorPerWindow() throws Exception {
+        AsyncEnumerator<AsyncEnumerable<Integer>> en = AsyncEnumerable.range(1, 5)
+                .window(2)
+                .enumerator();
+
+        assertTrue(en.moveNext().toCompletableFuture().get());
+        en.current().enumerator();
+        try {
+            en.current().enumerator().moveNext().toCompletableFuture().get();
+            fail("Should have thrown");
+        } catch (ExecutionException ex) {
+            if (!(ex.getCause() instanceof IllegalStateException)) {
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    @Test
+    public void timed() {
+        TestHelper.withScheduler(executor -> {
+            List<List<Long>> list = AsyncEnumerable.interval(10, TimeUnit.MILLISECONDS, executor)
+                    .take(5)
+                    .concatWith(AsyncEnumerable.timer(600, TimeUnit.MILLISECONDS, executor).filter(v -> false))
+                    .window(300, TimeUnit.MILLISECONDS, executor)
+                    .concatMap(AsyncEnumerable::toList)
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(Arrays.asList(Arrays.asList(0L, 1L, 2L, 3L, 4L)), list);
+        });
+    }
+
+    @Test
+    public void timedCountFirst() {
+        TestHelper.withScheduler(executor -> {
+            TestHelper.assertResult(AsyncEnumerable.range(1, 5)
+                    .window(2, 1, TimeUnit.MINUTES, executor)
+                    .concatMap(AsyncEnumerable::toList),
+                    Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+        });
+    }
+
+    @Test
+    public void timedClosesIdleWindow() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AsyncEnumerator<AsyncEnumerable<Integer>> en = AsyncEnumerable.just(1)
+                    .concatWith(AsyncEnumerable.never())
+                    .window(50, TimeUnit.MILLISECONDS, executor)
+                    .enumerator();
+
+            assertTrue(en.moveNext().toCompletableFuture().get(5, TimeUnit.SECONDS));
+            AsyncEnumerator<Integer> w = en.current().enumerator();
+
+            assertTrue(w.moveNext().toCompletableFuture().get(5, TimeUnit.SECONDS));
+            assertEquals(1, w.current().intValue());
+            assertFalse(w.moveNext().toCompletableFuture().get(5, TimeUnit.SECONDS));
+
+            en.cancel();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void async() {
+        TestHelper.withExecutor(executor -> {
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .observeOn(executor)
+                    .window(7, 5)
+                    .flatMap(w -> w.toList().map(List::size))
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(200, list.size());
+            int sum = 0;
+            for (Integer v : list) {
+                sum += v;
+            }
+            assertEquals(199 * 7 + 5, sum);
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countInvalid() {
+        AsyncEnumerable.range(1, 5).window(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void skipInvalid() {
+        AsyncEnumerable.range(1, 5).window(1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timeInvalid() {
+        AsyncEnumerable.range(1, 5).window(1, 0, TimeUnit.SECONDS, null);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncZipArrayPrefetchTest {
+
+    @Test
+    public void simple() {
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> (Integer)a[0] + (Integer)a[1], 2,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(10, 5)),
+                10 + 1, 11 + 2, 12 + 3, 13 + 4, 14 + 5);
+    }
+
+    @Test
+    public void oneShorter() {
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> (Integer)a[0] + (Integer)a[1], 16,
+                AsyncEnumerable.range(1, 4),
+                AsyncEnumerable.range(10, 5)),
+                10 + 1, 11 + 2, 12 + 3, 13 + 4);
+    }
+
+    @Test
+    public void twoShorter() {
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> (Integer)a[0] + (Integer)a[1], 1,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(10, 4)),
+                10 + 1, 11 + 2, 12 + 3, 13 + 4);
+    }
+
+    @Test
+    public void empty() {
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> a[0], 4,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.empty()));
+    }
+
+    @Test
+    public void asyncSources() {
+        for (int prefetch : new int[] { 1, 2, 16, 128 }) {
+            for (boolean reuse : new boolean[] { false, true }) {
+                TestHelper.withExecutor(exec1 -> {
+                    TestHelper.withExecutor(exec2 -> {
+                        List<Integer> list = AsyncEnumerable.zipArray(
+                                a -> (Integer)a[0] + (Integer)a[1] + (Integer)a[2], prefetch, reuse,
+                                AsyncEnumerable.range(1, 10_000).observeOn(exec1),
+                                AsyncEnumerable.range(1, 10_000).observeOn(exec2),
+                                AsyncEnumerable.range(1, 10_000))
+                                .toList()
+                                .blockingFirst();
+
+                        assertEquals(10_000, list.size());
+                        for (int i = 0; i < 10_000; i++) {
+                            assertEquals(3 * (i + 1), list.get(i).intValue());
+                        }
+                    });
+                });
+            }
+        }
+    }
+
+    @Test
+    public void sourcesRunAhead() {
+        AtomicInteger produced = new AtomicInteger();
+
+        AsyncEnumerator<Integer> en = AsyncEnumerable.zipArray(
+                a -> (Integer)a[0], 8,
+                AsyncEnumerable.range(1, 100).doOnNext(v -> produced.getAndIncrement()),
+                AsyncEnumerable.range(1, 100))
+                .enumerator();
+
+        assertTrue(en.moveNext().toCompletableFuture().join());
+        assertEquals(1, en.current().intValue());
+        assertEquals(8, produced.get());
+        en.cancel();
+    }
+
+    @Test
+    public void reuseRow() {
+        Set<Object[]> rows = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> {
+                    rows.add(a);
+                    return (Integer)a[0] * (Integer)a[1];
+                }, 2, true,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 5)),
+                1, 4, 9, 16, 25);
+
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    public void freshRows() {
+        Set<Object[]> rows = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> {
+                    rows.add(a);
+                    return (Integer)a[0] * (Integer)a[1];
+                }, 2,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 5)),
+                1, 4, 9, 16, 25);
+
+        assertEquals(5, rows.size());
+    }
+
+    @Test
+    public void nullItems() {
+        TestHelper.assertResult(AsyncEnumerable.zipArray(
+                a -> Objects.toString(a[0]) + a[1], 2,
+                AsyncEnumerable.range(1, 3).map(v -> (Integer)null),
+                AsyncEnumerable.range(1, 3)),
+                "null1", "null2", "null3");
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.zipArray(
+                a -> a[0], 4,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 2).concatWith(AsyncEnumerable.error(new IOException()))),
+                IOException.class);
+    }
+
+    @Test
+    public void zipperCrash() {
+        TestHelper.assertFailure(AsyncEnumerable.zipArray(
+                a -> {
+                    throw new IllegalStateException("forced failure");
+                }, 4,
+                AsyncEnumerable.range(1, 5),
+                AsyncEnumerable.range(1, 5)),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroPrefetch() {
+        AsyncEnumerable.zipArray(a -> a[0], 0, AsyncEnumerable.range(1, 5));
+    }
+
+    @Test
+    public void cancelRace() {
+        TestHelper.cancelRace(f -> AsyncEnumerable.zipArray(a -> a[0], 16, f, f));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DoubleAsyncEnumerableTest {
+
+    @Test
+    public void fromArray() {
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray(0.5, 1.5).boxed(), 0.5, 1.5);
+    }
+
+    @Test
+    public void mapFilter() {
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray(1, 2, 3, 4)
+                .filter(v -> v > 2)
+                .map(v -> v / 2)
+                .boxed(),
+                1.5, 2.0);
+    }
+
+    @Test
+    public void mapToDouble() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                .mapToDouble(v -> v / 4.0)
+                .mapToObj(v -> v),
+                0.25, 0.5, 0.75);
+    }
+
+    @Test
+    public void sumMinMax() {
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray(0.5, 1.5, 1).sum().boxed(), 3.0);
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray(0.5, 1.5, 1).min().boxed(), 0.5);
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray(0.5, 1.5, 1).max().boxed(), 1.5);
+        TestHelper.assertResult(DoubleAsyncEnumerable.fromArray().sum().boxed());
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .mapToDouble(v -> v)
+                .toDoubleArray(), IOException.class);
+    }
+
+    @Test
+    public void toDoubleArray() {
+        assertArrayEquals(new double[] { 1, 2 }, DoubleAsyncEnumerable.fromArray(1, 2).toDoubleArray().blockingFirst(), 0.0);
+    }
+
+    @Test
+    public void forEach() throws Exception {
+        List<Double> list = new ArrayList<>();
+        DoubleAsyncEnumerable.fromArray(1, 2)
+                .forEach(list::add)
+                .toCompletableFuture()
+                .get();
+
+        assertEquals(Arrays.asList(1.0, 2.0), list);
+    }
+}
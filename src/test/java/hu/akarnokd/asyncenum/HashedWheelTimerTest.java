@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+
+    HashedWheelTimer timer;
+
+    @Before
+    public void before() {
+        timer = new HashedWheelTimer();
+    }
+
+    @After
+    public void after() {
+        timer.shutdown();
+    }
+
+    @Test
+    public void schedule() throws Exception {
+        long start = System.nanoTime();
+        ScheduledFuture<Integer> f = timer.schedule(() -> 1, 50, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, f.get(5, TimeUnit.SECONDS).intValue());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void scheduleBeyondOneRound() throws Exception {
+        HashedWheelTimer small = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 4, Executors.defaultThreadFactory());
+        try {
+            long start = System.nanoTime();
+            small.schedule(() -> { }, 50, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            small.shutdown();
+        }
+        assertTrue(small.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute() throws Exception {
+        CountDownLatch cdl = new CountDownLatch(1);
+        timer.execute(cdl::countDown);
+
+        assertTrue(cdl.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledFuture<?> f = timer.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(f.cancel(false));
+        Thread.sleep(100);
+
+        assertEquals(0, counter.get());
+        assertTrue(f.isCancelled());
+    }
+
+    @Test
+    public void fixedRate() throws Exception {
+        CountDownLatch cdl = new CountDownLatch(5);
+        ScheduledFuture<?> f = timer.scheduleAtFixedRate(cdl::countDown, 5, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        f.cancel(false);
+    }
+
+    @Test
+    public void fixedDelay() throws Exception {
+        CountDownLatch cdl = new CountDownLatch(5);
+        ScheduledFuture<?> f = timer.scheduleWithFixedDelay(cdl::countDown, 5, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        f.cancel(false);
+    }
+
+    @Test
+    public void fixedRateCancelStops() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledFuture<?> f = timer.scheduleAtFixedRate(counter::getAndIncrement, 1, 1, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(50);
+        f.cancel(false);
+        Thread.sleep(20);
+        int c = counter.get();
+        Thread.sleep(50);
+
+        assertEquals(c, counter.get());
+    }
+
+    @Test
+    public void crashingTaskKeepsTimerAlive() throws Exception {
+        ScheduledFuture<?> f = timer.schedule(() -> {
+            throw new IllegalStateException();
+        }, 1, TimeUnit.MILLISECONDS);
+
+        try {
+            f.get(5, TimeUnit.SECONDS);
+            fail("Should have thrown");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(1, timer.schedule(() -> 1, 1, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS).intValue());
+    }
+
+    @Test
+    public void shutdown() throws Exception {
+        timer.shutdown();
+
+        assertTrue(timer.isShutdown());
+        assertTrue(timer.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(timer.isTerminated());
+
+        try {
+            timer.schedule(() -> { }, 1, TimeUnit.MILLISECONDS);
+            fail("Should have thrown");
+        } catch (RejectedExecutionException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void handleRearm() throws Exception {
+        BlockingQueue<Long> tags = new LinkedBlockingQueue<>();
+        TimedHandle handle = TimedScheduler.from(timer).handle(tags::offer);
+
+        for (long i = 0; i < 10; i++) {
+            handle.schedule(1, TimeUnit.MILLISECONDS, i);
+            assertEquals(i, tags.poll(5, TimeUnit.SECONDS).longValue());
+        }
+    }
+
+    @Test
+    public void handleCancelWins() throws Exception {
+        BlockingQueue<Long> tags = new LinkedBlockingQueue<>();
+        TimedHandle handle = TimedScheduler.from(timer).handle(tags::offer);
+
+        handle.schedule(20, TimeUnit.MILLISECONDS, 1L);
+        assertTrue(handle.cancel());
+        assertFalse(handle.cancel());
+
+        handle.schedule(1, TimeUnit.MILLISECONDS, 2L);
+        assertEquals(2L, tags.poll(5, TimeUnit.SECONDS).longValue());
+        assertNull(tags.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void rearmQueuesNodeOnce() {
+        TimedHandle handle = TimedScheduler.from(timer).handle(t -> { });
+
+        for (long i = 0; i < 10_000; i++) {
+            handle.schedule(1, TimeUnit.HOURS, i);
+            assertTrue(handle.cancel());
+            assertTrue("" + timer.submissions.size(), timer.submissions.size() <= 1);
+        }
+    }
+
+    @Test
+    public void adapterCancelBeforeFutureStored() {
+        TimedHandle[] handle = { null };
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                ScheduledFuture<?> f = super.schedule(command, delay, unit);
+                // cancel while arm() has yet to store the future
+                assertTrue(handle[0].cancel());
+                return f;
+            }
+        };
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            handle[0] = TimedScheduler.from(executor).handle(t -> { });
+            handle[0].schedule(1, TimeUnit.HOURS, 1L);
+
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void adapterHandle() throws Exception {
+        TestHelper.withScheduler(executor -> {
+            BlockingQueue<Long> tags = new LinkedBlockingQueue<>();
+            TimedHandle handle = TimedScheduler.from(executor).handle(tags::offer);
+
+            try {
+                handle.schedule(20, TimeUnit.MILLISECONDS, 1L);
+                assertTrue(handle.cancel());
+
+                handle.schedule(1, TimeUnit.MILLISECONDS, 2L);
+                assertEquals(2L, tags.poll(5, TimeUnit.SECONDS).longValue());
+                assertNull(tags.poll(50, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+        });
+    }
+
+    @Test
+    public void timer() {
+        TestHelper.assertResult(AsyncEnumerable.timer(10, TimeUnit.MILLISECONDS, timer), 0L);
+    }
+
+    @Test
+    public void interval() {
+        TestHelper.assertResult(AsyncEnumerable.interval(1, TimeUnit.MILLISECONDS, timer).take(5),
+                0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void noTimeout() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 1000)
+                .timeout(1, TimeUnit.MINUTES, timer)
+                .sumInt(v -> v), 500500);
+    }
+
+    @Test
+    public void timeout() {
+        TestHelper.assertFailure(AsyncEnumerable.never()
+                .timeout(10, TimeUnit.MILLISECONDS, timer), TimeoutException.class);
+    }
+
+    @Test
+    public void timeoutFallback() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                .concatWith(AsyncEnumerable.never())
+                .timeout(10, TimeUnit.MILLISECONDS, timer, AsyncEnumerable.range(4, 2)),
+                1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void manyTimeouts() {
+        List<CompletableFuture<Boolean>> list = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            AsyncEnumerator<Object> en = AsyncEnumerable.never()
+                    .timeout(10, TimeUnit.MILLISECONDS, timer)
+                    .enumerator();
+            list.add(en.moveNext().toCompletableFuture());
+        }
+
+        for (CompletableFuture<Boolean> f : list) {
+            try {
+                f.get(5, TimeUnit.SECONDS);
+                fail("Should have thrown");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            } catch (InterruptedException | TimeoutException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tickDurationInvalid() {
+        new HashedWheelTimer(0, TimeUnit.MILLISECONDS, 16, Executors.defaultThreadFactory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wheelSizeInvalid() {
+        new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 0, Executors.defaultThreadFactory());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IntAsyncEnumerableTest {
+
+    @Test
+    public void range() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 5).boxed(), 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void rangeInt() {
+        TestHelper.assertResult(AsyncEnumerable.rangeInt(1, 5).boxed(), 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void rangeEmpty() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 0).boxed());
+    }
+
+    @Test
+    public void fromArray() {
+        TestHelper.assertResult(IntAsyncEnumerable.fromArray(5, 4, 3).boxed(), 5, 4, 3);
+    }
+
+    @Test
+    public void characters() {
+        TestHelper.assertResult(IntAsyncEnumerable.characters("abc").boxed(), 97, 98, 99);
+    }
+
+    @Test
+    public void currentInt() {
+        IntAsyncEnumerator en = IntAsyncEnumerable.range(1, 2).enumerator();
+
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(1, en.currentInt());
+        assertSame(AsyncEnumerable.TRUE, en.moveNext());
+        assertEquals(2, en.currentInt());
+        assertSame(AsyncEnumerable.FALSE, en.moveNext());
+    }
+
+    @Test
+    public void mapFilter() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 10)
+                .filter(v -> v % 2 == 0)
+                .map(v -> v * 10)
+                .boxed(),
+                20, 40, 60, 80, 100);
+    }
+
+    @Test
+    public void filterAsync() {
+        TestHelper.withExecutor(executor ->
+            TestHelper.assertResult(AsyncEnumerable.range(1, 10)
+                    .observeOn(executor)
+                    .mapToInt(v -> v)
+                    .filter(v -> v % 3 == 0)
+                    .boxed(),
+                    3, 6, 9)
+        );
+    }
+
+    @Test
+    public void mapToObj() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 3)
+                .mapToObj(v -> "" + v),
+                "1", "2", "3");
+    }
+
+    @Test
+    public void mapToInt() {
+        TestHelper.assertResult(AsyncEnumerable.fromArray("a", "bb", "ccc")
+                .mapToInt(String::length)
+                .boxed(),
+                1, 2, 3);
+    }
+
+    @Test
+    public void sum() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 5).sum().boxed(), 15);
+    }
+
+    @Test
+    public void sumEmpty() {
+        TestHelper.assertResult(IntAsyncEnumerable.range(1, 0).sum().boxed());
+    }
+
+    @Test
+    public void sumAsync() {
+        TestHelper.withScheduler(executor ->
+            TestHelper.assertResult(AsyncEnumerable.timer(10, TimeUnit.MILLISECONDS, executor)
+                    .concatWith(AsyncEnumerable.range(1, 4).map(v -> (long)v))
+                    .mapToInt(Long::intValue)
+                    .sum()
+                    .boxed(), 10)
+        );
+    }
+
+    @Test
+    public void minMax() {
+        TestHelper.assertResult(IntAsyncEnumerable.fromArray(3, 1, 5, 2).min().boxed(), 1);
+        TestHelper.assertResult(IntAsyncEnumerable.fromArray(3, 1, 5, 2).max().boxed(), 5);
+    }
+
+    @Test
+    public void reduceError() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .mapToInt(v -> v)
+                .sum()
+                .boxed(), IOException.class);
+    }
+
+    @Test
+    public void toIntArray() {
+        int[] array = IntAsyncEnumerable.range(1, 100).toIntArray().blockingFirst();
+
+        assertEquals(100, array.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1, array[i]);
+        }
+    }
+
+    @Test
+    public void toIntArrayEmpty() {
+        assertEquals(0, IntAsyncEnumerable.range(1, 0).toIntArray().blockingFirst().length);
+    }
+
+    @Test
+    public void forEach() throws Exception {
+        List<Integer> list = new ArrayList<>();
+        assertTrue(IntAsyncEnumerable.range(1, 5)
+                .forEach(list::add)
+                .toCompletableFuture()
+                .get());
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+    }
+
+    @Test
+    public void mapToIntCrash() {
+        TestHelper.assertFailure(IntAsyncEnumerable.range(1, 5)
+                .mapToObj(v -> v)
+                .mapToInt(v -> {
+                    throw new IllegalArgumentException("forced failure");
+                })
+                .boxed(), IllegalArgumentException.class, "forced failure");
+    }
+}
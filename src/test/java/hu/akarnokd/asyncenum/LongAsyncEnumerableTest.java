@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LongAsyncEnumerableTest {
+
+    @Test
+    public void range() {
+        TestHelper.assertResult(AsyncEnumerable.rangeLong(Integer.MAX_VALUE, 3).boxed(),
+                Integer.MAX_VALUE + 0L, Integer.MAX_VALUE + 1L, Integer.MAX_VALUE + 2L);
+    }
+
+    @Test
+    public void fromArray() {
+        TestHelper.assertResult(LongAsyncEnumerable.fromArray(5, 4, 3).boxed(), 5L, 4L, 3L);
+    }
+
+    @Test
+    public void mapFilter() {
+        TestHelper.assertResult(LongAsyncEnumerable.range(1, 10)
+                .filter(v -> v % 2 == 0)
+                .map(v -> v * 10)
+                .boxed(),
+                20L, 40L, 60L, 80L, 100L);
+    }
+
+    @Test
+    public void mapToObj() {
+        TestHelper.assertResult(LongAsyncEnumerable.range(1, 3)
+                .mapToObj(v -> "" + v),
+                "1", "2", "3");
+    }
+
+    @Test
+    public void mapToLong() {
+        TestHelper.assertResult(AsyncEnumerable.range(1, 3)
+                .mapToLong(v -> v * 10_000_000_000L)
+                .boxed(),
+                10_000_000_000L, 20_000_000_000L, 30_000_000_000L);
+    }
+
+    @Test
+    public void sumMinMax() {
+        TestHelper.assertResult(LongAsyncEnumerable.range(1, 5).sum().boxed(), 15L);
+        TestHelper.assertResult(LongAsyncEnumerable.fromArray(3, 1, 5, 2).min().boxed(), 1L);
+        TestHelper.assertResult(LongAsyncEnumerable.fromArray(3, 1, 5, 2).max().boxed(), 5L);
+        TestHelper.assertResult(LongAsyncEnumerable.range(1, 0).max().boxed());
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(AsyncEnumerable.<Integer>error(new IOException())
+                .mapToLong(v -> v)
+                .filter(v -> true)
+                .boxed(), IOException.class);
+    }
+
+    @Test
+    public void toLongArray() {
+        assertArrayEquals(new long[] { 1, 2, 3 }, LongAsyncEnumerable.range(1, 3).toLongArray().blockingFirst());
+    }
+
+    @Test
+    public void forEach() throws Exception {
+        List<Long> list = new ArrayList<>();
+        LongAsyncEnumerable.range(1, 3)
+                .forEach(list::add)
+                .toCompletableFuture()
+                .get();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), list);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+
+import static org.junit.Assert.*;
+
+public class MappedCacheStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static final CacheStorage.Serializer<Integer> INTS = new CacheStorage.Serializer<Integer>() {
+        @Override
+        public int size(Integer item) {
+            return 4;
+        }
+
+        @Override
+        public void write(Integer item, ByteBuffer buffer) {
+            buffer.putInt(item);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    static final CacheStorage.Serializer<String> STRINGS = new CacheStorage.Serializer<String>() {
+        @Override
+        public int size(String item) {
+            return item.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        @Override
+        public void write(String item, ByteBuffer buffer) {
+            buffer.put(item.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            byte[] b = new byte[buffer.remaining()];
+            buffer.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    };
+
+    long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void replay() throws Exception {
+        AtomicInteger subscriptions = new AtomicInteger();
+        try (CacheStorage<Integer> storage = CacheStorage.mapped(folder.getRoot().toPath(), 64, INTS)) {
+            AsyncEnumerable<Integer> ae = AsyncEnumerable.defer(() -> {
+                subscriptions.getAndIncrement();
+                return AsyncEnumerable.range(1, 1000);
+            }).cache(storage);
+
+            List<Integer> expected = IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+
+            assertEquals(expected, ae.toList().blockingFirst());
+            assertEquals(expected, ae.toList().blockingFirst());
+            assertEquals(1, subscriptions.get());
+
+            // 8 bytes per item, 8 items per segment
+            assertEquals(125, fileCount());
+        }
+
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    public void variableSizeAndNulls() throws Exception {
+        List<String> items = Arrays.asList("a", null, "", "hello world", "0123456789", null, "xyz");
+        try (CacheStorage<String> storage = CacheStorage.mapped(folder.getRoot().toPath(), 16, STRINGS)) {
+            AsyncEnumerable<String> ae = AsyncEnumerable.fromIterable(items).cache(storage);
+
+            for (int i = 0; i < 2; i++) {
+                List<String> list = new ArrayList<>();
+                ae.forEach(list::add).toCompletableFuture().join();
+                assertEquals(items, list);
+            }
+        }
+    }
+
+    @Test
+    public void itemTooLarge() throws Exception {
+        try (CacheStorage<String> storage = CacheStorage.mapped(folder.getRoot().toPath(), 8, STRINGS)) {
+            TestHelper.assertFailure(
+                    AsyncEnumerable.just("too long for 8").cache(storage),
+                    IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void readFailure() throws Exception {
+        CacheStorage.Serializer<Integer> failing = new CacheStorage.Serializer<Integer>() {
+            @Override
+            public int size(Integer item) {
+                return 4;
+            }
+
+            @Override
+            public void write(Integer item, ByteBuffer buffer) {
+                buffer.putInt(item);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer) throws IOException {
+                throw new IOException("forced failure");
+            }
+        };
+        try (CacheStorage<Integer> storage = CacheStorage.mapped(folder.getRoot().toPath(), 64, failing)) {
+            TestHelper.assertFailure(
+                    AsyncEnumerable.range(1, 5).cache(storage),
+                    java.io.UncheckedIOException.class);
+        }
+    }
+
+    @Test
+    public void async() throws Exception {
+        try (CacheStorage<Integer> storage = CacheStorage.mapped(folder.getRoot().toPath(), 1024, INTS)) {
+            TestHelper.withExecutor(executor -> {
+                AsyncEnumerable<Integer> ae = AsyncEnumerable.range(1, 1000)
+                        .subscribeOn(executor)
+                        .cache(storage);
+
+                List<Integer> expected = IntStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+                assertEquals(expected, ae.toList().blockingFirst());
+                assertEquals(expected, ae.toList().blockingFirst());
+            });
+        }
+    }
+
+    @Test
+    public void readerAfterClose() {
+        CacheStorage<Integer> storage = CacheStorage.mapped(folder.getRoot().toPath(), 64, INTS);
+        storage.append(1);
+        storage.append(2);
+
+        CacheStorage.Reader<Integer> reader = storage.reader();
+        assertEquals(1, reader.read().intValue());
+
+        storage.close();
+
+        try {
+            reader.read();
+            fail("Should have thrown");
+        } catch (IllegalStateException expected) {
+            // the reader dropped its view of the segments
+        }
+        assertNull(((MappedCacheStorage.MappedReader<Integer>)reader).buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentSizeInvalid() {
+        CacheStorage.mapped(folder.getRoot().toPath(), 4, INTS);
+    }
+}
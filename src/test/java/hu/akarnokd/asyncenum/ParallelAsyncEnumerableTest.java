@@ -0,0 +1,379 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParallelAsyncEnumerableTest {
+
+    static List<Integer> sorted(List<Integer> list) {
+        List<Integer> result = new ArrayList<>(list);
+        Collections.sort(result);
+        return result;
+    }
+
+    static List<Integer> range(int start, int count) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    static <T> AsyncEnumerable<T> wrap(AsyncEnumerator<T> enumerator) {
+        return () -> enumerator;
+    }
+
+    @Test
+    public void sequential() {
+        for (int n = 1; n <= 5; n++) {
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .parallel(n)
+                    .sequential()
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(range(1, 1000), sorted(list));
+        }
+    }
+
+    @Test
+    public void sequentialOrdered() {
+        for (int n = 1; n <= 5; n++) {
+            TestHelper.assertResult(
+                    AsyncEnumerable.range(1, 5)
+                            .parallel(n)
+                            .map(v -> v * 10)
+                            .sequentialOrdered(),
+                    10, 20, 30, 40, 50);
+        }
+    }
+
+    @Test
+    public void parallelism() {
+        assertEquals(4, AsyncEnumerable.range(1, 5).parallel(4).map(v -> v).parallelism());
+    }
+
+    @Test
+    public void runOnSequential() {
+        TestHelper.withExecutor(executor -> {
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .parallel(4, executor)
+                    .map(v -> {
+                        threads.add(Thread.currentThread().getName());
+                        return v + 1;
+                    })
+                    .sequential()
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(range(2, 1000), sorted(list));
+            // a rail completing before its continuation is registered may run the mapper in the caller
+            threads.remove(Thread.currentThread().getName());
+            assertFalse(threads.isEmpty());
+        });
+    }
+
+    @Test
+    public void runOnSequentialOrdered() {
+        TestHelper.withExecutor(executor -> {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 1; i <= 1000; i++) {
+                if (i % 3 != 0) {
+                    expected.add(i * 2);
+                }
+            }
+            List<Integer> list = AsyncEnumerable.range(1, 1000)
+                    .parallel(4)
+                    .runOn(executor)
+                    .filter(v -> v % 3 != 0)
+                    .map(v -> v * 2)
+                    .sequentialOrdered()
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(expected, list);
+        });
+    }
+
+    @Test
+    public void slowMapperSequentialOrdered() throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                List<Integer> list = AsyncEnumerable.range(0, 400)
+                        .parallel(4, exec)
+                        .map(v -> {
+                            TestHelper.spin(50);
+                            return v;
+                        })
+                        .sequentialOrdered()
+                        .toList()
+                        .blockingFirst();
+
+                assertEquals(range(0, 400), list);
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void sequentialOrderedBoundsRailRunningAhead() {
+        AtomicInteger pulled = new AtomicInteger();
+        ParallelAsyncEnumerator<Integer> waiting = new ParallelAsyncEnumerator<>() {
+            @Override
+            public CompletionStage<Boolean> moveNext() {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public Integer current() {
+                return null;
+            }
+
+            @Override
+            public long index() {
+                return 0L;
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        ParallelAsyncEnumerator<Integer> ahead = new ParallelAsyncEnumerator<>() {
+            long index;
+
+            @Override
+            public CompletionStage<Boolean> moveNext() {
+                if (pulled.get() == 1000) {
+                    return CompletableFuture.completedStage(false);
+                }
+                index = pulled.incrementAndGet();
+                return CompletableFuture.completedStage(true);
+            }
+
+            @Override
+            public Integer current() {
+                return (int)index;
+            }
+
+            @Override
+            public long index() {
+                return index;
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        ParallelAsyncEnumerable<Integer> source = new ParallelAsyncEnumerable<>() {
+            @Override
+            public int parallelism() {
+                return 2;
+            }
+
+            @Override
+            public List<ParallelAsyncEnumerator<Integer>> enumerators() {
+                return List.of(waiting, ahead);
+            }
+        };
+
+        AsyncEnumerator<Integer> en = new AsyncParallelSequentialOrdered<>(source, 4).enumerator();
+        en.moveNext();
+
+        // the regular prefetch plus at most the same amount while the other rail waits
+        assertEquals(8, pulled.get());
+        en.cancel();
+    }
+
+    @Test
+    public void keyPartition() {
+        Map<Integer, Set<Long>> railsOfKey = new HashMap<>();
+        List<ParallelAsyncEnumerator<Integer>> rails = AsyncEnumerable.range(0, 30)
+                .parallelBy(3, v -> v % 5)
+                .enumerators();
+
+        List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < rails.size(); i++) {
+            ParallelAsyncEnumerator<Integer> rail = rails.get(i);
+            // fewer items than a rail buffers, so the rails can be consumed one after the other
+            int railIndex = i;
+            List<Integer> items = wrap(rail).toList().blockingFirst();
+            for (Integer v : items) {
+                railsOfKey.computeIfAbsent(v % 5, k -> new HashSet<>()).add((long)railIndex);
+            }
+            all.addAll(items);
+        }
+
+        assertEquals(range(0, 30), sorted(all));
+        for (Set<Long> s : railsOfKey.values()) {
+            assertEquals(1, s.size());
+        }
+    }
+
+    @Test
+    public void keyPartitionOrdered() {
+        TestHelper.withExecutor(executor -> {
+            // items go to the rails in blocks longer than their regular prefetch,
+            // the merge has to keep consuming a rail while the next ones wait
+            List<Integer> list = AsyncEnumerable.range(1, 500)
+                    .parallelBy(4, v -> v / 48 % 4)
+                    .runOn(executor)
+                    .sequentialOrdered()
+                    .toList()
+                    .blockingFirst();
+
+            assertEquals(range(1, 500), list);
+        });
+    }
+
+    @Test
+    public void index() {
+        List<ParallelAsyncEnumerator<Integer>> rails = AsyncEnumerable.range(10, 6)
+                .parallel(2)
+                .filter(v -> v % 2 == 0)
+                .enumerators();
+
+        ParallelAsyncEnumerator<Integer> rail = rails.get(0);
+        List<Long> indexes = new ArrayList<>();
+        while (rail.moveNext().toCompletableFuture().join()) {
+            indexes.add(rail.index());
+            assertEquals(10 + rail.index(), (long)rail.current());
+        }
+        assertFalse(indexes.isEmpty());
+        rails.get(1).cancel();
+    }
+
+    @Test
+    public void reduce() {
+        TestHelper.withExecutor(executor -> {
+            TestHelper.assertResult(
+                    AsyncEnumerable.range(1, 1000)
+                            .parallel(4, executor)
+                            .reduce((a, b) -> a + b),
+                    500500);
+        });
+    }
+
+    @Test
+    public void reduceEmpty() {
+        TestHelper.assertResult(
+                AsyncEnumerable.<Integer>empty()
+                        .parallel(4)
+                        .reduce((a, b) -> a + b));
+    }
+
+    @Test
+    public void error() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.<Integer>error(new RuntimeException("forced failure"))
+                        .parallel(2)
+                        .sequential(),
+                RuntimeException.class, "forced failure");
+    }
+
+    @Test
+    public void errorOrdered() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.<Integer>error(new RuntimeException("forced failure"))
+                        .parallel(2)
+                        .sequentialOrdered(),
+                RuntimeException.class, "forced failure");
+    }
+
+    @Test
+    public void mapperCrash() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.range(1, 5)
+                        .parallel(2)
+                        .map(v -> {
+                            if (v == 3) {
+                                throw new IllegalStateException("forced failure");
+                            }
+                            return v;
+                        })
+                        .sequentialOrdered(),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void filterCrash() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.range(1, 5)
+                        .parallel(2)
+                        .filter(v -> {
+                            throw new IllegalStateException("forced failure");
+                        })
+                        .sequential(),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void keySelectorCrash() {
+        TestHelper.assertFailure(
+                AsyncEnumerable.range(1, 5)
+                        .parallelBy(2, v -> {
+                            throw new IllegalStateException("forced failure");
+                        })
+                        .sequential(),
+                IllegalStateException.class, "forced failure");
+    }
+
+    @Test
+    public void take() {
+        AtomicInteger cancelled = new AtomicInteger();
+        TestHelper.assertResult(
+                AsyncEnumerable.range(1, 1000)
+                        .doOnCancel(cancelled::incrementAndGet)
+                        .parallel(3)
+                        .sequentialOrdered()
+                        .take(5),
+                1, 2, 3, 4, 5);
+
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    public void cancelOneRail() {
+        List<ParallelAsyncEnumerator<Integer>> rails = AsyncEnumerable.range(1, 10)
+                .parallel(2)
+                .enumerators();
+
+        rails.get(0).cancel();
+
+        List<Integer> list = wrap(rails.get(1)).toList().blockingFirst();
+        assertEquals(range(1, 10), list);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void railsInvalid() {
+        AsyncEnumerable.range(1, 5).parallel(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void railsKeyInvalid() {
+        AsyncEnumerable.range(1, 5).parallelBy(-1, v -> v);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ReusableCompletionStageTest {
+
+    @Test
+    public void completeThenRegister() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+        assertTrue(stage.complete(true));
+
+        List<Object> list = new ArrayList<>();
+        AsyncEnumeratorHelper.whenComplete(stage, (v, e) -> list.add(v));
+
+        assertEquals(Collections.singletonList(true), list);
+    }
+
+    @Test
+    public void registerThenComplete() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+
+        List<Object> list = new ArrayList<>();
+        AsyncEnumeratorHelper.whenComplete(stage, (v, e) -> list.add(v));
+
+        assertTrue(list.isEmpty());
+        assertTrue(stage.complete(false));
+
+        assertEquals(Collections.singletonList(false), list);
+    }
+
+    @Test
+    public void error() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+
+        List<Object> list = new ArrayList<>();
+        stage.onComplete((v, e) -> list.add(e));
+        IOException ex = new IOException();
+        assertTrue(stage.completeExceptionally(ex));
+        assertFalse(stage.complete(true));
+
+        assertEquals(Collections.singletonList(ex), list);
+    }
+
+    @Test
+    public void reuse() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        List<Object> list = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(stage, stage.reset());
+            stage.onComplete((v, e) -> list.add(v));
+            stage.complete(true);
+        }
+
+        assertEquals(Arrays.asList(true, true, true), list);
+    }
+
+    @Test
+    public void resetInsideCallback() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        List<Object> list = new ArrayList<>();
+
+        stage.reset();
+        stage.onComplete((v, e) -> {
+            list.add(v);
+            stage.reset();
+            stage.onComplete((w, f) -> list.add(w));
+        });
+        stage.complete(true);
+        stage.complete(false);
+
+        assertEquals(Arrays.asList(true, false), list);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void resetBeforeCompletion() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+        stage.reset();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void registerBeforeReset() {
+        new ReusableCompletionStage().onComplete((v, e) -> { });
+    }
+
+    @Test
+    public void completeBeforeResetIgnored() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        assertFalse(stage.complete(true));
+    }
+
+    @Test
+    public void multipleCallbacks() {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+
+        List<Object> list = new ArrayList<>();
+        stage.onComplete((v, e) -> list.add(1));
+        stage.onComplete((v, e) -> list.add(2));
+        stage.complete(true);
+
+        assertEquals(Arrays.asList(1, 2), list);
+    }
+
+    @Test
+    public void toCompletableFuture() throws Exception {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+        stage.complete(true);
+
+        assertTrue(stage.toCompletableFuture().get());
+        assertEquals("ReusableCompletionStage[true]", stage.toString());
+    }
+
+    @Test
+    public void toCompletableFutureError() throws Exception {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+        stage.completeExceptionally(new IOException());
+
+        try {
+            stage.toCompletableFuture().get();
+            fail("Should have thrown");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void stageMethods() throws Exception {
+        ReusableCompletionStage stage = new ReusableCompletionStage();
+        stage.reset();
+        assertEquals("ReusableCompletionStage[Incomplete]", stage.toString());
+
+        List<Object> list = new ArrayList<>();
+        stage.whenComplete((v, e) -> list.add(v));
+        CompletableFuture<Integer> cf = stage.thenApply(v -> v ? 2 : 1).toCompletableFuture();
+
+        stage.complete(true);
+
+        assertEquals(Collections.singletonList(true), list);
+        assertEquals(2, cf.get().intValue());
+    }
+
+    @Test
+    public void enumeratorReusesStage() {
+        TestHelper.withExecutor(executor -> {
+            AsyncEnumerator<Integer> en = AsyncEnumerable.range(1, 5)
+                    .observeOn(executor)
+                    .enumerator();
+
+            Set<Object> stages = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < 5; i++) {
+                CompletionStage<Boolean> stage = en.moveNext();
+                stages.add(stage);
+                try {
+                    assertTrue(stage.toCompletableFuture().get());
+                } catch (Exception ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+            assertEquals(1, stages.size());
+        });
+    }
+}
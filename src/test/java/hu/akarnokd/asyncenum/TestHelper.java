@@ -185,4 +185,110 @@ public final class TestHelper {
             }
         });
     }
+
+    /**
+     * Spins for the given number of microseconds, to simulate a slow consumer or mapper.
+     * @param micros the time to spin for
+     */
+    public static void spin(long micros) {
+        long end = System.nanoTime() + micros * 1000L;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * An AsyncEnumerable that returns itself as the only enumerator and whose
+     * {@code moveNext} calls are completed by the test through {@link #emit(int)},
+     * {@link #complete()} and {@link #fail(Throwable)}.
+     */
+    static final class ManualSource implements AsyncEnumerable<Integer>, AsyncEnumerator<Integer> {
+
+        final AtomicInteger enumerators = new AtomicInteger();
+
+        final AtomicInteger cancelled = new AtomicInteger();
+
+        /** Counts the moveNext calls made while a current() call was still in progress. */
+        final AtomicInteger moveNextDuringCurrent = new AtomicInteger();
+
+        volatile CompletableFuture<Boolean> pending;
+
+        volatile Integer current;
+
+        volatile boolean inCurrent;
+
+        /** If set, current() counts down {@link #currentEntered} and waits for this latch. */
+        volatile CountDownLatch currentRelease;
+
+        volatile CountDownLatch currentEntered;
+
+        @Override
+        public AsyncEnumerator<Integer> enumerator() {
+            enumerators.getAndIncrement();
+            return this;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext() {
+            if (inCurrent) {
+                moveNextDuringCurrent.getAndIncrement();
+            }
+            CompletableFuture<Boolean> cf = new CompletableFuture<>();
+            pending = cf;
+            return cf;
+        }
+
+        @Override
+        public Integer current() {
+            CountDownLatch release = currentRelease;
+            if (release != null) {
+                inCurrent = true;
+                currentEntered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new AssertionError(ex);
+                }
+                inCurrent = false;
+            }
+            return current;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.getAndIncrement();
+        }
+
+        void emit(int value) {
+            current = value;
+            pending.complete(true);
+        }
+
+        void complete() {
+            pending.complete(false);
+        }
+
+        void fail(Throwable ex) {
+            pending.completeExceptionally(ex);
+        }
+
+        /**
+         * Emits the value from another thread and waits until the consumer is blocked
+         * in current(); the returned thread finishes after {@link #releaseCurrent()}.
+         */
+        Thread emitBlockingCurrent(int value) throws InterruptedException {
+            currentEntered = new CountDownLatch(1);
+            currentRelease = new CountDownLatch(1);
+            Thread t = new Thread(() -> emit(value));
+            t.start();
+            assertTrue(currentEntered.await(5, TimeUnit.SECONDS));
+            return t;
+        }
+
+        void releaseCurrent() {
+            CountDownLatch release = currentRelease;
+            currentRelease = null;
+            release.countDown();
+        }
+    }
 }